@@ -25,13 +25,42 @@ object Config {
 
   // Local db settings.
   // TODO(#128): Reset version to 1 before releasing.
-  const val DB_VERSION = 95
+  const val DB_VERSION = 101
   const val DB_NAME = "ground.db"
 
+  /** Time writes to the local db are collected before being committed in a single transaction. */
+  const val LOCAL_WRITE_GROUP_COMMIT_WINDOW_MILLIS = 5L
+
+  /** Maximum number of writes to the local db committed in a single transaction. */
+  const val LOCAL_WRITE_MAX_GROUP_SIZE = 100
+
+  // Local mutation queue.
+  /** Number of days completed mutations are kept before being removed from the local db. */
+  const val COMPLETED_MUTATION_RETENTION_DAYS = 30
+
+  /** Maximum number of completed mutations removed from each table per delete statement. */
+  const val MUTATION_COMPACTION_BATCH_SIZE = 500
+
+  /** Number of times a mutation may fail to sync on its own before it is marked as failed. */
+  const val MAX_MUTATION_SYNC_ATTEMPTS = 5
+
   // Firebase Cloud Firestore settings.
   const val FIRESTORE_PERSISTENCE_ENABLED = false
   const val FIRESTORE_LOGGING_ENABLED = true
 
+  /** Maximum number of writes Firestore allows in a single batch. */
+  const val FIRESTORE_MAX_BATCH_WRITES = 500
+
+  /**
+   * Number of submissions loaded from the remote db and merged into the local db at a time when
+   * prefetching all submissions in a survey.
+   */
+  const val SUBMISSION_PREFETCH_PAGE_SIZE = 200
+
+  // Offline tiles.
+  /** Maximum number of tile set files downloaded at the same time. */
+  const val MAX_CONCURRENT_TILE_SET_DOWNLOADS = 4
+
   // Photos
   const val PHOTO_EXT = ".jpg"
 }
@@ -24,9 +24,11 @@ import androidx.multidex.MultiDexApplication
 import androidx.work.Configuration
 import androidx.work.WorkManager
 import com.akaita.java.rxjava2debug.RxJava2Debug
+import com.google.android.ground.persistence.sync.MutationCompactionWorkManager
 import com.google.firebase.crashlytics.FirebaseCrashlytics
 import dagger.hilt.android.HiltAndroidApp
 import javax.inject.Inject
+import javax.inject.Provider
 import timber.log.Timber
 
 @HiltAndroidApp
@@ -34,6 +36,9 @@ class GroundApplication : MultiDexApplication(), Configuration.Provider {
 
   @Inject lateinit var workerFactory: HiltWorkerFactory
 
+  // Provided lazily since WorkManager may only be obtained once it has been initialized below.
+  @Inject lateinit var mutationCompactionWorkManager: Provider<MutationCompactionWorkManager>
+
   init {
     Timber.plant(if (BuildConfig.DEBUG) Timber.DebugTree() else CrashReportingTree())
   }
@@ -51,6 +56,7 @@ class GroundApplication : MultiDexApplication(), Configuration.Provider {
     RxJava2Debug.enableRxJava2AssemblyTracking(arrayOf(javaClass.getPackage().name))
 
     WorkManager.initialize(applicationContext, workManagerConfiguration)
+    mutationCompactionWorkManager.get().enqueuePeriodicCompactionWorker()
   }
 
   override fun getWorkManagerConfiguration(): Configuration {
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.model.locationofinterest
+
+import com.google.common.collect.ImmutableSet
+
+/**
+ * Changes to the set of LOIs in a survey since the previous emission of a change stream. The first
+ * emission of such a stream is a snapshot, with all LOIs present at the time in [added].
+ */
+data class LocationOfInterestChanges(
+  /** LOIs which were not present in the previous emission. */
+  val added: ImmutableSet<LocationOfInterest> = ImmutableSet.of(),
+  /** LOIs which were present in the previous emission and have since been written. */
+  val updated: ImmutableSet<LocationOfInterest> = ImmutableSet.of(),
+  /** IDs of LOIs which were present in the previous emission and have since been removed. */
+  val removedIds: ImmutableSet<String> = ImmutableSet.of()
+) {
+  fun isEmpty(): Boolean = added.isEmpty() && updated.isEmpty() && removedIds.isEmpty()
+
+  /** Returns the LOIs in [locationsOfInterest] with these changes applied, keyed by id. */
+  fun applyTo(
+    locationsOfInterest: Map<String, LocationOfInterest>
+  ): Map<String, LocationOfInterest> =
+    locationsOfInterest - removedIds + (added + updated).associateBy { it.id }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.model.mutation
+
+import com.google.android.ground.model.submission.TaskDataDelta
+import com.google.android.ground.util.toImmutableList
+import com.google.common.collect.ImmutableList
+
+/**
+ * Folds pending mutations to the same LOI or submission into a single net mutation, so that an
+ * entity edited several times offline is written once rather than once per edit.
+ *
+ * Mutations are folded in the order given, which must be the order in which they were applied
+ * locally. A `CREATE` or `UPDATE` followed by an `UPDATE` keeps the type of the first mutation and
+ * the latest changes, and a `CREATE` or `UPDATE` followed by a `DELETE` becomes a `DELETE`.
+ * Mutations by different users, or following a `DELETE`, are never folded. Each folded mutation
+ * takes the position of the first mutation in its group, and the id, timestamp and metadata of the
+ * last.
+ */
+object MutationCompactor {
+
+  fun compact(mutations: List<Mutation>): ImmutableList<Mutation> {
+    val compacted = mutableListOf<Mutation>()
+    // Index of the latest folded mutation for each entity in the compacted list.
+    val indexByEntity = mutableMapOf<Pair<Class<out Mutation>, String>, Int>()
+    for (mutation in mutations) {
+      val entity = entityKey(mutation)
+      val index = indexByEntity[entity]
+      val folded = index?.let { fold(compacted[it], mutation) }
+      if (index != null && folded != null) {
+        compacted[index] = folded
+      } else {
+        indexByEntity[entity] = compacted.size
+        compacted.add(mutation)
+      }
+    }
+    return compacted.toImmutableList()
+  }
+
+  /**
+   * Returns a single list of deltas equivalent to applying the specified deltas in order. When a
+   * task is changed more than once, only its last change is kept.
+   */
+  fun mergeDeltas(deltas: List<TaskDataDelta>): ImmutableList<TaskDataDelta> =
+    deltas.associateBy { it.taskId }.values.toList().toImmutableList()
+
+  private fun entityKey(mutation: Mutation): Pair<Class<out Mutation>, String> =
+    when (mutation) {
+      is LocationOfInterestMutation -> Pair(mutation.javaClass, mutation.locationOfInterestId)
+      is SubmissionMutation -> Pair(mutation.javaClass, mutation.submissionId)
+    }
+
+  /** Returns the net effect of [previous] followed by [next], or `null` if they can't be folded. */
+  private fun fold(previous: Mutation, next: Mutation): Mutation? {
+    if (previous.userId != next.userId) return null
+    if (previous.type != Mutation.Type.CREATE && previous.type != Mutation.Type.UPDATE) return null
+    return when (next.type) {
+      Mutation.Type.UPDATE ->
+        when {
+          previous is SubmissionMutation && next is SubmissionMutation ->
+            next.copy(
+              type = previous.type,
+              taskDataDeltas = mergeDeltas(previous.taskDataDeltas + next.taskDataDeltas)
+            )
+          previous is LocationOfInterestMutation && next is LocationOfInterestMutation ->
+            next.copy(type = previous.type, geometry = next.geometry ?: previous.geometry)
+          else -> null
+        }
+      Mutation.Type.DELETE -> next
+      else -> null
+    }
+  }
+}
@@ -20,6 +20,7 @@ import com.google.android.ground.model.User
 import com.google.android.ground.model.basemap.OfflineArea
 import com.google.android.ground.model.basemap.tile.TileSet
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
+import com.google.android.ground.model.locationofinterest.LocationOfInterestChanges
 import com.google.android.ground.model.mutation.LocationOfInterestMutation
 import com.google.android.ground.model.mutation.Mutation
 import com.google.android.ground.model.mutation.SubmissionMutation
@@ -27,12 +28,15 @@ import com.google.android.ground.model.submission.Submission
 import com.google.android.ground.persistence.local.room.LocalDataStoreException
 import com.google.android.ground.persistence.local.room.models.MutationEntitySyncStatus
 import com.google.android.ground.rx.annotations.Cold
+import com.google.android.ground.ui.map.Bounds
+import com.google.android.ground.ui.map.LoiMapSummary
 import com.google.common.collect.ImmutableList
 import com.google.common.collect.ImmutableSet
 import io.reactivex.Completable
 import io.reactivex.Flowable
 import io.reactivex.Maybe
 import io.reactivex.Single
+import java.util.Date
 
 /**
  * Provides access to local persistent data store, the canonical store for latest state and
@@ -92,6 +96,48 @@ interface LocalDataStore {
     survey: Survey
   ): @Cold(terminates = false) Flowable<ImmutableSet<LocationOfInterest>>
 
+  /**
+   * Returns the latest time at which any LOI in the specified survey was modified according to the
+   * remote db, or empty if no LOIs from the remote db are stored locally.
+   */
+  fun getLatestLocationOfInterestServerTimestamp(survey: Survey): @Cold Maybe<Date>
+
+  /**
+   * Returns a long-lived stream that emits all LOIs in a survey on subscribe, followed by only the
+   * LOIs added, changed or removed by each subsequent write to the local db. Unlike
+   * [getLocationsOfInterestOnceAndStream], writes only cause the affected rows to be reloaded.
+   */
+  fun getLocationOfInterestChangesOnceAndStream(
+    survey: Survey
+  ): @Cold(terminates = false) Flowable<LocationOfInterestChanges>
+
+  /**
+   * Returns a long-lived stream that emits map summaries of the LOIs in a survey whose bounding box
+   * intersects the specified [Bounds] on subscribe, and continues to return the updated set each
+   * time a LOI is added/changed/removed. Cheaper to load than full LOIs, since jobs and audit info
+   * aren't read.
+   */
+  fun getLocationOfInterestSummariesWithinBoundsOnceAndStream(
+    survey: Survey,
+    bounds: Bounds
+  ): @Cold(terminates = false) Flowable<ImmutableSet<LoiMapSummary>>
+
+  /** Returns the LOIs in the specified survey with the specified ids, skipping any not found. */
+  fun getLocationsOfInterest(
+    survey: Survey,
+    ids: Collection<String>
+  ): @Cold Single<ImmutableList<LocationOfInterest>>
+
+  /**
+   * Returns a long-lived stream that emits the set of LOIs in a survey whose bounding box intersects
+   * the specified [Bounds] on subscribe, and continues to return the updated set each time a LOI is
+   * added/changed/removed.
+   */
+  fun getLocationsOfInterestWithinBoundsOnceAndStream(
+    survey: Survey,
+    bounds: Bounds
+  ): @Cold(terminates = false) Flowable<ImmutableSet<LocationOfInterest>>
+
   /**
    * Returns the list of submissions which are not marked for deletion for the specified
    * locationOfInterest and job.
@@ -120,19 +166,42 @@ interface LocalDataStore {
   val tileSetsOnceAndStream: @Cold(terminates = false) Flowable<ImmutableSet<TileSet>>
 
   /**
-   * Returns a long-lived stream that emits the full list of mutations for specified survey on
-   * subscribe and a new list on each subsequent change.
+   * Returns a long-lived stream that emits the [limit] most recent mutations for specified survey,
+   * ordered by descending client timestamp, on subscribe and a new list on each subsequent change.
    */
   fun getMutationsOnceAndStream(
-    survey: Survey
+    survey: Survey,
+    limit: Int
   ): @Cold(terminates = false) Flowable<ImmutableList<Mutation>>
 
+  /**
+   * Returns a long-lived stream that emits the number of mutations in the specified survey with
+   * the given sync status on subscribe, and again each time it changes.
+   */
+  fun getMutationCountOnceAndStream(
+    survey: Survey,
+    syncStatus: Mutation.SyncStatus
+  ): @Cold(terminates = false) Flowable<Int>
+
+  /**
+   * Removes completed mutations with a client timestamp older than [cutoffTimestamp], deleting at
+   * most [batchSize] rows per statement so that other writers aren't blocked for long. Emits the
+   * total number of mutations removed.
+   */
+  fun deleteCompletedMutations(cutoffTimestamp: Long, batchSize: Int): @Cold Single<Int>
+
   /**
    * Returns all LOI and submission mutations in the local mutation queue relating to LOI with the
    * specified id.
    */
   fun getPendingMutations(locationOfInterestId: String): @Cold Single<ImmutableList<Mutation>>
 
+  /**
+   * Returns all LOI and submission mutations in the local mutation queue which are pending sync,
+   * across all surveys.
+   */
+  val allPendingMutations: @Cold Single<ImmutableList<Mutation>>
+
   /** Updates the provided list of mutations. */
   fun updateMutations(mutations: ImmutableList<Mutation>): @Cold Completable
 
@@ -149,6 +218,27 @@ interface LocalDataStore {
    */
   fun mergeLocationOfInterest(locationOfInterest: LocationOfInterest): @Cold Completable
 
+  /**
+   * Merges the provided LOIs into the local data store and deletes the LOIs with the specified ids,
+   * all in a single transaction. Used to apply batches of remote changes without triggering a
+   * table invalidation for each LOI.
+   */
+  fun mergeLocationsOfInterest(
+    locationsOfInterest: ImmutableList<LocationOfInterest>,
+    deletedIds: ImmutableSet<String>
+  ): @Cold Completable
+
+  /**
+   * Merges the provided LOIs, the complete set of LOIs in the specified survey according to the
+   * remote db, and deletes local LOIs in the survey previously loaded from the remote db which are
+   * no longer in that set, all in a single transaction. LOIs created locally that haven't reached
+   * the remote db yet are kept.
+   */
+  fun replaceLocationsOfInterest(
+    survey: Survey,
+    locationsOfInterest: ImmutableList<LocationOfInterest>
+  ): @Cold Completable
+
   /** Deletes LOI from local database. */
   fun deleteLocationOfInterest(locationOfInterestId: String): @Cold Completable
 
@@ -159,6 +249,12 @@ interface LocalDataStore {
    */
   fun mergeSubmission(submission: Submission): @Cold Completable
 
+  /**
+   * Merges the provided submissions with their pending unsynced local mutations as in
+   * [mergeSubmission], writing all of them to the local data store in a single transaction.
+   */
+  fun mergeSubmissions(submissions: ImmutableList<Submission>): @Cold Completable
+
   /** Deletes submission from local database. */
   fun deleteSubmission(submissionId: String): @Cold Completable
 
@@ -168,6 +264,9 @@ interface LocalDataStore {
    */
   fun insertOrUpdateTileSet(tileSet: TileSet): @Cold Completable
 
+  /** Inserts or updates the specified tiles in the local data store in a single batch. */
+  fun insertOrUpdateTileSets(tileSets: ImmutableList<TileSet>): @Cold Completable
+
   /** Returns the tile with the specified URL from the local data store, if found. */
   fun getTileSet(tileUrl: String): @Cold Maybe<TileSet>
 
@@ -17,6 +17,8 @@ package com.google.android.ground.persistence.local
 
 import android.content.Context
 import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.sqlite.db.SupportSQLiteDatabase
 import com.google.android.ground.Config
 import com.google.android.ground.persistence.local.room.LocalDatabase
 import dagger.Module
@@ -25,6 +27,7 @@ import dagger.hilt.InstallIn
 import dagger.hilt.android.qualifiers.ApplicationContext
 import dagger.hilt.components.SingletonComponent
 import javax.inject.Singleton
+import timber.log.Timber
 
 @InstallIn(SingletonComponent::class)
 @Module
@@ -34,6 +37,26 @@ object LocalDatabaseModule {
   fun localDatabase(@ApplicationContext context: Context): LocalDatabase {
     return Room.databaseBuilder(context, LocalDatabase::class.java, Config.DB_NAME)
       .fallbackToDestructiveMigration() // TODO(#128): Disable before official release.
+      .addCallback(EnableIncrementalVacuumCallback)
       .build()
   }
 }
+
+/**
+ * Switches the db to incremental auto-vacuum, so that pages freed by deleted rows can be returned
+ * to the file system using [LocalDatabase.incrementalVacuum] rather than a full VACUUM, which
+ * rewrites the whole file. The new mode only takes effect after a VACUUM, which is therefore run
+ * once, the first time a db created in another mode is opened. Room creates the schema before
+ * calling [onOpen], so new dbs are converted while still empty.
+ */
+private object EnableIncrementalVacuumCallback : RoomDatabase.Callback() {
+  private const val AUTO_VACUUM_INCREMENTAL = 2
+
+  override fun onOpen(db: SupportSQLiteDatabase) {
+    val mode = db.query("PRAGMA auto_vacuum").use { if (it.moveToFirst()) it.getInt(0) else 0 }
+    if (mode == AUTO_VACUUM_INCREMENTAL) return
+    Timber.d("Enabling incremental auto-vacuum")
+    db.execSQL("PRAGMA auto_vacuum = INCREMENTAL")
+    db.execSQL("VACUUM")
+  }
+}
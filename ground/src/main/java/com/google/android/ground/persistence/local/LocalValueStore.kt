@@ -17,6 +17,7 @@ package com.google.android.ground.persistence.local
 
 import android.content.SharedPreferences
 import com.google.android.gms.maps.GoogleMap
+import com.google.android.ground.persistence.remote.SubmissionCursor
 import com.google.android.ground.ui.map.CameraPosition
 import com.google.android.ground.ui.settings.Keys
 import javax.inject.Inject
@@ -90,10 +91,49 @@ class LocalValueStore @Inject constructor(private val preferences: SharedPrefere
     }
   }
 
+  /**
+   * Returns the position of the last submission merged by an unfinished prefetch of submissions in
+   * the specified survey, or null if the next prefetch should start from the beginning.
+   */
+  fun getSubmissionPrefetchCursor(surveyId: String): SubmissionCursor? {
+    val submissionId =
+      preferences.getString(SUBMISSION_PREFETCH_CURSOR_ID_PREFIX + surveyId, null) ?: return null
+    val timeMicros = preferences.getLong(SUBMISSION_PREFETCH_CURSOR_TIME_PREFIX + surveyId, 0)
+    return SubmissionCursor(timeMicros, submissionId)
+  }
+
+  fun setSubmissionPrefetchCursor(surveyId: String, cursor: SubmissionCursor?) {
+    val editor = preferences.edit()
+    if (cursor == null) {
+      editor
+        .remove(SUBMISSION_PREFETCH_CURSOR_TIME_PREFIX + surveyId)
+        .remove(SUBMISSION_PREFETCH_CURSOR_ID_PREFIX + surveyId)
+    } else {
+      editor
+        .putLong(SUBMISSION_PREFETCH_CURSOR_TIME_PREFIX + surveyId, cursor.serverTimestampMicros)
+        .putString(SUBMISSION_PREFETCH_CURSOR_ID_PREFIX + surveyId, cursor.submissionId)
+    }
+    editor.apply()
+  }
+
+  /**
+   * Returns the server modification time of the newest submission loaded by the last completed
+   * prefetch of submissions in the specified survey, or 0 if no prefetch has completed yet.
+   */
+  fun getSubmissionPrefetchWatermarkMillis(surveyId: String): Long =
+    preferences.getLong(SUBMISSION_PREFETCH_WATERMARK_PREFIX + surveyId, 0)
+
+  fun setSubmissionPrefetchWatermarkMillis(surveyId: String, timeMillis: Long) {
+    preferences.edit().putLong(SUBMISSION_PREFETCH_WATERMARK_PREFIX + surveyId, timeMillis).apply()
+  }
+
   companion object {
     const val ACTIVE_SURVEY_ID_KEY = "activeSurveyId"
     const val MAP_TYPE = "map_type"
     const val LAST_VIEWPORT_PREFIX = "last_viewport_"
+    const val SUBMISSION_PREFETCH_CURSOR_TIME_PREFIX = "submission_prefetch_cursor_time_"
+    const val SUBMISSION_PREFETCH_CURSOR_ID_PREFIX = "submission_prefetch_cursor_id_"
+    const val SUBMISSION_PREFETCH_WATERMARK_PREFIX = "submission_prefetch_watermark_"
     const val TOS_ACCEPTED = "tos_accepted"
     const val POLYGON_INFO_DIALOG = "polygon_info_dialog"
   }
@@ -79,4 +79,14 @@ abstract class LocalDatabase : RoomDatabase() {
   abstract fun tileSetDao(): TileSetDao
   abstract fun offlineAreaDao(): OfflineAreaDao
   abstract fun userDao(): UserDao
+
+  /**
+   * Returns the pages freed by deleted rows to the file system, shrinking the db file. Only has an
+   * effect when the db is in incremental auto-vacuum mode. Unlike a full VACUUM, this doesn't
+   * rewrite the rest of the file, and it can run inside a transaction.
+   */
+  fun incrementalVacuum() {
+    // The pragma returns no rows; moving the cursor runs it to completion.
+    openHelper.writableDatabase.query("PRAGMA incremental_vacuum").use { it.moveToFirst() }
+  }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.persistence.local.room
+
+import com.google.android.ground.Config
+import com.google.android.ground.rx.Schedulers
+import com.google.android.ground.rx.annotations.Cold
+import io.reactivex.Completable
+import io.reactivex.subjects.CompletableSubject
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import javax.inject.Inject
+import javax.inject.Singleton
+import timber.log.Timber
+
+/**
+ * Serializes writes to the local db, committing writes which arrive within
+ * [Config.LOCAL_WRITE_GROUP_COMMIT_WINDOW_MILLIS] of each other, or while a previous group is being
+ * committed, in a single transaction. This avoids paying for a separate transaction and sync to
+ * disk for each write, and stops concurrent writers from contending for SQLite's write lock.
+ *
+ * If any write in a group fails, the group is rolled back and each of its writes retried in its own
+ * transaction, so that only the callers whose writes failed receive an error.
+ */
+@Singleton
+class LocalWriteQueue
+@Inject
+constructor(private val database: LocalDatabase, private val schedulers: Schedulers) {
+  private class PendingWrite(val write: () -> Unit) {
+    val result: CompletableSubject = CompletableSubject.create()
+  }
+
+  private val queue = ConcurrentLinkedQueue<PendingWrite>()
+  private val pendingWriteCount = AtomicInteger()
+  private val draining = AtomicBoolean()
+
+  /** Number of writes waiting to be committed. */
+  val queueDepth: Int
+    get() = pendingWriteCount.get()
+
+  /** Time taken to commit the most recent group of writes. */
+  @Volatile
+  var lastCommitLatencyMillis: Long = 0
+    private set
+
+  /** Number of writes committed in the most recent group. */
+  @Volatile
+  var lastGroupSize: Int = 0
+    private set
+
+  /**
+   * Returns a [Completable] which, on subscribe, queues the specified blocking write and completes
+   * once the transaction containing it has been committed.
+   */
+  fun enqueue(write: () -> Unit): @Cold Completable =
+    Completable.defer {
+      val pendingWrite = PendingWrite(write)
+      queue.add(pendingWrite)
+      pendingWriteCount.incrementAndGet()
+      scheduleDrain()
+      // Notify callers off the writer so that their downstream work doesn't delay other writes.
+      pendingWrite.result.observeOn(schedulers.io())
+    }
+
+  private fun scheduleDrain() {
+    if (draining.compareAndSet(false, true)) {
+      schedulers
+        .io()
+        .scheduleDirect(
+          { drain() },
+          Config.LOCAL_WRITE_GROUP_COMMIT_WINDOW_MILLIS,
+          TimeUnit.MILLISECONDS
+        )
+    }
+  }
+
+  private fun drain() {
+    while (true) {
+      val group = pollGroup()
+      if (group.isEmpty()) {
+        draining.set(false)
+        // Writes queued after the last poll but before the flag was cleared would otherwise wait
+        // for the next caller.
+        if (queue.isEmpty() || !draining.compareAndSet(false, true)) return
+      } else {
+        commit(group)
+      }
+    }
+  }
+
+  private fun pollGroup(): List<PendingWrite> {
+    val group = mutableListOf<PendingWrite>()
+    while (group.size < Config.LOCAL_WRITE_MAX_GROUP_SIZE) {
+      group.add(queue.poll() ?: break)
+      pendingWriteCount.decrementAndGet()
+    }
+    return group
+  }
+
+  private fun commit(group: List<PendingWrite>) {
+    val startTimeMillis = System.currentTimeMillis()
+    try {
+      database.runInTransaction { group.forEach { it.write() } }
+    } catch (t: Throwable) {
+      if (group.size == 1) {
+        group[0].result.onError(t)
+      } else {
+        Timber.w(t, "Group of ${group.size} writes failed, retrying individually")
+        group.forEach { commit(listOf(it)) }
+      }
+      return
+    }
+    lastCommitLatencyMillis = System.currentTimeMillis() - startTimeMillis
+    lastGroupSize = group.size
+    Timber.v("Committed ${group.size} writes in ${lastCommitLatencyMillis}ms, $queueDepth queued")
+    group.forEach { it.result.onComplete() }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.persistence.local.room
+
+import android.util.LruCache
+import androidx.annotation.VisibleForTesting
+import com.google.android.ground.model.Survey
+import com.google.android.ground.model.locationofinterest.LocationOfInterest
+import com.google.android.ground.persistence.local.room.converter.toModelObject
+import com.google.android.ground.persistence.local.room.entity.AuditInfoEntity
+import com.google.android.ground.persistence.local.room.entity.LocationOfInterestEntity
+import com.google.android.ground.util.StreamUtil.logErrorsAndSkipKt
+import com.google.android.ground.util.toImmutableSet
+import com.google.common.collect.ImmutableSet
+import java.util.concurrent.atomic.AtomicInteger
+
+/** Maximum number of converted LOIs retained between emissions. */
+private const val MAX_CACHED_LOCATIONS_OF_INTEREST = 20_000
+
+/**
+ * Converts [LocationOfInterestEntity] rows to [LocationOfInterest] model objects, reusing the
+ * instance created for a row on a previous call unless the row has since been modified. This
+ * avoids re-parsing the geometry of every LOI each time the table changes, and lets consumers which
+ * compare emissions tell unchanged LOIs apart from changed ones by identity.
+ */
+class LocationOfInterestModelCache {
+  private data class Entry(val lastModified: AuditInfoEntity, val model: LocationOfInterest)
+
+  private val entries = LruCache<String, Entry>(MAX_CACHED_LOCATIONS_OF_INTEREST)
+
+  /** The survey used to convert the cached entries, whose jobs are referenced by each LOI. */
+  private var survey: Survey? = null
+
+  private val conversions = AtomicInteger()
+
+  /** Number of rows converted since this cache was created, excluding those served from cache. */
+  @get:VisibleForTesting
+  val conversionCount: Int
+    get() = conversions.get()
+
+  /**
+   * Returns the model objects for the specified rows in the specified survey. Rows which can't be
+   * converted are logged and skipped.
+   */
+  fun toLocationsOfInterest(
+    survey: Survey,
+    entities: List<LocationOfInterestEntity>
+  ): ImmutableSet<LocationOfInterest> {
+    invalidateIfSurveyChanged(survey)
+    return entities
+      .flatMap { logErrorsAndSkipKt { toLocationOfInterest(survey, it) } }
+      .toImmutableSet()
+  }
+
+  private fun toLocationOfInterest(
+    survey: Survey,
+    entity: LocationOfInterestEntity
+  ): LocationOfInterest {
+    val cached = entries.get(entity.id)
+    if (cached != null && cached.lastModified == entity.lastModified) return cached.model
+    val model = entity.toModelObject(survey)
+    conversions.incrementAndGet()
+    entries.put(entity.id, Entry(entity.lastModified, model))
+    return model
+  }
+
+  @Synchronized
+  private fun invalidateIfSurveyChanged(survey: Survey) {
+    if (survey === this.survey) return
+    if (survey != this.survey) entries.evictAll()
+    this.survey = survey
+  }
+}
@@ -15,7 +15,6 @@
  */
 package com.google.android.ground.persistence.local.room
 
-import androidx.room.Transaction
 import com.google.android.ground.model.AuditInfo
 import com.google.android.ground.model.Survey
 import com.google.android.ground.model.User
@@ -23,18 +22,17 @@ import com.google.android.ground.model.basemap.OfflineArea
 import com.google.android.ground.model.basemap.tile.TileSet
 import com.google.android.ground.model.job.Job
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
+import com.google.android.ground.model.locationofinterest.LocationOfInterestChanges
 import com.google.android.ground.model.mutation.LocationOfInterestMutation
 import com.google.android.ground.model.mutation.Mutation
 import com.google.android.ground.model.mutation.Mutation.Companion.byDescendingClientTimestamp
 import com.google.android.ground.model.mutation.Mutation.SyncStatus
 import com.google.android.ground.model.mutation.Mutation.Type.*
+import com.google.android.ground.model.mutation.MutationCompactor
 import com.google.android.ground.model.mutation.SubmissionMutation
 import com.google.android.ground.model.submission.Submission
 import com.google.android.ground.model.submission.TaskDataDelta
 import com.google.android.ground.model.submission.TaskDataMap
-import com.google.android.ground.model.task.MultipleChoice
-import com.google.android.ground.model.task.Option
-import com.google.android.ground.model.task.Task
 import com.google.android.ground.persistence.local.LocalDataStore
 import com.google.android.ground.persistence.local.room.converter.*
 import com.google.android.ground.persistence.local.room.converter.ResponseMapConverter.toString
@@ -47,16 +45,22 @@ import com.google.android.ground.persistence.local.room.models.UserDetails
 import com.google.android.ground.persistence.local.room.relations.SurveyEntityAndRelations
 import com.google.android.ground.rx.Schedulers
 import com.google.android.ground.rx.annotations.Cold
+import com.google.android.ground.rx.annotations.Hot
+import com.google.android.ground.ui.map.Bounds
+import com.google.android.ground.ui.map.LoiMapSummary
 import com.google.android.ground.ui.util.FileUtil
 import com.google.android.ground.util.StreamUtil.logErrorsAndSkipKt
 import com.google.android.ground.util.toImmutableList
 import com.google.android.ground.util.toImmutableSet
-import com.google.common.base.Preconditions
-import com.google.common.collect.ImmutableCollection
 import com.google.common.collect.ImmutableList
 import com.google.common.collect.ImmutableSet
+import com.google.common.collect.Iterables
 import com.google.firebase.crashlytics.FirebaseCrashlytics
 import io.reactivex.*
+import io.reactivex.processors.FlowableProcessor
+import io.reactivex.processors.PublishProcessor
+import io.reactivex.processors.UnicastProcessor
+import java.util.Date
 import javax.inject.Inject
 import javax.inject.Singleton
 import timber.log.Timber
@@ -99,65 +103,51 @@ class RoomLocalDataStore @Inject internal constructor() : LocalDataStore {
 
   @Inject lateinit var fileUtil: FileUtil
 
-  private fun insertOrUpdateOption(taskId: String, option: Option): Completable =
-    optionDao.insertOrUpdate(option.toLocalDataStoreObject(taskId)).subscribeOn(schedulers.io())
+  @Inject lateinit var writeQueue: LocalWriteQueue
 
-  private fun insertOrUpdateOptions(
-    taskId: String,
-    options: kotlinx.collections.immutable.ImmutableList<Option>
-  ): Completable =
-    Observable.fromIterable(options)
-      .flatMapCompletable { insertOrUpdateOption(taskId, it) }
-      .subscribeOn(schedulers.io())
-
-  private fun insertOrUpdateMultipleChoice(
-    taskId: String,
-    multipleChoice: MultipleChoice
-  ): Completable =
-    multipleChoiceDao
-      .insertOrUpdate(multipleChoice.toLocalDataStoreObject(taskId))
-      .andThen(insertOrUpdateOptions(taskId, multipleChoice.options))
-      .subscribeOn(schedulers.io())
-
-  private fun insertOrUpdateTask(jobId: String, task: Task): Completable =
-    taskDao
-      .insertOrUpdate(task.toLocalDataStoreObject(jobId))
-      .andThen(
-        Observable.just(task)
-          .filter { task.multipleChoice != null }
-          .flatMapCompletable { insertOrUpdateMultipleChoice(task.id, task.multipleChoice!!) }
-      )
-      .subscribeOn(schedulers.io())
-
-  private fun insertOrUpdateTasks(jobId: String, tasks: ImmutableCollection<Task>): Completable =
-    Observable.fromIterable(tasks).flatMapCompletable { insertOrUpdateTask(jobId, it) }
-
-  private fun insertOrUpdateJob(surveyId: String, job: Job): Completable =
-    jobDao
-      .insertOrUpdate(job.toLocalDataStoreObject(surveyId))
-      .andThen(insertOrUpdateTasks(job.id, job.tasks.values))
-      .subscribeOn(schedulers.io())
+  @Inject lateinit var database: LocalDatabase
 
-  private fun insertOrUpdateJobs(surveyId: String, jobs: List<Job>): Completable =
-    Observable.fromIterable(jobs).flatMapCompletable { insertOrUpdateJob(surveyId, it) }
+  private val locationOfInterestModelCache = LocationOfInterestModelCache()
 
-  private fun insertOfflineBaseMapSources(survey: Survey): Completable =
-    Observable.fromIterable(survey.baseMaps).flatMapCompletable {
-      baseMapDao.insert(it.toLocalDataStoreObject(surveyId = survey.id))
-    }
+  /** Emits the ids of LOIs inserted, updated or deleted by each write to the local db. */
+  private val locationOfInterestWrites: @Hot FlowableProcessor<ImmutableSet<String>> =
+    PublishProcessor.create<ImmutableSet<String>>().toSerialized()
 
-  @Transaction
   override fun insertOrUpdateSurvey(survey: Survey): Completable =
-    surveyDao
-      .insertOrUpdate(survey.toLocalDataStoreObject())
-      .andThen(jobDao.deleteBySurveyId(survey.id))
-      .andThen(insertOrUpdateJobs(survey.id, survey.jobs))
-      .andThen(baseMapDao.deleteBySurveyId(survey.id))
-      .andThen(insertOfflineBaseMapSources(survey))
-      .subscribeOn(schedulers.io())
+    writeQueue.enqueue { insertOrUpdateSurveyBlocking(survey) }
+
+  /**
+   * Replaces the survey definition, including its jobs, tasks, multiple choice options and base
+   * maps. Entities are converted up front and written in bulk; must be called inside a
+   * transaction so that the entire survey is imported atomically.
+   */
+  private fun insertOrUpdateSurveyBlocking(survey: Survey) {
+    val tasks = survey.jobs.flatMap { job -> job.tasks.values.map { job.id to it } }
+    val multipleChoiceTasks = tasks.map { it.second }.filter { it.multipleChoice != null }
+    val jobEntities = survey.jobs.map { it.toLocalDataStoreObject(survey.id) }
+    val taskEntities = tasks.map { (jobId, task) -> task.toLocalDataStoreObject(jobId) }
+    val multipleChoiceEntities =
+      multipleChoiceTasks.map { it.multipleChoice!!.toLocalDataStoreObject(it.id) }
+    val optionEntities =
+      multipleChoiceTasks.flatMap { task ->
+        task.multipleChoice!!.options.map { it.toLocalDataStoreObject(task.id) }
+      }
+    val baseMapEntities = survey.baseMaps.map { it.toLocalDataStoreObject(surveyId = survey.id) }
+
+    // Room's Rx DAO methods execute synchronously on the subscribing thread, and therefore join
+    // the enclosing transaction.
+    surveyDao.upsert(survey.toLocalDataStoreObject()).blockingAwait()
+    jobDao.deleteBySurveyId(survey.id).blockingAwait()
+    jobDao.insertOrReplaceAll(jobEntities).blockingAwait()
+    taskDao.insertOrReplaceAll(taskEntities).blockingAwait()
+    multipleChoiceDao.insertOrReplaceAll(multipleChoiceEntities).blockingAwait()
+    optionDao.insertOrReplaceAll(optionEntities).blockingAwait()
+    baseMapDao.deleteBySurveyId(survey.id).blockingAwait()
+    baseMapDao.insertOrReplaceAll(baseMapEntities).blockingAwait()
+  }
 
   override fun insertOrUpdateUser(user: User): Completable =
-    userDao.insertOrUpdate(user.toLocalDataStoreObject()).subscribeOn(schedulers.io())
+    writeQueue.enqueue { userDao.upsert(user.toLocalDataStoreObject()).blockingAwait() }
 
   override fun getUser(id: String): Single<User> =
     userDao
@@ -182,21 +172,25 @@ class RoomLocalDataStore @Inject internal constructor() : LocalDataStore {
     surveyDao.getSurveyById(id).map { it.toModelObject() }.subscribeOn(schedulers.io())
 
   override fun deleteSurvey(survey: Survey): Completable =
-    surveyDao.delete(survey.toLocalDataStoreObject()).subscribeOn(schedulers.io())
-
-  @Transaction
-  override fun applyAndEnqueue(mutation: LocationOfInterestMutation): Completable {
-    return try {
-      apply(mutation).andThen(enqueue(mutation))
-    } catch (e: LocalDataStoreException) {
-      FirebaseCrashlytics.getInstance()
-        .log(
-          "Error enqueueing ${mutation.type} mutation for location of interest ${mutation.locationOfInterestId}"
-        )
-      FirebaseCrashlytics.getInstance().recordException(e)
-      Completable.error(e)
-    }
-  }
+    writeQueue.enqueue { surveyDao.delete(survey.toLocalDataStoreObject()).blockingAwait() }
+
+  override fun applyAndEnqueue(mutation: LocationOfInterestMutation): Completable =
+    writeQueue
+      .enqueue {
+        applyBlocking(mutation)
+        locationOfInterestMutationDao.insert(mutation.toLocalDataStoreObject()).blockingAwait()
+      }
+      .notifyLocationsOfInterestWritten(listOf(mutation.locationOfInterestId))
+      .doOnError {
+        if (it is LocalDataStoreException) {
+          FirebaseCrashlytics.getInstance()
+            .log(
+              "Error enqueueing ${mutation.type} mutation for location of interest " +
+                mutation.locationOfInterestId
+            )
+          FirebaseCrashlytics.getInstance().recordException(it)
+        }
+      }
 
   override fun getLocationsOfInterestOnceAndStream(
     survey: Survey
@@ -206,13 +200,114 @@ class RoomLocalDataStore @Inject internal constructor() : LocalDataStore {
       .map { toLocationsOfInterest(survey, it) }
       .subscribeOn(schedulers.io())
 
+  override fun getLatestLocationOfInterestServerTimestamp(survey: Survey): Maybe<Date> =
+    locationOfInterestDao
+      .findLatestServerTimestamp(survey.id)
+      .map { Date(it) }
+      .subscribeOn(schedulers.io())
+
+  override fun getLocationOfInterestChangesOnceAndStream(
+    survey: Survey
+  ): Flowable<LocationOfInterestChanges> =
+    Flowable.defer {
+      // Start buffering writes before loading the snapshot so that none are missed in between.
+      val pendingWrites = UnicastProcessor.create<ImmutableSet<String>>()
+      val writesSubscription = locationOfInterestWrites.subscribe { pendingWrites.onNext(it) }
+      val knownIds = mutableSetOf<String>()
+      locationOfInterestDao
+        .findBySurveyId(survey.id, EntityState.DEFAULT)
+        .map { entities ->
+          val snapshot = toLocationsOfInterest(survey, entities)
+          snapshot.forEach { knownIds.add(it.id) }
+          LocationOfInterestChanges(added = snapshot)
+        }
+        .toFlowable()
+        .concatWith(
+          pendingWrites
+            .concatMapSingle { ids -> loadLocationOfInterestChanges(survey, ids, knownIds) }
+            .filter { !it.isEmpty() }
+        )
+        .doFinally { writesSubscription.dispose() }
+    }
+      .subscribeOn(schedulers.io())
+
+  /**
+   * Reloads the LOIs with the specified ids and classifies them relative to [knownIds], the ids
+   * included in previous emissions, which is updated to reflect the returned changes.
+   */
+  private fun loadLocationOfInterestChanges(
+    survey: Survey,
+    ids: ImmutableSet<String>,
+    knownIds: MutableSet<String>
+  ): Single<LocationOfInterestChanges> =
+    findByIdsInChunks(ids) { locationOfInterestDao.findByIds(it) }
+      .map { entities ->
+        val present =
+          toLocationsOfInterest(
+            survey,
+            entities.filter { it.surveyId == survey.id && it.state == EntityState.DEFAULT }
+          )
+        val presentIds = present.map { it.id }.toSet()
+        val changes =
+          LocationOfInterestChanges(
+            added = present.filterNot { it.id in knownIds }.toImmutableSet(),
+            updated = present.filter { it.id in knownIds }.toImmutableSet(),
+            removedIds = ids.filter { it in knownIds && it !in presentIds }.toImmutableSet()
+          )
+        knownIds.addAll(presentIds)
+        knownIds.removeAll(changes.removedIds)
+        changes
+      }
+
+  /** Notifies change streams once the LOIs with the specified ids have been written. */
+  private fun Completable.notifyLocationsOfInterestWritten(ids: Collection<String>): Completable =
+    doOnComplete { if (ids.isNotEmpty()) locationOfInterestWrites.onNext(ids.toImmutableSet()) }
+
+  override fun getLocationsOfInterestWithinBoundsOnceAndStream(
+    survey: Survey,
+    bounds: Bounds
+  ): Flowable<ImmutableSet<LocationOfInterest>> =
+    locationOfInterestDao
+      .findWithinBoundsOnceAndStream(
+        survey.id,
+        EntityState.DEFAULT,
+        north = bounds.northeast.x,
+        south = bounds.southwest.x,
+        east = bounds.northeast.y,
+        west = bounds.southwest.y
+      )
+      .map { toLocationsOfInterest(survey, it) }
+      .subscribeOn(schedulers.io())
+
+  override fun getLocationOfInterestSummariesWithinBoundsOnceAndStream(
+    survey: Survey,
+    bounds: Bounds
+  ): Flowable<ImmutableSet<LoiMapSummary>> =
+    locationOfInterestDao
+      .findSummariesWithinBoundsOnceAndStream(
+        survey.id,
+        EntityState.DEFAULT,
+        north = bounds.northeast.x,
+        south = bounds.southwest.x,
+        east = bounds.northeast.y,
+        west = bounds.southwest.y
+      )
+      .map { list -> list.flatMap { logErrorsAndSkipKt { it.toModelObject() } }.toImmutableSet() }
+      .subscribeOn(schedulers.io())
+
+  override fun getLocationsOfInterest(
+    survey: Survey,
+    ids: Collection<String>
+  ): Single<ImmutableList<LocationOfInterest>> =
+    findByIdsInChunks(ids) { locationOfInterestDao.findByIds(it) }
+      .map { toLocationsOfInterest(survey, it).toImmutableList() }
+      .subscribeOn(schedulers.io())
+
   private fun toLocationsOfInterest(
     survey: Survey,
     locationOfInterestEntities: List<LocationOfInterestEntity>
   ): ImmutableSet<LocationOfInterest> =
-    locationOfInterestEntities
-      .flatMap { logErrorsAndSkipKt { it.toModelObject(survey) } }
-      .toImmutableSet()
+    locationOfInterestModelCache.toLocationsOfInterest(survey, locationOfInterestEntities)
 
   override fun getLocationOfInterest(
     survey: Survey,
@@ -261,44 +356,47 @@ class RoomLocalDataStore @Inject internal constructor() : LocalDataStore {
         .subscribeOn(schedulers.io())
 
   override fun getMutationsOnceAndStream(
-    survey: Survey
+    survey: Survey,
+    limit: Int
   ): @Cold(terminates = false) Flowable<ImmutableList<Mutation>> {
     // TODO: Show mutations for all surveys, not just current one.
+    val allStates = MutationEntitySyncStatus.values()
     val locationOfInterestMutations =
       locationOfInterestMutationDao
-        .loadAllOnceAndStream()
+        .findBySurveyIdOnceAndStream(survey.id, limit, *allStates)
         .map { list: List<LocationOfInterestMutationEntity> ->
-          list.filter { it.surveyId == survey.id }.map { it.toModelObject() }.toImmutableList()
+          list.map { it.toModelObject() }.toImmutableList()
         }
         .subscribeOn(schedulers.io())
     val submissionMutations =
       submissionMutationDao
-        .loadAllOnceAndStream()
+        .findBySurveyIdOnceAndStream(survey.id, limit, *allStates)
         .map { list: List<SubmissionMutationEntity> ->
-          list
-            .filter { it.surveyId == survey.id }
-            .map { it.toModelObject(survey) }
-            .toImmutableList()
+          list.map { it.toModelObject(survey) }.toImmutableList()
         }
         .subscribeOn(schedulers.io())
-    return Flowable.combineLatest(
-      locationOfInterestMutations,
-      submissionMutations,
-      this::combineAndSortMutations
-    )
+    return Flowable.combineLatest(locationOfInterestMutations, submissionMutations) {
+      loiMutationList,
+      submissionMutationList ->
+      combineAndSortMutations(loiMutationList, submissionMutationList, limit)
+    }
   }
 
+  /**
+   * Merges two lists of mutations, each already sorted by descending client timestamp, returning
+   * at most [limit] of the most recent mutations.
+   */
   private fun combineAndSortMutations(
     locationOfInterestMutations: ImmutableList<LocationOfInterestMutation>,
-    submissionMutations: ImmutableList<SubmissionMutation>
+    submissionMutations: ImmutableList<SubmissionMutation>,
+    limit: Int
   ): ImmutableList<Mutation> =
-    ImmutableList.sortedCopyOf(
-      byDescendingClientTimestamp(),
-      ImmutableList.builder<Mutation>()
-        .addAll(locationOfInterestMutations)
-        .addAll(submissionMutations)
-        .build()
-    )
+    Iterables.mergeSorted<Mutation>(
+        listOf(locationOfInterestMutations, submissionMutations),
+        byDescendingClientTimestamp()
+      )
+      .take(limit)
+      .toImmutableList()
 
   override fun getPendingMutations(locationOfInterestId: String): Single<ImmutableList<Mutation>> =
     locationOfInterestMutationDao
@@ -309,31 +407,53 @@ class RoomLocalDataStore @Inject internal constructor() : LocalDataStore {
       .mergeWith(
         submissionMutationDao
           .findByLocationOfInterestId(locationOfInterestId, MutationEntitySyncStatus.PENDING)
-          .flattenAsObservable { it }
-          .flatMap { ome ->
-            getSurveyById(ome.surveyId)
-              .toSingle()
-              .map { ome.toModelObject(it) }
-              .toObservable()
-              .doOnError { Timber.e(it, "Submission mutation skipped") }
-              .onErrorResumeNext(Observable.empty())
-          }
-          .cast(Mutation::class.java)
+          .flatMapObservable { toSubmissionMutations(it) }
       )
       .toList()
       .map { it.toImmutableList() }
       .subscribeOn(schedulers.io())
 
-  @Transaction
+  override val allPendingMutations: Single<ImmutableList<Mutation>>
+    get() =
+      locationOfInterestMutationDao
+        .findByState(MutationEntitySyncStatus.PENDING)
+        .flattenAsObservable { it }
+        .map { it.toModelObject() }
+        .cast(Mutation::class.java)
+        .concatWith(
+          submissionMutationDao
+            .findByState(MutationEntitySyncStatus.PENDING)
+            .flatMapObservable { toSubmissionMutations(it) }
+        )
+        .toList()
+        .map { it.toImmutableList() }
+        .subscribeOn(schedulers.io())
+
+  /**
+   * Converts the specified submission mutations to model objects, loading each of their surveys
+   * once rather than once per mutation. Mutations whose survey can't be loaded are logged and
+   * skipped.
+   */
+  private fun toSubmissionMutations(
+    entities: List<SubmissionMutationEntity>
+  ): Observable<Mutation> =
+    Observable.fromIterable(entities.groupBy { it.surveyId }.entries).concatMap {
+      (surveyId, surveyEntities) ->
+      getSurveyById(surveyId)
+        .toSingle()
+        .flattenAsObservable { survey -> surveyEntities.map { it.toModelObject(survey) } }
+        .cast(Mutation::class.java)
+        .doOnError { Timber.e(it, "Submission mutations for survey $surveyId skipped") }
+        .onErrorResumeNext(Observable.empty())
+    }
+
   override fun updateMutations(mutations: ImmutableList<Mutation>): Completable =
-    locationOfInterestMutationDao
-      .updateAll(toLocationOfInterestMutationEntities(mutations))
-      .andThen(
-        submissionMutationDao
-          .updateAll(toSubmissionMutationEntities(mutations))
-          .subscribeOn(schedulers.io())
-      )
-      .subscribeOn(schedulers.io())
+    writeQueue.enqueue {
+      locationOfInterestMutationDao
+        .updateAll(toLocationOfInterestMutationEntities(mutations))
+        .blockingAwait()
+      submissionMutationDao.updateAll(toSubmissionMutationEntities(mutations)).blockingAwait()
+    }
 
   private fun toSubmissionMutationEntities(
     mutations: ImmutableList<Mutation>
@@ -347,24 +467,32 @@ class RoomLocalDataStore @Inject internal constructor() : LocalDataStore {
       .map { it.toLocalDataStoreObject() }
       .toImmutableList()
 
-  override fun finalizePendingMutations(mutations: ImmutableList<Mutation>): Completable =
-    finalizeDeletions(mutations).andThen(markComplete(mutations))
+  override fun finalizePendingMutations(mutations: ImmutableList<Mutation>): Completable {
+    val deletedLocationOfInterestIds =
+      LocationOfInterestMutation.filter(mutations)
+        .filter { it.type === DELETE }
+        .map { it.locationOfInterestId }
+    return writeQueue
+      .enqueue {
+        finalizeDeletionsBlocking(mutations)
+        markCompleteBlocking(mutations)
+      }
+      .notifyLocationsOfInterestWritten(deletedLocationOfInterestIds)
+  }
 
-  private fun finalizeDeletions(mutations: ImmutableList<Mutation>): Completable =
-    Observable.fromIterable(mutations)
+  private fun finalizeDeletionsBlocking(mutations: ImmutableList<Mutation>) {
+    mutations
       .filter { it.type === DELETE }
-      .flatMapCompletable { mutation ->
+      .forEach { mutation ->
         when (mutation) {
-          is SubmissionMutation -> {
-            deleteSubmission(mutation.submissionId)
-          }
-          is LocationOfInterestMutation -> {
-            deleteLocationOfInterest(mutation.locationOfInterestId)
-          }
+          is SubmissionMutation -> deleteSubmissionBlocking(mutation.submissionId)
+          is LocationOfInterestMutation ->
+            deleteLocationOfInterestBlocking(mutation.locationOfInterestId)
         }
       }
+  }
 
-  private fun markComplete(mutations: ImmutableList<Mutation>): Completable {
+  private fun markCompleteBlocking(mutations: ImmutableList<Mutation>) {
     val locationOfInterestMutations =
       LocationOfInterestMutation.filter(mutations)
         .map { it.copy(syncStatus = SyncStatus.COMPLETED) }
@@ -374,45 +502,138 @@ class RoomLocalDataStore @Inject internal constructor() : LocalDataStore {
         .map { it.copy(syncStatus = SyncStatus.COMPLETED) }
         .map { it.toLocalDataStoreObject() }
         .toImmutableList()
-    return locationOfInterestMutationDao
-      .updateAll(locationOfInterestMutations)
-      .andThen(submissionMutationDao.updateAll(submissionMutations).subscribeOn(schedulers.io()))
-      .subscribeOn(schedulers.io())
+    locationOfInterestMutationDao.updateAll(locationOfInterestMutations).blockingAwait()
+    submissionMutationDao.updateAll(submissionMutations).blockingAwait()
   }
 
-  @Transaction
-  override fun mergeLocationOfInterest(locationOfInterest: LocationOfInterest): Completable =
-    // TODO(#706): Apply pending local mutations before saving.
-    locationOfInterestDao
-      .insertOrUpdate(locationOfInterest.toLocalDataStoreObject())
+  override fun getMutationCountOnceAndStream(
+    survey: Survey,
+    syncStatus: SyncStatus
+  ): @Cold(terminates = false) Flowable<Int> {
+    val state = MutationEntitySyncStatus.fromMutationSyncStatus(syncStatus)
+    return Flowable.combineLatest(
+        locationOfInterestMutationDao.countBySurveyIdOnceAndStream(survey.id, state),
+        submissionMutationDao.countBySurveyIdOnceAndStream(survey.id, state)
+      ) { loiMutationCount, submissionMutationCount ->
+        loiMutationCount + submissionMutationCount
+      }
+      .distinctUntilChanged()
       .subscribeOn(schedulers.io())
+  }
 
-  @Transaction
-  override fun mergeSubmission(submission: Submission): Completable {
-    val submissionEntity = submission.toLocalDataStoreObject()
-    return submissionMutationDao
-      .findBySubmissionId(
-        submission.id,
-        MutationEntitySyncStatus.PENDING,
-        MutationEntitySyncStatus.IN_PROGRESS
-      )
-      .flatMapCompletable { mergeSubmission(submission.job, submissionEntity, it) }
+  override fun deleteCompletedMutations(cutoffTimestamp: Long, batchSize: Int): Single<Int> =
+    Single.fromCallable {
+        deleteInBatches(batchSize) {
+          locationOfInterestMutationDao
+            .deleteByStateBefore(MutationEntitySyncStatus.COMPLETED, cutoffTimestamp, batchSize)
+            .blockingGet()
+        } +
+          deleteInBatches(batchSize) {
+            submissionMutationDao
+              .deleteByStateBefore(MutationEntitySyncStatus.COMPLETED, cutoffTimestamp, batchSize)
+              .blockingGet()
+          }
+      }
+      .flatMap { removed ->
+        // Return the freed pages to the file system without rewriting the whole db, as a full
+        // VACUUM would.
+        if (removed == 0) Single.just(removed)
+        else writeQueue.enqueue { database.incrementalVacuum() }.toSingleDefault(removed)
+      }
       .subscribeOn(schedulers.io())
+
+  /**
+   * Repeatedly runs [deleteBatch] until it removes fewer than [batchSize] rows. Each batch is
+   * queued as a separate write, so that other writes are committed between batches rather than
+   * waiting for all of them.
+   */
+  private fun deleteInBatches(batchSize: Int, deleteBatch: () -> Int): Int {
+    var total = 0
+    do {
+      var removed = 0
+      writeQueue.enqueue { removed = deleteBatch() }.blockingAwait()
+      total += removed
+    } while (removed >= batchSize)
+    return total
   }
 
-  private fun mergeSubmission(
-    job: Job,
-    submission: SubmissionEntity,
-    mutations: List<SubmissionMutationEntity>
-  ): Completable {
-    if (mutations.isEmpty()) {
-      return submissionDao.insertOrUpdate(submission)
+  override fun mergeLocationOfInterest(locationOfInterest: LocationOfInterest): Completable =
+    writeQueue
+      .enqueue {
+        // TODO(#706): Apply pending local mutations before saving.
+        locationOfInterestDao.upsert(locationOfInterest.toLocalDataStoreObject()).blockingAwait()
+      }
+      .notifyLocationsOfInterestWritten(listOf(locationOfInterest.id))
+
+  override fun mergeLocationsOfInterest(
+    locationsOfInterest: ImmutableList<LocationOfInterest>,
+    deletedIds: ImmutableSet<String>
+  ): Completable =
+    writeQueue
+      .enqueue {
+        // TODO(#706): Apply pending local mutations before saving.
+        locationOfInterestDao
+          .upsertAll(locationsOfInterest.map { it.toLocalDataStoreObject() })
+          .blockingAwait()
+        deleteByIdsInChunks(deletedIds) { locationOfInterestDao.deleteByIds(it) }.blockingAwait()
+      }
+      .notifyLocationsOfInterestWritten(locationsOfInterest.map { it.id } + deletedIds)
+
+  override fun replaceLocationsOfInterest(
+    survey: Survey,
+    locationsOfInterest: ImmutableList<LocationOfInterest>
+  ): Completable =
+    Completable.defer {
+      val remoteIds = locationsOfInterest.map { it.id }.toSet()
+      val deletedIds = mutableListOf<String>()
+      writeQueue
+        .enqueue {
+          locationOfInterestDao
+            .findRemoteIdsBySurveyId(survey.id)
+            .blockingGet()
+            .filterNotTo(deletedIds) { it in remoteIds }
+          // TODO(#706): Apply pending local mutations before saving.
+          locationOfInterestDao
+            .upsertAll(locationsOfInterest.map { it.toLocalDataStoreObject() })
+            .blockingAwait()
+          deleteByIdsInChunks(deletedIds) { locationOfInterestDao.deleteByIds(it) }.blockingAwait()
+        }
+        .doOnComplete {
+          Timber.d("Deleted ${deletedIds.size} LOIs no longer in the remote db")
+          locationOfInterestWrites.onNext((remoteIds + deletedIds).toImmutableSet())
+        }
     }
-    val lastMutation = mutations[mutations.size - 1]
-    Preconditions.checkNotNull(lastMutation, "Could not get last mutation")
-    return getUser(lastMutation.userId)
-      .map { user -> applyMutations(job, submission, mutations, user) }
-      .flatMapCompletable { submissionDao.insertOrUpdate(it) }
+
+  override fun mergeSubmission(submission: Submission): Completable =
+    writeQueue.enqueue { mergeSubmissionBlocking(submission) }
+
+  override fun mergeSubmissions(submissions: ImmutableList<Submission>): Completable =
+    writeQueue.enqueue { submissions.forEach { mergeSubmissionBlocking(it) } }
+
+  /**
+   * Applies pending local mutations to the specified submission and writes the result to the local
+   * db. All reads and writes are made synchronously on the calling thread, so that they take part
+   * in the transaction of the enclosing [LocalWriteQueue] write rather than waiting on it from
+   * another thread.
+   */
+  private fun mergeSubmissionBlocking(submission: Submission) {
+    val submissionEntity = submission.toLocalDataStoreObject()
+    val mutations =
+      submissionMutationDao
+        .findBySubmissionId(
+          submission.id,
+          MutationEntitySyncStatus.PENDING,
+          MutationEntitySyncStatus.IN_PROGRESS
+        )
+        .blockingGet()
+    val mergedEntity =
+      if (mutations.isEmpty()) submissionEntity
+      else {
+        // Fails with NoSuchElementException if the user isn't found.
+        val user = userDao.findById(mutations.last().userId).toSingle().blockingGet()
+        applyMutations(submission.job, submissionEntity, mutations, user.toModelObject())
+      }
+    submissionDao.upsert(mergedEntity).blockingAwait()
   }
 
   private fun applyMutations(
@@ -443,66 +664,64 @@ class RoomLocalDataStore @Inject internal constructor() : LocalDataStore {
       // Merge changes to responses.
       deltas.addAll(ResponseDeltasConverter.fromString(job, mutation.responseDeltas))
     }
-    return responseMap.copyWithDeltas(deltas.build())
+    return responseMap.copyWithDeltas(MutationCompactor.mergeDeltas(deltas.build()))
   }
 
   @Throws(LocalDataStoreException::class)
-  private fun apply(mutation: LocationOfInterestMutation): Completable {
-    return when (mutation.type) {
+  private fun applyBlocking(mutation: LocationOfInterestMutation) {
+    when (mutation.type) {
       CREATE,
-      UPDATE ->
-        getUser(mutation.userId).flatMapCompletable { user ->
-          insertOrUpdateLocationOfInterest(mutation, user)
-        }
-      DELETE ->
+      UPDATE -> {
+        val user = getUserBlocking(mutation.userId)
+        // Mutations don't carry captions, so keep the one already stored for this LOI, if any.
+        val caption =
+          locationOfInterestDao.findById(mutation.locationOfInterestId).blockingGet()?.caption
         locationOfInterestDao
-          .findById(mutation.locationOfInterestId)
-          .flatMapCompletable { entity -> markLocationOfInterestForDeletion(entity, mutation) }
-          .subscribeOn(schedulers.io())
+          .upsert(mutation.toLocalDataStoreObject(AuditInfo(user)).copy(caption = caption))
+          .blockingAwait()
+      }
+      DELETE -> {
+        val entity =
+          locationOfInterestDao.findById(mutation.locationOfInterestId).blockingGet() ?: return
+        Timber.d("Marking location of interest as deleted : $mutation")
+        locationOfInterestDao.update(entity.apply { state = EntityState.DELETED }).blockingGet()
+      }
       UNKNOWN -> throw LocalDataStoreException("Unknown Mutation.Type")
     }
   }
 
-  private fun markLocationOfInterestForDeletion(
-    entity: LocationOfInterestEntity,
-    mutation: LocationOfInterestMutation
-  ): Completable =
-    locationOfInterestDao
-      .update(entity.apply { state = EntityState.DELETED })
-      .doOnSubscribe { Timber.d("Marking location of interest as deleted : $mutation") }
-      .ignoreElement()
-
-  private fun insertOrUpdateLocationOfInterest(
-    mutation: LocationOfInterestMutation,
-    user: User
-  ): Completable =
-    locationOfInterestDao
-      .insertOrUpdate(mutation.toLocalDataStoreObject(AuditInfo(user)))
-      .subscribeOn(schedulers.io())
+  /** Returns the user with the specified id, failing with [NoSuchElementException] if not found. */
+  private fun getUserBlocking(id: String): User =
+    userDao.findById(id).toSingle().blockingGet().toModelObject()
 
   override fun deleteLocationOfInterest(locationOfInterestId: String): Completable =
-    locationOfInterestDao
-      .findById(locationOfInterestId)
-      .toSingle()
-      .doOnSubscribe { Timber.d("Deleting local location of interest : $locationOfInterestId") }
-      .flatMapCompletable { locationOfInterestDao.delete(it) }
-      .subscribeOn(schedulers.io())
-
-  private fun enqueue(mutation: LocationOfInterestMutation): Completable =
-    locationOfInterestMutationDao
-      .insert(mutation.toLocalDataStoreObject())
-      .subscribeOn(schedulers.io())
+    writeQueue
+      .enqueue { deleteLocationOfInterestBlocking(locationOfInterestId) }
+      .notifyLocationsOfInterestWritten(listOf(locationOfInterestId))
+
+  /** Deletes the specified LOI, failing with [NoSuchElementException] if not found. */
+  private fun deleteLocationOfInterestBlocking(locationOfInterestId: String) {
+    Timber.d("Deleting local location of interest : $locationOfInterestId")
+    val entity = locationOfInterestDao.findById(locationOfInterestId).toSingle().blockingGet()
+    locationOfInterestDao.delete(entity).blockingAwait()
+  }
 
-  @Transaction
   override fun applyAndEnqueue(mutation: SubmissionMutation): Completable =
-    try {
-      apply(mutation).andThen(enqueue(mutation))
-    } catch (e: LocalDataStoreException) {
-      FirebaseCrashlytics.getInstance()
-        .log("Error enqueueing ${mutation.type} mutation for submission ${mutation.submissionId}")
-      FirebaseCrashlytics.getInstance().recordException(e)
-      Completable.error(e)
-    }
+    writeQueue
+      .enqueue {
+        applyBlocking(mutation)
+        Timber.v("Enqueuing mutation: $mutation")
+        submissionMutationDao.insert(mutation.toLocalDataStoreObject()).blockingAwait()
+      }
+      .doOnError {
+        if (it is LocalDataStoreException) {
+          FirebaseCrashlytics.getInstance()
+            .log(
+              "Error enqueueing ${mutation.type} mutation for submission ${mutation.submissionId}"
+            )
+          FirebaseCrashlytics.getInstance().recordException(it)
+        }
+      }
 
   /**
    * Applies mutation to submission in database or creates a new one.
@@ -510,74 +729,63 @@ class RoomLocalDataStore @Inject internal constructor() : LocalDataStore {
    * @return A Completable that emits an error if mutation type is "UPDATE" but entity does not
    * exist, or if type is "CREATE" and entity already exists.
    */
+  override fun apply(mutation: SubmissionMutation): Completable =
+    writeQueue.enqueue { applyBlocking(mutation) }
+
   @Throws(LocalDataStoreException::class)
-  override fun apply(mutation: SubmissionMutation): Completable {
-    return when (mutation.type) {
-      CREATE ->
-        getUser(mutation.userId).flatMapCompletable { user -> createSubmission(mutation, user) }
-      UPDATE ->
-        getUser(mutation.userId).flatMapCompletable { user -> updateSubmission(mutation, user) }
-      DELETE ->
-        submissionDao.findById(mutation.submissionId).flatMapCompletable { entity ->
-          markSubmissionForDeletion(entity, mutation)
-        }
+  private fun applyBlocking(mutation: SubmissionMutation) {
+    when (mutation.type) {
+      CREATE -> createSubmissionBlocking(mutation, getUserBlocking(mutation.userId))
+      UPDATE -> updateSubmissionBlocking(mutation, getUserBlocking(mutation.userId))
+      DELETE -> {
+        val entity = submissionDao.findById(mutation.submissionId).blockingGet() ?: return
+        Timber.d("Marking submission as deleted : $mutation")
+        submissionDao.update(entity.apply { state = EntityState.DELETED }).blockingGet()
+      }
       UNKNOWN -> throw LocalDataStoreException("Unknown Mutation.Type")
     }
   }
 
-  private fun createSubmission(mutation: SubmissionMutation, user: User): Completable =
-    submissionDao
-      .insert(mutation.toLocalDataStoreObject(AuditInfo(user)))
-      .doOnSubscribe { Timber.v("Inserting submission: $mutation") }
-      .subscribeOn(schedulers.io())
+  private fun createSubmissionBlocking(mutation: SubmissionMutation, user: User) {
+    Timber.v("Inserting submission: $mutation")
+    submissionDao.insert(mutation.toLocalDataStoreObject(AuditInfo(user))).blockingAwait()
+  }
 
-  private fun updateSubmission(mutation: SubmissionMutation, user: User): Completable {
+  private fun updateSubmissionBlocking(mutation: SubmissionMutation, user: User) {
+    Timber.v("Applying mutation: $mutation")
+    val submission =
+      submissionDao.findById(mutation.submissionId).blockingGet() ?: fallbackSubmission(mutation)
     val mutationEntity = mutation.toLocalDataStoreObject()
-    return submissionDao
-      .findById(mutation.submissionId)
-      .doOnSubscribe { Timber.v("Applying mutation: $mutation") }
-      .switchIfEmpty(fallbackSubmission(mutation))
-      .map { applyMutations(mutation.job, it, ImmutableList.of(mutationEntity), user) }
-      .flatMapCompletable { submissionDao.insertOrUpdate(it).subscribeOn(schedulers.io()) }
-      .subscribeOn(schedulers.io())
+    submissionDao
+      .upsert(applyMutations(mutation.job, submission, ImmutableList.of(mutationEntity), user))
+      .blockingAwait()
   }
 
   /**
-   * Returns a source which creates an submission based on the provided mutation. Used in rare cases
-   * when the submission is no longer in the local db, but the user is updating rather than creating
-   * a new submission. In these cases creation metadata is unknown, so empty audit info is used.
+   * Returns a submission created from the provided mutation. Used in rare cases when the submission
+   * is no longer in the local db, but the user is updating rather than creating a new submission.
+   * In these cases creation metadata is unknown, so empty audit info is used.
    */
-  private fun fallbackSubmission(mutation: SubmissionMutation): SingleSource<SubmissionEntity> =
-    SingleSource {
-      it.onSuccess(mutation.toLocalDataStoreObject(AuditInfo(User("", "", ""))))
-    }
-
-  private fun markSubmissionForDeletion(
-    entity: SubmissionEntity,
-    mutation: SubmissionMutation
-  ): Completable =
-    submissionDao
-      .update(entity.apply { state = EntityState.DELETED })
-      .doOnSubscribe { Timber.d("Marking submission as deleted : $mutation") }
-      .ignoreElement()
-      .subscribeOn(schedulers.io())
+  private fun fallbackSubmission(mutation: SubmissionMutation): SubmissionEntity =
+    mutation.toLocalDataStoreObject(AuditInfo(User("", "", "")))
 
   override fun deleteSubmission(submissionId: String): Completable =
-    submissionDao
-      .findById(submissionId)
-      .toSingle()
-      .doOnSubscribe { Timber.d("Deleting local submission : $submissionId") }
-      .flatMapCompletable { submissionDao.delete(it) }
-      .subscribeOn(schedulers.io())
+    writeQueue.enqueue { deleteSubmissionBlocking(submissionId) }
 
-  private fun enqueue(mutation: SubmissionMutation): Completable =
-    submissionMutationDao
-      .insert(mutation.toLocalDataStoreObject())
-      .doOnSubscribe { Timber.v("Enqueuing mutation: $mutation") }
-      .subscribeOn(schedulers.io())
+  /** Deletes the specified submission, failing with [NoSuchElementException] if not found. */
+  private fun deleteSubmissionBlocking(submissionId: String) {
+    Timber.d("Deleting local submission : $submissionId")
+    val entity = submissionDao.findById(submissionId).toSingle().blockingGet()
+    submissionDao.delete(entity).blockingAwait()
+  }
 
   override fun insertOrUpdateTileSet(tileSet: TileSet): Completable =
-    tileSetDao.insertOrUpdate(tileSet.toLocalDataStoreObject()).subscribeOn(schedulers.io())
+    writeQueue.enqueue { tileSetDao.upsert(tileSet.toLocalDataStoreObject()).blockingAwait() }
+
+  override fun insertOrUpdateTileSets(tileSets: ImmutableList<TileSet>): Completable =
+    writeQueue.enqueue {
+      tileSetDao.upsertAll(tileSets.map { it.toLocalDataStoreObject() }).blockingAwait()
+    }
 
   override fun getTileSet(tileUrl: String): Maybe<TileSet> =
     tileSetDao.findByUrl(tileUrl).map { it.toModelObject() }.subscribeOn(schedulers.io())
@@ -590,7 +798,7 @@ class RoomLocalDataStore @Inject internal constructor() : LocalDataStore {
         .subscribeOn(schedulers.io())
 
   override fun insertOrUpdateOfflineArea(area: OfflineArea): Completable =
-    offlineAreaDao.insertOrUpdate(area.toOfflineAreaEntity()).subscribeOn(schedulers.io())
+    writeQueue.enqueue { offlineAreaDao.upsert(area.toOfflineAreaEntity()).blockingAwait() }
 
   override val offlineAreasOnceAndStream: Flowable<ImmutableList<OfflineArea>>
     get() =
@@ -605,12 +813,11 @@ class RoomLocalDataStore @Inject internal constructor() : LocalDataStore {
     offlineAreaDao.findById(id).map { it.toModelObject() }.toSingle().subscribeOn(schedulers.io())
 
   override fun deleteOfflineArea(offlineAreaId: String): Completable =
-    offlineAreaDao
-      .findById(offlineAreaId)
-      .toSingle()
-      .doOnSubscribe { Timber.d("Deleting offline area: $offlineAreaId") }
-      .flatMapCompletable { offlineAreaDao.delete(it) }
-      .subscribeOn(schedulers.io())
+    writeQueue.enqueue {
+      Timber.d("Deleting offline area: $offlineAreaId")
+      val entity = offlineAreaDao.findById(offlineAreaId).toSingle().blockingGet()
+      offlineAreaDao.delete(entity).blockingAwait()
+    }
 
   override fun updateTileSetOfflineAreaReferenceCountByUrl(
     newCount: Int,
@@ -620,8 +827,8 @@ class RoomLocalDataStore @Inject internal constructor() : LocalDataStore {
   override fun deleteTileSetByUrl(tileSet: TileSet): Completable =
     if (tileSet.offlineAreaReferenceCount < 1) {
       Completable.fromAction { fileUtil.deleteFile(tileSet.path) }
-        .andThen(Completable.fromMaybe(tileSetDao.deleteByUrl(tileSet.url)))
         .subscribeOn(schedulers.io())
+        .andThen(writeQueue.enqueue { tileSetDao.deleteByUrl(tileSet.url).blockingGet() })
     } else {
       Completable.complete().subscribeOn(schedulers.io())
     }
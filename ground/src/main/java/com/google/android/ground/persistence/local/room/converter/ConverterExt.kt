@@ -39,15 +39,16 @@ import com.google.android.ground.persistence.local.room.models.*
 import com.google.android.ground.persistence.local.room.relations.JobEntityAndRelations
 import com.google.android.ground.persistence.local.room.relations.SurveyEntityAndRelations
 import com.google.android.ground.persistence.local.room.relations.TaskEntityAndRelations
+import com.google.android.ground.ui.map.Bounds
+import com.google.android.ground.ui.map.LoiMapSummary
 import com.google.android.ground.util.toImmutableList
 import com.google.common.collect.ImmutableList
 import com.google.common.collect.ImmutableMap
-import com.google.common.reflect.TypeToken
-import com.google.gson.Gson
 import java.net.MalformedURLException
 import java.net.URL
 import java.util.*
 import java8.util.Optional
+import kotlin.math.roundToInt
 import kotlinx.collections.immutable.toPersistentList
 import org.json.JSONObject
 import timber.log.Timber
@@ -89,6 +90,8 @@ fun GeometryEntity.toModelObject() =
   when (geometryType) {
     GeometryType.POINT.name -> this.toPointModel()
     GeometryType.POLYGON.name -> this.toPolygonModel()
+    GeometryType.LINE_STRING.name -> this.toLineStringModel()
+    GeometryType.MULTI_POLYGON.name -> this.toMultiPolygonModel()
     else -> null
   }
 
@@ -96,78 +99,118 @@ fun Geometry.toLocalDataStoreObject() =
   when (this) {
     is Point -> this.toLocalDataStoreObject()
     is Polygon -> this.toLocalDataStoreObject()
+    is LineString -> this.toLocalDataStoreObject()
+    is MultiPolygon -> this.toLocalDataStoreObject()
     else -> null
   }
 
+/** Returns the bounding box of this geometry, or null if it has no vertices. */
+fun Geometry.toBoundsEntity(): BoundsEntity? {
+  val coordinates = vertices.map { it.coordinate }
+  if (coordinates.isEmpty()) {
+    return null
+  }
+  return BoundsEntity(
+    north = coordinates.maxOf { it.x },
+    south = coordinates.minOf { it.x },
+    east = coordinates.maxOf { it.y },
+    west = coordinates.minOf { it.y }
+  )
+}
+
+/** Maximum number of vertices kept in each line string or ring of geometries shown on the map. */
+private const val MAX_MAP_VERTICES_PER_RING = 100
+
+/**
+ * Returns a copy of this geometry for rendering on the map, keeping at most
+ * [MAX_MAP_VERTICES_PER_RING] evenly spaced vertices of each line string or ring. The first and
+ * last vertices are always kept, so that rings remain closed.
+ */
+fun Geometry.toMapGeometryEntity(): GeometryEntity? = simplify().toLocalDataStoreObject()
+
+private fun Geometry.simplify(): Geometry =
+  when (this) {
+    is Point -> this
+    is LineString -> LineString(coordinates.decimate())
+    is LinearRing -> simplify()
+    is Polygon -> simplify()
+    is MultiPolygon -> MultiPolygon(polygons.map { it.simplify() })
+  }
+
+private fun LinearRing.simplify() = LinearRing(coordinates.decimate())
+
+private fun Polygon.simplify() = Polygon(shell.simplify(), holes.map { it.simplify() })
+
+private fun ImmutableList<Coordinate>.decimate(): ImmutableList<Coordinate> {
+  if (size <= MAX_MAP_VERTICES_PER_RING) return this
+  val step = (size - 1).toDouble() / (MAX_MAP_VERTICES_PER_RING - 1)
+  return (0 until MAX_MAP_VERTICES_PER_RING)
+    .map { this[(it * step).roundToInt()] }
+    .toImmutableList()
+}
+
 private fun GeometryEntity.toPointModel(): Geometry? = this.location?.toPoint()
 
 private fun GeometryEntity.toPolygonModel(): Geometry {
-  val shell = LinearRing(parseVertices(this.vertices).map { it.coordinate })
-  val holes = parseHoles(this.holes).map { LinearRing(it.map(Point::coordinate)) }
+  val shell = LinearRing(CoordinateRingsConverter.fromBytes(this.vertices).firstOrNull().orEmpty())
+  val holes = CoordinateRingsConverter.fromBytes(this.holes).map { LinearRing(it) }
 
   return Polygon(shell, holes)
 }
 
+private fun GeometryEntity.toLineStringModel(): Geometry =
+  LineString(
+    ImmutableList.copyOf(CoordinateRingsConverter.fromBytes(this.vertices).firstOrNull().orEmpty())
+  )
+
+private fun GeometryEntity.toMultiPolygonModel(): Geometry =
+  MultiPolygon(
+    CoordinateRingsConverter.polygonsFromBytes(this.polygons).map { rings ->
+      Polygon(LinearRing(rings.first()), rings.drop(1).map { LinearRing(it) })
+    }
+  )
+
 private fun Point.toLocalDataStoreObject(): GeometryEntity =
   GeometryEntity(GeometryType.POINT.name, Coordinates.fromPoint(this))
 
 private fun Polygon.toLocalDataStoreObject(): GeometryEntity {
   val shell = formatVertices(this.vertices)
-  val holes = formatHoles(this.holes.map { it.vertices })
+  val holes = CoordinateRingsConverter.toBytes(this.holes.map { it.coordinates })
 
   return GeometryEntity(GeometryType.POLYGON.name, null, shell, holes)
 }
 
-private fun formatHoles(holes: List<ImmutableList<Point>>): String? {
-  if (holes.isEmpty()) {
-    return null
-  }
+private fun LineString.toLocalDataStoreObject(): GeometryEntity =
+  GeometryEntity(
+    GeometryType.LINE_STRING.name,
+    vertices = CoordinateRingsConverter.toBytes(listOf(this.coordinates))
+  )
 
-  val gson = Gson()
-  val holeArray =
-    holes.map { hole -> hole.map { ImmutableList.of(it.coordinate.x, it.coordinate.y) } }
+private fun MultiPolygon.toLocalDataStoreObject(): GeometryEntity {
+  val polygons =
+    this.polygons.map { polygon ->
+      listOf(polygon.shell.coordinates) + polygon.holes.map { it.coordinates }
+    }
 
-  return gson.toJson(holeArray)
+  return GeometryEntity(
+    GeometryType.MULTI_POLYGON.name,
+    polygons = CoordinateRingsConverter.polygonsToBytes(polygons)
+  )
 }
 
-fun formatVertices(vertices: ImmutableList<Point>): String? {
+fun formatVertices(vertices: ImmutableList<Point>): ByteArray? {
   if (vertices.isEmpty()) {
     return null
   }
-  val gson = Gson()
-  val verticesArray =
-    vertices.map { (coordinate): Point -> ImmutableList.of(coordinate.x, coordinate.y) }.toList()
-  return gson.toJson(verticesArray)
-}
-
-private fun parseHoles(holes: String?): List<ImmutableList<Point>> {
-  if (holes.isNullOrEmpty()) {
-    return ImmutableList.of()
-  }
-
-  val gson = Gson()
-  val holesArray =
-    gson.fromJson<List<List<List<Double>>>>(
-      holes,
-      object : TypeToken<List<List<List<Double?>?>?>?>() {}.type
-    )
-
-  return holesArray.map {
-    it.map { vertex -> Point(Coordinate(vertex[0], vertex[1])) }.toImmutableList()
-  }
+  return CoordinateRingsConverter.toBytes(listOf(vertices.map { it.coordinate }))
 }
 
-fun parseVertices(vertices: String?): ImmutableList<Point> {
-  if (vertices.isNullOrEmpty()) {
-    return ImmutableList.of()
-  }
-  val gson = Gson()
-  val verticesArray =
-    gson.fromJson<List<List<Double>>>(vertices, object : TypeToken<List<List<Double?>?>?>() {}.type)
-  return verticesArray
-    .map { vertex: List<Double> -> Point(Coordinate(vertex[0], vertex[1])) }
+fun parseVertices(vertices: ByteArray?): ImmutableList<Point> =
+  CoordinateRingsConverter.fromBytes(vertices)
+    .firstOrNull()
+    .orEmpty()
+    .map { Point(it) }
     .toImmutableList()
-}
 
 fun Job.toLocalDataStoreObject(surveyId: String) =
   JobEntity(id = id, surveyId = surveyId, name = name)
@@ -188,10 +231,13 @@ fun LocationOfInterest.toLocalDataStoreObject() =
     id = id,
     surveyId = surveyId,
     jobId = job.id,
+    caption = caption,
     state = EntityState.DEFAULT,
     created = created.toLocalDataStoreObject(),
     lastModified = lastModified.toLocalDataStoreObject(),
-    geometry = geometry.toLocalDataStoreObject()
+    geometry = geometry.toLocalDataStoreObject(),
+    mapGeometry = geometry.toMapGeometryEntity(),
+    bounds = geometry.toBoundsEntity()
   )
 
 fun LocationOfInterestEntity.toModelObject(survey: Survey): LocationOfInterest {
@@ -203,6 +249,7 @@ fun LocationOfInterestEntity.toModelObject(survey: Survey): LocationOfInterest {
     return LocationOfInterest(
       id = id,
       surveyId = surveyId,
+      caption = caption,
       created = created.toModelObject(),
       lastModified = lastModified.toModelObject(),
       geometry = geometry,
@@ -216,6 +263,20 @@ fun LocationOfInterestEntity.toModelObject(survey: Survey): LocationOfInterest {
   }
 }
 
+fun LoiMapSummaryEntity.toModelObject(): LoiMapSummary {
+  val geometry =
+    mapGeometry?.toModelObject()
+      ?: throw LocalDataConsistencyException("No geometry in location of interest $id")
+  return LoiMapSummary(
+    id = id,
+    jobId = jobId,
+    caption = caption,
+    bounds = bounds?.let { Bounds(Coordinate(it.south, it.west), Coordinate(it.north, it.east)) },
+    geometry = geometry,
+    lastModified = lastModified.toModelObject()
+  )
+}
+
 fun LocationOfInterestMutation.toLocalDataStoreObject(
   created: AuditInfo
 ): LocationOfInterestEntity {
@@ -225,10 +286,13 @@ fun LocationOfInterestMutation.toLocalDataStoreObject(
     id = locationOfInterestId,
     surveyId = surveyId,
     jobId = jobId,
+    caption = null,
     state = EntityState.DEFAULT,
     created = authInfo,
     lastModified = authInfo,
-    geometry = geometry?.toLocalDataStoreObject()
+    geometry = geometry?.toLocalDataStoreObject(),
+    mapGeometry = geometry?.toMapGeometryEntity(),
+    bounds = geometry?.toBoundsEntity()
   )
 }
 
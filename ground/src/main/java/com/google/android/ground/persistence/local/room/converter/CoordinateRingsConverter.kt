@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.room.converter
+
+import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.persistence.local.LocalDataConsistencyException
+import java.nio.ByteBuffer
+
+/**
+ * Converts lists of coordinate rings to and from a compact binary representation used to persist
+ * geometries in the local db. The encoding consists of a format version byte, the number of rings,
+ * then for each ring its number of vertices followed by the x and y value of each vertex as
+ * big-endian 64-bit doubles. Lists of polygons are encoded as the number of polygons followed by
+ * the rings of each polygon, with the same version byte prefix.
+ */
+object CoordinateRingsConverter {
+  private const val FORMAT_VERSION: Byte = 1
+  private const val VERSION_SIZE_BYTES = 1
+  private const val VERTEX_SIZE_BYTES = 2 * Double.SIZE_BYTES
+
+  /** Returns the binary encoding of the specified rings, or null if [rings] is empty. */
+  fun toBytes(rings: List<List<Coordinate>>): ByteArray? {
+    if (rings.isEmpty()) {
+      return null
+    }
+    val buffer = ByteBuffer.allocate(VERSION_SIZE_BYTES + sizeOf(rings))
+    buffer.put(FORMAT_VERSION)
+    buffer.putRings(rings)
+    return buffer.array()
+  }
+
+  /** Decodes rings encoded with [toBytes]. Returns an empty list if [bytes] is null or empty. */
+  fun fromBytes(bytes: ByteArray?): List<List<Coordinate>> {
+    if (bytes == null || bytes.isEmpty()) {
+      return listOf()
+    }
+    return wrap(bytes).getRings()
+  }
+
+  /**
+   * Returns the binary encoding of the specified polygons, each represented by its list of rings,
+   * or null if [polygons] is empty.
+   */
+  fun polygonsToBytes(polygons: List<List<List<Coordinate>>>): ByteArray? {
+    if (polygons.isEmpty()) {
+      return null
+    }
+    val size = VERSION_SIZE_BYTES + Int.SIZE_BYTES + polygons.sumOf { sizeOf(it) }
+    val buffer = ByteBuffer.allocate(size)
+    buffer.put(FORMAT_VERSION)
+    buffer.putInt(polygons.size)
+    polygons.forEach { buffer.putRings(it) }
+    return buffer.array()
+  }
+
+  /**
+   * Decodes polygons encoded with [polygonsToBytes]. Returns an empty list if [bytes] is null or
+   * empty.
+   */
+  fun polygonsFromBytes(bytes: ByteArray?): List<List<List<Coordinate>>> {
+    if (bytes == null || bytes.isEmpty()) {
+      return listOf()
+    }
+    val buffer = wrap(bytes)
+    val polygonCount = buffer.int
+    return List(polygonCount) { buffer.getRings() }
+  }
+
+  private fun sizeOf(rings: List<List<Coordinate>>): Int =
+    Int.SIZE_BYTES + rings.sumOf { Int.SIZE_BYTES + it.size * VERTEX_SIZE_BYTES }
+
+  private fun wrap(bytes: ByteArray): ByteBuffer {
+    val buffer = ByteBuffer.wrap(bytes)
+    val version = buffer.get()
+    if (version != FORMAT_VERSION) {
+      throw LocalDataConsistencyException("Unsupported geometry encoding version: $version")
+    }
+    return buffer
+  }
+
+  private fun ByteBuffer.putRings(rings: List<List<Coordinate>>) {
+    putInt(rings.size)
+    for (ring in rings) {
+      putInt(ring.size)
+      for (coordinate in ring) {
+        putDouble(coordinate.x)
+        putDouble(coordinate.y)
+      }
+    }
+  }
+
+  private fun ByteBuffer.getRings(): List<List<Coordinate>> {
+    val ringCount = int
+    val rings = ArrayList<List<Coordinate>>(ringCount)
+    repeat(ringCount) {
+      val vertexCount = int
+      val ring = ArrayList<Coordinate>(vertexCount)
+      repeat(vertexCount) { ring.add(Coordinate(double, double)) }
+      rings.add(ring)
+    }
+    return rings
+  }
+}
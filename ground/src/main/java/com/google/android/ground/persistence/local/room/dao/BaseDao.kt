@@ -17,10 +17,15 @@ package com.google.android.ground.persistence.local.room.dao
 
 import androidx.room.Delete
 import androidx.room.Insert
+import androidx.room.OnConflictStrategy
 import androidx.room.Update
 import io.reactivex.Completable
+import io.reactivex.Observable
 import io.reactivex.Single
 
+/** Maximum number of bind parameters per statement. SQLite's default limit is 999. */
+const val MAX_QUERY_PARAMS = 500
+
 /**
  * Base interface for DAOs that implement operations on a specific entity type.
  *
@@ -29,6 +34,22 @@ import io.reactivex.Single
 interface BaseDao<E> {
   @Insert fun insert(entity: E): Completable
 
+  /**
+   * Inserts all specified entities in a single statement batch, replacing any existing rows with
+   * the same primary key. Note that replacing a row cascades deletes to rows which reference it.
+   */
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  fun insertOrReplaceAll(entities: List<E>): Completable
+
+  /**
+   * Inserts the specified entities, skipping any whose primary key already exists.
+   *
+   * @return the row id of each inserted entity in the same order as [entities], or -1 for those
+   * which were skipped.
+   */
+  @Insert(onConflict = OnConflictStrategy.IGNORE)
+  fun insertAllOrIgnore(entities: List<E>): Single<List<Long>>
+
   @Update fun update(entity: E): Single<Int>
 
   @Update fun updateAll(entities: List<E>): Completable
@@ -36,7 +57,55 @@ interface BaseDao<E> {
   @Delete fun delete(entity: E): Completable
 }
 
-/** Try to update the specified entity, and if it doesn't yet exist, create it. */
-fun <E> BaseDao<E>.insertOrUpdate(entity: E): Completable {
-  return update(entity).filter { n: Int -> n == 0 }.flatMapCompletable { insert(entity) }
-}
+/**
+ * Try to insert the specified entity, and if it already exists, update it. Like [upsertAll], this
+ * must be called within a transaction.
+ */
+fun <E> BaseDao<E>.upsert(entity: E): Completable = upsertAll(listOf(entity))
+
+/**
+ * Inserts the specified entities, then updates only those which already existed. Each statement is
+ * executed once for the entire list, so new rows cost a single insert.
+ *
+ * The insert and update are separate statements, so this must be called within a transaction, e.g.,
+ * from a write passed to `LocalWriteQueue.enqueue`; otherwise a concurrent delete between them can
+ * drop rows, and a failed update leaves the inserted rows behind.
+ *
+ * Room 2.3 has no native UPSERT, and `INSERT ... ON CONFLICT DO UPDATE` requires SQLite 3.24, which
+ * isn't available on all supported API levels. REPLACE can't be used either, since it deletes and
+ * reinserts conflicting rows, cascading deletes to rows which reference them.
+ */
+fun <E> BaseDao<E>.upsertAll(entities: List<E>): Completable =
+  if (entities.isEmpty()) Completable.complete()
+  else
+    insertAllOrIgnore(entities).flatMapCompletable { rowIds ->
+      val existing = entities.filterIndexed { i, _ -> rowIds[i] == -1L }
+      if (existing.isEmpty()) Completable.complete() else updateAll(existing)
+    }
+
+/**
+ * Loads the entities with the specified ids using [findByIds], a DAO query of the form `SELECT ...
+ * WHERE id IN (:ids)`, binding at most [MAX_QUERY_PARAMS] ids per statement.
+ */
+fun <K, E> findByIdsInChunks(
+  ids: Collection<K>,
+  findByIds: (List<K>) -> Single<List<E>>
+): Single<List<E>> =
+  Observable.fromIterable(ids.chunked(MAX_QUERY_PARAMS))
+    .concatMapSingle(findByIds)
+    .flatMapIterable { it }
+    .toList()
+
+/**
+ * Deletes the entities with the specified ids using [deleteByIds], a DAO query of the form `DELETE
+ * ... WHERE id IN (:ids)`, binding at most [MAX_QUERY_PARAMS] ids per statement. SQLite fails
+ * statements with more bind parameters than its limit, so passing large id lists to such queries
+ * directly isn't safe.
+ *
+ * Each chunk is a separate statement, so this should be called within a transaction to avoid
+ * leaving only some of the entities deleted on failure.
+ */
+fun <K> deleteByIdsInChunks(
+  ids: Collection<K>,
+  deleteByIds: (List<K>) -> Completable
+): Completable = Completable.concat(ids.chunked(MAX_QUERY_PARAMS).map(deleteByIds))
@@ -18,9 +18,23 @@ package com.google.android.ground.persistence.local.room.dao
 import androidx.room.Dao
 import androidx.room.Query
 import com.google.android.ground.persistence.local.room.entity.LocationOfInterestEntity
+import com.google.android.ground.persistence.local.room.entity.LoiMapSummaryEntity
 import com.google.android.ground.persistence.local.room.models.EntityState
+import io.reactivex.Completable
 import io.reactivex.Flowable
 import io.reactivex.Maybe
+import io.reactivex.Single
+
+/**
+ * Filters LOIs in the specified survey and state whose bounding box intersects the specified
+ * bounds, handling bounds which cross the antimeridian. LOIs with null bounds, whose geometry has
+ * no vertices, are excluded explicitly; they have nothing to draw.
+ */
+private const val WITHIN_BOUNDS =
+  "survey_id = :surveyId AND state = :state AND bounds_south IS NOT NULL " +
+    "AND bounds_south <= :north AND bounds_north >= :south " +
+    "AND ((:west <= :east AND bounds_west <= :east AND bounds_east >= :west) " +
+    "OR (:west > :east AND (bounds_west <= :east OR bounds_east >= :west)))"
 
 /** Provides low-level read/write operations of [LocationOfInterestEntity] to/from the local db. */
 @Dao
@@ -31,6 +45,65 @@ interface LocationOfInterestDao : BaseDao<LocationOfInterestEntity> {
     state: EntityState
   ): Flowable<List<LocationOfInterestEntity>>
 
+  @Query("SELECT * FROM location_of_interest WHERE survey_id = :surveyId AND state = :state")
+  fun findBySurveyId(surveyId: String, state: EntityState): Single<List<LocationOfInterestEntity>>
+
+  /** Returns the ids of LOIs in the survey which were loaded from or synced to the remote db. */
+  @Query(
+    "SELECT id FROM location_of_interest " +
+      "WHERE survey_id = :surveyId AND modified_serverTimestamp IS NOT NULL"
+  )
+  fun findRemoteIdsBySurveyId(surveyId: String): Single<List<String>>
+
+  /** Returns the latest server modification time of any LOI in the survey, or empty if none. */
+  @Query(
+    "SELECT MAX(modified_serverTimestamp) FROM location_of_interest WHERE survey_id = :surveyId"
+  )
+  fun findLatestServerTimestamp(surveyId: String): Maybe<Long>
+
+  /**
+   * Returns LOIs whose bounding box intersects the specified bounds. Bounds where [west] is greater
+   * than [east] are treated as crossing the antimeridian.
+   */
+  @Query("SELECT * FROM location_of_interest WHERE " + WITHIN_BOUNDS)
+  fun findWithinBoundsOnceAndStream(
+    surveyId: String,
+    state: EntityState,
+    north: Double,
+    south: Double,
+    east: Double,
+    west: Double
+  ): Flowable<List<LocationOfInterestEntity>>
+
+  /**
+   * Returns map summaries of LOIs whose bounding box intersects the specified bounds. Only the
+   * columns needed to render the LOIs are read; in particular, the simplified map geometry is read
+   * instead of the full geometry.
+   */
+  @Query(
+    "SELECT id, job_id, caption, " +
+      "map_geometryType, map_lat, map_lng, map_vertices, map_holes, map_polygons, " +
+      "bounds_north, bounds_south, bounds_east, bounds_west, " +
+      "modified_user_id, modified_user_email, modified_user_display_name, " +
+      "modified_clientTimestamp, modified_serverTimestamp " +
+      "FROM location_of_interest WHERE " +
+      WITHIN_BOUNDS
+  )
+  fun findSummariesWithinBoundsOnceAndStream(
+    surveyId: String,
+    state: EntityState,
+    north: Double,
+    south: Double,
+    east: Double,
+    west: Double
+  ): Flowable<List<LoiMapSummaryEntity>>
+
+  @Query("SELECT * FROM location_of_interest WHERE id IN (:ids)")
+  fun findByIds(ids: List<String>): Single<List<LocationOfInterestEntity>>
+
   @Query("SELECT * FROM location_of_interest WHERE id = :id")
   fun findById(id: String): Maybe<LocationOfInterestEntity>
+
+  @Query("DELETE FROM location_of_interest WHERE id IN (:ids)")
+  fun deleteByIds(ids: List<String>): Completable
 }
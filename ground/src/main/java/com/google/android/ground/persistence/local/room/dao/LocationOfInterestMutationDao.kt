@@ -29,8 +29,26 @@ import io.reactivex.Single
  */
 @Dao
 interface LocationOfInterestMutationDao : BaseDao<LocationOfInterestMutationEntity> {
-  @Query("SELECT * FROM location_of_interest_mutation")
-  fun loadAllOnceAndStream(): Flowable<List<LocationOfInterestMutationEntity>>
+  /** Returns all mutations with one of the specified states in the order they were enqueued. */
+  @Query("SELECT * FROM location_of_interest_mutation WHERE state IN (:allowedStates) ORDER BY id")
+  fun findByState(
+    vararg allowedStates: MutationEntitySyncStatus
+  ): Single<List<LocationOfInterestMutationEntity>>
+
+  /**
+   * Returns a long-lived stream of the [limit] most recent mutations in the specified survey with
+   * one of the specified states, ordered by descending client timestamp.
+   */
+  @Query(
+    "SELECT * FROM location_of_interest_mutation " +
+      "WHERE survey_id = :surveyId AND state IN (:allowedStates) " +
+      "ORDER BY client_timestamp DESC LIMIT :limit"
+  )
+  fun findBySurveyIdOnceAndStream(
+    surveyId: String,
+    limit: Int,
+    vararg allowedStates: MutationEntitySyncStatus
+  ): @Cold(terminates = false) Flowable<List<LocationOfInterestMutationEntity>>
 
   @Query(
     "SELECT * FROM location_of_interest_mutation " +
@@ -51,4 +69,29 @@ interface LocationOfInterestMutationDao : BaseDao<LocationOfInterestMutationEnti
     locationOfInterestId: String,
     vararg allowedStates: MutationEntitySyncStatus
   ): @Cold(terminates = false) Flowable<List<LocationOfInterestMutationEntity>>
+
+  /** Returns a long-lived stream of the number of mutations in a survey with the given state. */
+  @Query(
+    "SELECT COUNT(*) FROM location_of_interest_mutation " +
+      "WHERE survey_id = :surveyId AND state = :state"
+  )
+  fun countBySurveyIdOnceAndStream(
+    surveyId: String,
+    state: MutationEntitySyncStatus
+  ): @Cold(terminates = false) Flowable<Int>
+
+  /**
+   * Deletes up to [limit] mutations in the specified state with a client timestamp older than
+   * [cutoffTimestamp], returning the number of rows removed.
+   */
+  @Query(
+    "DELETE FROM location_of_interest_mutation WHERE id IN " +
+      "(SELECT id FROM location_of_interest_mutation " +
+      "WHERE state = :state AND client_timestamp < :cutoffTimestamp LIMIT :limit)"
+  )
+  fun deleteByStateBefore(
+    state: MutationEntitySyncStatus,
+    cutoffTimestamp: Long,
+    limit: Int
+  ): Single<Int>
 }
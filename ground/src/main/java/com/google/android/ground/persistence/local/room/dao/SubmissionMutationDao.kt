@@ -26,8 +26,26 @@ import io.reactivex.Single
 /** Data access object for database operations related to [SubmissionMutationEntity]. */
 @Dao
 interface SubmissionMutationDao : BaseDao<SubmissionMutationEntity> {
-  @Query("SELECT * FROM submission_mutation")
-  fun loadAllOnceAndStream(): Flowable<List<SubmissionMutationEntity>>
+  /** Returns all mutations with one of the specified states in the order they were enqueued. */
+  @Query("SELECT * FROM submission_mutation WHERE state IN (:allowedStates) ORDER BY id")
+  fun findByState(
+    vararg allowedStates: MutationEntitySyncStatus
+  ): Single<List<SubmissionMutationEntity>>
+
+  /**
+   * Returns a long-lived stream of the [limit] most recent mutations in the specified survey with
+   * one of the specified states, ordered by descending client timestamp.
+   */
+  @Query(
+    "SELECT * FROM submission_mutation " +
+      "WHERE survey_id = :surveyId AND state IN (:allowedStates) " +
+      "ORDER BY client_timestamp DESC LIMIT :limit"
+  )
+  fun findBySurveyIdOnceAndStream(
+    surveyId: String,
+    limit: Int,
+    vararg allowedStates: MutationEntitySyncStatus
+  ): @Cold(terminates = false) Flowable<List<SubmissionMutationEntity>>
 
   @Query(
     "SELECT * FROM submission_mutation " +
@@ -55,4 +73,26 @@ interface SubmissionMutationDao : BaseDao<SubmissionMutationEntity> {
     locationOfInterestId: String,
     vararg allowedStates: MutationEntitySyncStatus
   ): @Cold(terminates = false) Flowable<List<SubmissionMutationEntity>>
+
+  /** Returns a long-lived stream of the number of mutations in a survey with the given state. */
+  @Query("SELECT COUNT(*) FROM submission_mutation WHERE survey_id = :surveyId AND state = :state")
+  fun countBySurveyIdOnceAndStream(
+    surveyId: String,
+    state: MutationEntitySyncStatus
+  ): @Cold(terminates = false) Flowable<Int>
+
+  /**
+   * Deletes up to [limit] mutations in the specified state with a client timestamp older than
+   * [cutoffTimestamp], returning the number of rows removed.
+   */
+  @Query(
+    "DELETE FROM submission_mutation WHERE id IN " +
+      "(SELECT id FROM submission_mutation " +
+      "WHERE state = :state AND client_timestamp < :cutoffTimestamp LIMIT :limit)"
+  )
+  fun deleteByStateBefore(
+    state: MutationEntitySyncStatus,
+    cutoffTimestamp: Long,
+    limit: Int
+  ): Single<Int>
 }
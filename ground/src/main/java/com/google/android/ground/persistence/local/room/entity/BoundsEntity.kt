@@ -0,0 +1,29 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.room.entity
+
+import androidx.room.ColumnInfo
+
+/**
+ * Axis-aligned bounding box of a geometry, stored alongside the geometry so that spatial queries
+ * can be answered with an indexed range scan rather than by decoding every row.
+ */
+data class BoundsEntity(
+  @ColumnInfo(name = "north") val north: Double,
+  @ColumnInfo(name = "south") val south: Double,
+  @ColumnInfo(name = "east") val east: Double,
+  @ColumnInfo(name = "west") val west: Double
+)
@@ -16,15 +16,43 @@
 package com.google.android.ground.persistence.local.room.entity
 
 import androidx.room.Embedded
+import com.google.android.ground.persistence.local.room.converter.CoordinateRingsConverter
 import com.google.android.ground.persistence.local.room.models.Coordinates
+import java.util.Objects
 
 data class GeometryEntity(
   /** The type of this geometry. */
   val geometryType: String,
   /** Non-null iff this geometry is a point. */
   @Embedded val location: Coordinates? = null,
-  /** Non-null iff this geometry is a polygon */
-  val vertices: String? = null,
-  /** Non-null iff this geometry is a polygon */
-  val holes: String? = null,
-)
+  /**
+   * Non-null iff this geometry is a polygon or line string. Encoded with [CoordinateRingsConverter].
+   */
+  val vertices: ByteArray? = null,
+  /** Non-null iff this polygon has holes. Encoded with [CoordinateRingsConverter]. */
+  val holes: ByteArray? = null,
+  /**
+   * Non-null iff this geometry is a multipolygon. Encoded with
+   * [CoordinateRingsConverter.polygonsToBytes].
+   */
+  val polygons: ByteArray? = null,
+) {
+  override fun equals(other: Any?): Boolean {
+    if (this === other) return true
+    if (other !is GeometryEntity) return false
+    return geometryType == other.geometryType &&
+      location == other.location &&
+      vertices.contentEquals(other.vertices) &&
+      holes.contentEquals(other.holes) &&
+      polygons.contentEquals(other.polygons)
+  }
+
+  override fun hashCode(): Int =
+    Objects.hash(
+      geometryType,
+      location,
+      vertices.contentHashCode(),
+      holes.contentHashCode(),
+      polygons.contentHashCode()
+    )
+}
@@ -22,13 +22,25 @@ import com.google.android.ground.persistence.local.room.models.EntityState
  * Defines how Room persists LOIs in the local db. By default, Room uses the name of object fields
  * and their respective types to determine database column names and types.
  */
-@Entity(tableName = "location_of_interest", indices = [Index("survey_id")])
+@Entity(
+  tableName = "location_of_interest",
+  indices =
+    [Index("survey_id", "state", "bounds_south", "bounds_north", "bounds_west", "bounds_east")]
+)
 data class LocationOfInterestEntity(
   @ColumnInfo(name = "id") @PrimaryKey val id: String,
   @ColumnInfo(name = "survey_id") val surveyId: String,
   @ColumnInfo(name = "job_id") val jobId: String,
+  @ColumnInfo(name = "caption") val caption: String?,
   @ColumnInfo(name = "state") var state: EntityState, // TODO: Rename to DeletionState.
   @Embedded(prefix = "created_") val created: AuditInfoEntity,
   @Embedded(prefix = "modified_") val lastModified: AuditInfoEntity,
-  @Embedded val geometry: GeometryEntity?
+  @Embedded val geometry: GeometryEntity?,
+  /**
+   * Copy of [geometry] with a capped number of vertices, read instead of the full geometry when
+   * rendering the LOI on the map.
+   */
+  @Embedded(prefix = "map_") val mapGeometry: GeometryEntity?,
+  /** Bounding box of this LOI's geometry, used to answer viewport queries. */
+  @Embedded(prefix = "bounds_") val bounds: BoundsEntity?
 )
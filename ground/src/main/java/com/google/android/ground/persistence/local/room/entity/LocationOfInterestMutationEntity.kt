@@ -35,7 +35,12 @@ import com.google.android.ground.persistence.local.room.models.MutationEntityTyp
         onDelete = ForeignKey.CASCADE
       )
     ],
-  indices = [Index("location_of_interest_id")]
+  indices =
+    [
+      Index("location_of_interest_id"),
+      Index("survey_id", "client_timestamp"),
+      Index("state", "client_timestamp")
+    ]
 )
 data class LocationOfInterestMutationEntity(
   @ColumnInfo(name = "id") @PrimaryKey(autoGenerate = true) val id: Long? = 0,
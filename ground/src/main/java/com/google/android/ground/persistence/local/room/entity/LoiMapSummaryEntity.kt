@@ -0,0 +1,33 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.room.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Embedded
+
+/**
+ * Subset of the columns of [LocationOfInterestEntity] needed to render a LOI on the map. Loaded by
+ * dedicated queries so that the full geometry, creation info and other unused columns aren't read
+ * or converted.
+ */
+data class LoiMapSummaryEntity(
+  @ColumnInfo(name = "id") val id: String,
+  @ColumnInfo(name = "job_id") val jobId: String,
+  @ColumnInfo(name = "caption") val caption: String?,
+  @Embedded(prefix = "map_") val mapGeometry: GeometryEntity?,
+  @Embedded(prefix = "bounds_") val bounds: BoundsEntity?,
+  @Embedded(prefix = "modified_") val lastModified: AuditInfoEntity
+)
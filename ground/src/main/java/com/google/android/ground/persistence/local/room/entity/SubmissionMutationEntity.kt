@@ -39,7 +39,13 @@ import java.util.*
         onDelete = ForeignKey.CASCADE
       )
     ],
-  indices = [Index("location_of_interest_id"), Index("submission_id")]
+  indices =
+    [
+      Index("location_of_interest_id"),
+      Index("submission_id"),
+      Index("survey_id", "client_timestamp"),
+      Index("state", "client_timestamp")
+    ]
 )
 data class SubmissionMutationEntity(
   @ColumnInfo(name = "id") @PrimaryKey(autoGenerate = true) val id: Long? = 0,
@@ -18,4 +18,6 @@ package com.google.android.ground.persistence.local.room.models
 enum class GeometryType {
   POLYGON,
   POINT,
+  LINE_STRING,
+  MULTI_POLYGON,
 }
@@ -25,8 +25,7 @@ import com.google.android.ground.persistence.local.room.IntEnum;
 
 /** Mutually exclusive mutations states. */
 public enum MutationEntitySyncStatus implements IntEnum {
-  // TODO(#950): Set IN_PROGRESS and FAILED statuses when necessary. On failure, set retry count and
-  // error and update to PENDING.
+  // TODO(#950): Set IN_PROGRESS status when necessary.
   UNKNOWN(0, SyncStatus.UNKNOWN),
   /** Pending includes failed sync attempts pending retry. */
   PENDING(1, SyncStatus.PENDING),
@@ -28,6 +28,7 @@ import io.reactivex.Completable
 import io.reactivex.Flowable
 import io.reactivex.Maybe
 import io.reactivex.Single
+import java.util.Date
 
 /**
  * Defines API for accessing data in a remote data store. Implementations must ensure all
@@ -50,11 +51,22 @@ interface RemoteDataStore {
 
   /**
    * Returns all LOIs in the specified survey, then continues to emit any remote updates to the set
-   * of LOIs in the survey until all subscribers have been disposed.
+   * of LOIs in the survey until all subscribers have been disposed. Events are emitted in batches,
+   * one list per remote snapshot, so that they can be applied to the local db together. The first
+   * list contains every LOI in the survey.
    */
   fun loadLocationsOfInterestOnceAndStreamChanges(
     survey: Survey
-  ): @Cold(stateful = true, terminates = false) Flowable<RemoteDataEvent<LocationOfInterest>>
+  ): @Cold(stateful = true, terminates = false) Flowable<List<RemoteDataEvent<LocationOfInterest>>>
+
+  /**
+   * Returns the LOIs in the specified survey last modified on the server after [modifiedSince].
+   * LOIs deleted since aren't reported.
+   */
+  fun loadLocationsOfInterestModifiedSince(
+    survey: Survey,
+    modifiedSince: Date
+  ): @Cold Single<List<RemoteDataEvent<LocationOfInterest>>>
 
   /**
    * Returns a list of all submissions associated with the specified LOI, or an empty list if none
@@ -64,6 +76,22 @@ interface RemoteDataStore {
     locationOfInterest: LocationOfInterest
   ): @Cold Single<ImmutableList<Result<Submission>>>
 
+  /**
+   * Returns a page of at most [pageSize] submissions across all LOIs in the specified survey, in
+   * order of server modification time, then id, starting after the submission at [startAfter], or
+   * from the first submission if null. If [modifiedSince] is specified, only submissions modified on
+   * the server after that time are returned. Submissions are converted together with their LOI,
+   * which is looked up using [getLocationsOfInterest]; submissions whose LOI isn't returned are
+   * included as errors.
+   */
+  fun loadSubmissionsPage(
+    survey: Survey,
+    modifiedSince: Date?,
+    startAfter: SubmissionCursor?,
+    pageSize: Int,
+    getLocationsOfInterest: (Collection<String>) -> Single<ImmutableList<LocationOfInterest>>
+  ): @Cold Single<SubmissionPage>
+
   /**
    * Applies the provided mutations to the remote data store in a single batched transaction. If one
    * update fails, none of the mutations will be applied.
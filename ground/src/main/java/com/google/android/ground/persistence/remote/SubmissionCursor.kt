@@ -0,0 +1,25 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.persistence.remote
+
+/**
+ * Position of a submission in the order in which submissions are paged from the remote data store,
+ * i.e., by server modification time, then by id. The time is kept in microseconds, the precision of
+ * remote timestamps, so that paging never skips or repeats submissions modified in the same
+ * millisecond.
+ */
+data class SubmissionCursor(val serverTimestampMicros: Long, val submissionId: String)
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.persistence.remote
+
+import com.google.android.ground.model.submission.Submission
+import com.google.common.collect.ImmutableList
+
+/**
+ * A page of submissions loaded from the remote data store in order of server modification time.
+ *
+ * @param submissions the submissions in the page, or errors for those which couldn't be converted.
+ * @param lastCursor position of the last submission in the page, used to load the next page, or
+ *   null if the page is empty.
+ * @param isLastPage true iff no more submissions remain after this page.
+ * @param firstMissingLoiCursor position of the first submission in the page whose LOI couldn't be
+ *   found, or null if the LOIs of all submissions were found.
+ */
+data class SubmissionPage(
+  val submissions: ImmutableList<Result<Submission>>,
+  val lastCursor: SubmissionCursor?,
+  val isLastPage: Boolean,
+  val firstMissingLoiCursor: SubmissionCursor? = null
+)
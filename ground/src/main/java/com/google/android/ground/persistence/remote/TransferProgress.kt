@@ -18,7 +18,9 @@ package com.google.android.ground.persistence.remote
 data class TransferProgress(
   val state: UploadState,
   val byteCount: Int = 0,
-  val bytesTransferred: Int = 0
+  val bytesTransferred: Int = 0,
+  /** Average transfer rate so far, or 0 if it isn't known. */
+  val bytesPerSecond: Long = 0
 ) {
 
   enum class UploadState {
@@ -34,8 +36,9 @@ data class TransferProgress(
     fun starting() = TransferProgress(UploadState.STARTING)
 
     @JvmStatic
-    fun inProgress(byteCount: Int, bytesTransferred: Int) =
-      TransferProgress(UploadState.IN_PROGRESS, byteCount, bytesTransferred)
+    @JvmOverloads
+    fun inProgress(byteCount: Int, bytesTransferred: Int, bytesPerSecond: Long = 0) =
+      TransferProgress(UploadState.IN_PROGRESS, byteCount, bytesTransferred, bytesPerSecond)
 
     fun paused() = TransferProgress(UploadState.PAUSED)
 
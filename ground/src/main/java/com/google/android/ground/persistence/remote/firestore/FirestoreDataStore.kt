@@ -28,6 +28,8 @@ import com.google.android.ground.persistence.remote.DataStoreException
 import com.google.android.ground.persistence.remote.NotFoundException
 import com.google.android.ground.persistence.remote.RemoteDataEvent
 import com.google.android.ground.persistence.remote.RemoteDataStore
+import com.google.android.ground.persistence.remote.SubmissionCursor
+import com.google.android.ground.persistence.remote.SubmissionPage
 import com.google.android.ground.persistence.remote.firestore.schema.GroundFirestore
 import com.google.android.ground.rx.RxTask
 import com.google.android.ground.rx.Schedulers
@@ -41,6 +43,7 @@ import io.reactivex.Completable
 import io.reactivex.Flowable
 import io.reactivex.Maybe
 import io.reactivex.Single
+import java.util.Date
 import javax.inject.Inject
 import javax.inject.Singleton
 import timber.log.Timber
@@ -93,6 +96,24 @@ internal constructor(
       .subscribeOn(schedulers.io())
   }
 
+  override fun loadSubmissionsPage(
+    survey: Survey,
+    modifiedSince: Date?,
+    startAfter: SubmissionCursor?,
+    pageSize: Int,
+    getLocationsOfInterest: (Collection<String>) -> Single<ImmutableList<LocationOfInterest>>
+  ): @Cold Single<SubmissionPage> {
+    return db
+      .surveys()
+      .survey(survey.id)
+      .submissions()
+      .page(modifiedSince, startAfter, pageSize, getLocationsOfInterest)
+      .onErrorResumeNext { e: Throwable ->
+        if (shouldInterceptException(e)) Single.never() else Single.error(e)
+      }
+      .subscribeOn(schedulers.io())
+  }
+
   override fun loadTermsOfService(): @Cold Maybe<TermsOfService> {
     return db
       .termsOfService()
@@ -116,18 +137,34 @@ internal constructor(
 
   override fun loadLocationsOfInterestOnceAndStreamChanges(
     survey: Survey
-  ): @Cold(stateful = true, terminates = false) Flowable<RemoteDataEvent<LocationOfInterest>> {
+  ): @Cold(stateful = true, terminates = false)
+  Flowable<List<RemoteDataEvent<LocationOfInterest>>> {
     return db
       .surveys()
       .survey(survey.id)
       .lois()
-      .loadOnceAndStreamChanges(survey)
+      .loadOnceAndStreamChanges(survey, schedulers.computation())
       .onErrorResumeNext { e: Throwable ->
         if (shouldInterceptException(e)) Flowable.never() else Flowable.error(e)
       }
       .subscribeOn(schedulers.io())
   }
 
+  override fun loadLocationsOfInterestModifiedSince(
+    survey: Survey,
+    modifiedSince: Date
+  ): @Cold Single<List<RemoteDataEvent<LocationOfInterest>>> {
+    return db
+      .surveys()
+      .survey(survey.id)
+      .lois()
+      .loadModifiedSince(survey, schedulers.computation(), modifiedSince)
+      .onErrorResumeNext { e: Throwable ->
+        if (shouldInterceptException(e)) Single.never() else Single.error(e)
+      }
+      .subscribeOn(schedulers.io())
+  }
+
   override fun applyMutations(
     mutations: ImmutableCollection<Mutation>,
     user: User
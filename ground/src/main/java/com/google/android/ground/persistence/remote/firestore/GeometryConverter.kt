@@ -18,6 +18,7 @@ package com.google.android.ground.persistence.remote.firestore
 
 import com.google.android.ground.model.geometry.*
 import com.google.android.ground.persistence.remote.DataStoreException
+import com.google.common.collect.ImmutableList
 import com.google.firebase.firestore.GeoPoint
 
 /** Alias for maps whose keys represent an index in an ordered data structure like a [List]. */
@@ -42,6 +43,11 @@ object GeometryConverter {
   private const val POLYGON_TYPE = "Polygon"
   private const val MULTI_POLYGON_TYPE = "MultiPolygon"
 
+  /** Number of index keys allocated up front and shared by all encoded geometries. */
+  private const val CACHED_INDEX_KEY_COUNT = 1024
+
+  private val indexKeys = Array(CACHED_INDEX_KEY_COUNT) { it.toString() }
+
   /**
    * Returns the remote db representation of a `Geometry` object. Errors are always returned as a
    * `Result`; exceptions are never thrown.
@@ -61,22 +67,38 @@ object GeometryConverter {
 
   private fun getPointCoordinates(point: Point): GeoPoint = coordinateToGeoPoint(point.coordinate)
 
-  private fun getPolygonCoordinates(polygon: Polygon): IndexedMap<IndexedMap<GeoPoint>> =
-    listToIndexedMap((listOf(polygon.shell) + polygon.holes).map(::getLinearRingCoordinates))
+  private fun getPolygonCoordinates(polygon: Polygon): IndexedMap<IndexedMap<GeoPoint>> {
+    val rings = newIndexedMap<IndexedMap<GeoPoint>>(polygon.holes.size + 1)
+    rings[indexKey(0)] = getLinearRingCoordinates(polygon.shell)
+    polygon.holes.forEachIndexed { i, hole ->
+      rings[indexKey(i + 1)] = getLinearRingCoordinates(hole)
+    }
+    return rings
+  }
 
   private fun getLinearRingCoordinates(linearRing: LinearRing): IndexedMap<GeoPoint> =
-    listToIndexedMap(linearRing.coordinates.map(::coordinateToGeoPoint))
+    listToIndexedMap(linearRing.coordinates, ::coordinateToGeoPoint)
 
   private fun getMultiPolygonCoordinates(
     multiPolygon: MultiPolygon
   ): IndexedMap<IndexedMap<IndexedMap<GeoPoint>>> =
-    listToIndexedMap(multiPolygon.polygons.map(this::getPolygonCoordinates))
+    listToIndexedMap(multiPolygon.polygons, this::getPolygonCoordinates)
 
   private fun coordinateToGeoPoint(coordinate: Coordinate): GeoPoint =
     GeoPoint(coordinate.x, coordinate.y)
 
-  private fun <T> listToIndexedMap(list: List<T>): IndexedMap<T> =
-    list.mapIndexed { index, value -> index.toString() to value }.toMap()
+  private inline fun <T, R> listToIndexedMap(list: List<T>, transform: (T) -> R): IndexedMap<R> {
+    val map = newIndexedMap<R>(list.size)
+    list.forEachIndexed { i, value -> map[indexKey(i)] = transform(value) }
+    return map
+  }
+
+  /** Returns a map large enough to hold the specified number of entries without resizing. */
+  private fun <T> newIndexedMap(size: Int): MutableMap<String, T> =
+    HashMap((size / 0.75f).toInt() + 1)
+
+  private fun indexKey(index: Int): String =
+    if (index < CACHED_INDEX_KEY_COUNT) indexKeys[index] else index.toString()
 
   /** Converts a `Map` deserialized from Firestore into a `Geometry` instance. */
   fun fromFirestoreMap(map: Map<String, *>?): Result<Geometry> =
@@ -103,29 +125,35 @@ object GeometryConverter {
     Coordinate(geoPoint.latitude, geoPoint.longitude)
 
   private fun nestedIndexedMapToPolygon(ringsMap: IndexedMap<IndexedMap<GeoPoint>>): Polygon {
-    val rings = indexedMapToList(ringsMap)
-    return Polygon(
-      indexedMapToLinearRing(rings.first()),
-      rings.drop(1).map(this::indexedMapToLinearRing)
-    )
+    val rings = indexedMapToList(ringsMap, this::indexedMapToLinearRing)
+    return Polygon(rings.first(), rings.subList(1, rings.size))
   }
 
   private fun indexedMapToLinearRing(coordinatesMap: IndexedMap<GeoPoint>): LinearRing =
-    LinearRing(indexedMapToList(coordinatesMap).map(this::geoPointToCoordinate))
+    LinearRing(indexedMapToList(coordinatesMap, this::geoPointToCoordinate))
 
   private fun nestedIndexedMapToMultiPolygon(
     coordinatesMap: IndexedMap<IndexedMap<IndexedMap<GeoPoint>>>
-  ): Geometry = MultiPolygon(indexedMapToList(coordinatesMap).map(this::nestedIndexedMapToPolygon))
+  ): Geometry = MultiPolygon(indexedMapToList(coordinatesMap, this::nestedIndexedMapToPolygon))
 
   /**
-   * Converts map representation used to store nested arrays in Firestore into a List. Throws
-   * [IllegalArgumentException] if keys aren't consecutive Ints starting from 0
+   * Converts map representation used to store nested arrays in Firestore into a List, applying
+   * [transform] to each value. Each value is placed directly at the index parsed from its key, so
+   * entries don't need to be sorted. Throws [IllegalArgumentException] if keys aren't consecutive
+   * Ints starting from 0.
    */
-  private fun <T> indexedMapToList(map: IndexedMap<T>): List<T> {
-    val sortedEntries = map.entries.sortedBy { it.key.toInt() }
-    if (sortedEntries.withIndex().any { it.index != it.value.key.toInt() }) {
-      throw IllegalArgumentException("Invalid map $map")
+  private inline fun <T, R : Any> indexedMapToList(
+    map: IndexedMap<T>,
+    transform: (T) -> R
+  ): ImmutableList<R> {
+    val values = arrayOfNulls<Any>(map.size)
+    for ((key, value) in map) {
+      val index = key.toInt()
+      if (index < 0 || index >= values.size || values[index] != null) {
+        throw IllegalArgumentException("Invalid map $map")
+      }
+      values[index] = transform(value)
     }
-    return sortedEntries.map { it.value }
+    @Suppress("UNCHECKED_CAST") return ImmutableList.copyOf(values as Array<R>)
   }
 }
@@ -25,6 +25,7 @@ import java8.util.Optional
 
 /** Converts between Firestore nested objects and [AuditInfo] instances. */
 internal object AuditInfoConverter {
+  const val SERVER_TIMESTAMP = "serverTimestamp"
 
   @Throws(DataStoreException::class)
   fun toAuditInfo(doc: AuditInfoNestedObject): AuditInfo {
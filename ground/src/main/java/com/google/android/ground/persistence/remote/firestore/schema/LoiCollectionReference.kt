@@ -22,28 +22,63 @@ import com.google.android.ground.persistence.remote.RemoteDataEvent
 import com.google.android.ground.persistence.remote.firestore.base.FluentCollectionReference
 import com.google.android.ground.persistence.remote.firestore.schema.LoiConverter.toLoi
 import com.google.android.ground.rx.annotations.Cold
+import com.google.firebase.Timestamp
 import com.google.firebase.firestore.CollectionReference
 import com.google.firebase.firestore.DocumentSnapshot
+import com.google.firebase.firestore.FieldPath
 import com.google.firebase.firestore.QuerySnapshot
 import durdinapps.rxfirebase2.RxFirestore
 import io.reactivex.Flowable
+import io.reactivex.Scheduler
+import io.reactivex.Single
+import java.util.Date
+
+private val LAST_MODIFIED_SERVER_TIMESTAMP =
+  FieldPath.of(LoiConverter.LAST_MODIFIED, AuditInfoConverter.SERVER_TIMESTAMP)
 
 class LoiCollectionReference internal constructor(ref: CollectionReference) :
   FluentCollectionReference(ref) {
 
-  /** Retrieves all lois in the survey, then streams changes to the remote db incrementally. */
+  /**
+   * Retrieves all lois in the survey, then streams changes to the remote db incrementally. Emits
+   * one list of events per query snapshot. Documents are converted on [conversionScheduler].
+   *
+   * The listener is deliberately unfiltered; a query restricted by modification time would never
+   * report lois deleted without having been modified since.
+   */
   fun loadOnceAndStreamChanges(
-    survey: Survey
-  ): @Cold(terminates = false) Flowable<RemoteDataEvent<LocationOfInterest>> =
-    RxFirestore.observeQueryRef(reference()).flatMapIterable { snapshot: QuerySnapshot ->
-      toRemoteDataEvents(survey, snapshot)
+    survey: Survey,
+    conversionScheduler: Scheduler
+  ): @Cold(terminates = false) Flowable<List<RemoteDataEvent<LocationOfInterest>>> =
+    RxFirestore.observeQueryRef(reference()).concatMapSingle { snapshot: QuerySnapshot ->
+      toRemoteDataEvents(survey, snapshot, conversionScheduler)
     }
 
+  /**
+   * Retrieves the lois in the survey last modified on the server after [modifiedSince], once.
+   * Deleted lois aren't reported. Documents are converted on [conversionScheduler].
+   */
+  fun loadModifiedSince(
+    survey: Survey,
+    conversionScheduler: Scheduler,
+    modifiedSince: Date
+  ): @Cold Single<List<RemoteDataEvent<LocationOfInterest>>> =
+    RxFirestore.getCollection(
+        reference().whereGreaterThan(LAST_MODIFIED_SERVER_TIMESTAMP, Timestamp(modifiedSince))
+      )
+      .flatMapSingleElement { snapshot: QuerySnapshot ->
+        toRemoteDataEvents(survey, snapshot, conversionScheduler)
+      }
+      .toSingle(listOf())
+
   fun loi(id: String) = LoiDocumentReference(reference().document(id))
 
   private fun toRemoteDataEvents(
     survey: Survey,
-    snapshot: QuerySnapshot
-  ): Iterable<RemoteDataEvent<LocationOfInterest>> =
-    QuerySnapshotConverter.toEvents(snapshot) { doc: DocumentSnapshot -> toLoi(survey, doc) }
+    snapshot: QuerySnapshot,
+    scheduler: Scheduler
+  ): @Cold Single<List<RemoteDataEvent<LocationOfInterest>>> =
+    QuerySnapshotConverter.toEvents(snapshot, scheduler) { doc: DocumentSnapshot ->
+      toLoi(survey, doc)
+    }
 }
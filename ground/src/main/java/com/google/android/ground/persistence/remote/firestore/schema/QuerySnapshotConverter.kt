@@ -22,31 +22,55 @@ import com.google.android.ground.persistence.remote.RemoteDataEvent.Companion.er
 import com.google.android.ground.persistence.remote.RemoteDataEvent.Companion.loaded
 import com.google.android.ground.persistence.remote.RemoteDataEvent.Companion.modified
 import com.google.android.ground.persistence.remote.RemoteDataEvent.Companion.removed
-import com.google.android.ground.util.toImmutableList
+import com.google.android.ground.rx.annotations.Cold
 import com.google.firebase.firestore.DocumentChange
 import com.google.firebase.firestore.DocumentSnapshot
 import com.google.firebase.firestore.QuerySnapshot
+import io.reactivex.Flowable
+import io.reactivex.Scheduler
+import io.reactivex.Single
 import java8.util.function.Function
 import timber.log.Timber
 
+/** Maximum number of document changes converted together in a single task. */
+private const val CONVERSION_CHUNK_SIZE = 500
+
 /**
  * Converts Firestore [com.google.firebase.firestore.QuerySnapshot] to application-specific objects.
  */
 internal object QuerySnapshotConverter {
 
-  /** Applies a converter function to document change events in the specified query snapshot. */
+  /** Maximum number of chunks of document changes converted at the same time. */
+  private val maxConcurrentConversions = Runtime.getRuntime().availableProcessors()
+
+  /**
+   * Applies a converter function to document change events in the specified query snapshot on the
+   * specified scheduler, rather than on the calling Firestore listener thread. Changes are split
+   * into chunks of [CONVERSION_CHUNK_SIZE], up to one per available processor of which are
+   * converted in parallel. Events are returned in the same order as the changes in the snapshot.
+   */
   fun <T> toEvents(
     snapshot: QuerySnapshot,
+    scheduler: Scheduler,
     converter: Function<DocumentSnapshot, Result<T>>
-  ): Iterable<RemoteDataEvent<T>> =
-    snapshot.documentChanges.map { dc: DocumentChange -> toEvent(dc, converter) }.toImmutableList()
+  ): @Cold Single<List<RemoteDataEvent<T>>> =
+    Flowable.fromIterable(snapshot.documentChanges.chunked(CONVERSION_CHUNK_SIZE))
+      .concatMapEager(
+        { changes: List<DocumentChange> ->
+          Flowable.fromCallable { changes.map { toEvent(it, converter) } }.subscribeOn(scheduler)
+        },
+        maxConcurrentConversions,
+        1
+      )
+      .concatMapIterable { it }
+      .toList()
+      .doOnSuccess { Timber.v("Converted ${it.size} document changes") }
 
   private fun <T> toEvent(
     dc: DocumentChange,
     converter: Function<DocumentSnapshot, Result<T>>
   ): RemoteDataEvent<T> =
     try {
-      Timber.v("${dc.document.reference.path}  ${dc.type}")
       val id = dc.document.id
       when (dc.type) {
         DocumentChange.Type.ADDED -> loaded(id, converter.apply(dc.document).getOrThrow())
@@ -16,15 +16,27 @@
 
 package com.google.android.ground.persistence.remote.firestore.schema
 
+import androidx.annotation.VisibleForTesting
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
 import com.google.android.ground.model.submission.Submission
+import com.google.android.ground.persistence.remote.DataStoreException
+import com.google.android.ground.persistence.remote.SubmissionCursor
+import com.google.android.ground.persistence.remote.SubmissionPage
 import com.google.android.ground.persistence.remote.firestore.base.FluentCollectionReference
 import com.google.android.ground.rx.annotations.Cold
 import com.google.android.ground.util.toImmutableList
 import com.google.common.collect.ImmutableList
+import com.google.firebase.Timestamp
 import com.google.firebase.firestore.*
 import durdinapps.rxfirebase2.RxFirestore
 import io.reactivex.Single
+import java.util.Date
+
+private const val MICROS_PER_SECOND = 1_000_000L
+private const val NANOS_PER_MICRO = 1_000
+
+private val LAST_MODIFIED_SERVER_TIMESTAMP =
+  FieldPath.of(SubmissionMutationConverter.LAST_MODIFIED, AuditInfoConverter.SERVER_TIMESTAMP)
 
 class SubmissionCollectionReference internal constructor(ref: CollectionReference) :
   FluentCollectionReference(ref) {
@@ -39,6 +51,83 @@ class SubmissionCollectionReference internal constructor(ref: CollectionReferenc
       .toSingle(ImmutableList.of())
   }
 
+  /**
+   * Loads up to [pageSize] submissions in order of server modification time, then id, starting
+   * after the one at [startAfter], or from the first submission if null. If [modifiedSince] is
+   * specified, only submissions last modified on the server after that time are loaded. The LOIs of
+   * submissions in the page are looked up using [getLocationsOfInterest].
+   *
+   * Submissions without a server modification time are never returned, since Firestore excludes
+   * documents missing the ordered field from query results.
+   */
+  fun page(
+    modifiedSince: Date?,
+    startAfter: SubmissionCursor?,
+    pageSize: Int,
+    getLocationsOfInterest: (Collection<String>) -> Single<ImmutableList<LocationOfInterest>>
+  ): @Cold Single<SubmissionPage> {
+    val modified =
+      if (modifiedSince == null) reference()
+      else reference().whereGreaterThan(LAST_MODIFIED_SERVER_TIMESTAMP, Timestamp(modifiedSince))
+    val ordered =
+      modified
+        .orderBy(LAST_MODIFIED_SERVER_TIMESTAMP)
+        .orderBy(FieldPath.documentId())
+        .limit(pageSize.toLong())
+    val query =
+      if (startAfter == null) ordered
+      else
+        ordered.startAfter(toTimestamp(startAfter.serverTimestampMicros), startAfter.submissionId)
+    return RxFirestore.getCollection(query)
+      .flatMapSingleElement { querySnapshot: QuerySnapshot ->
+        toPage(querySnapshot.documents, pageSize, getLocationsOfInterest)
+      }
+      .toSingle(SubmissionPage(ImmutableList.of(), null, true))
+  }
+
+  @VisibleForTesting
+  internal fun toPage(
+    documents: List<DocumentSnapshot>,
+    pageSize: Int,
+    getLocationsOfInterest: (Collection<String>) -> Single<ImmutableList<LocationOfInterest>>
+  ): @Cold Single<SubmissionPage> {
+    val loiIds = documents.mapNotNull { it.getString(SubmissionMutationConverter.LOI_ID) }.toSet()
+    return getLocationsOfInterest(loiIds).map { lois: ImmutableList<LocationOfInterest> ->
+      val loisById = lois.associateBy { it.id }
+      SubmissionPage(
+        documents.map { doc -> runCatching { toSubmission(loisById, doc) } }.toImmutableList(),
+        documents.lastOrNull()?.let { toCursor(it) },
+        documents.size < pageSize,
+        documents
+          .firstOrNull { !loisById.containsKey(it.getString(SubmissionMutationConverter.LOI_ID)) }
+          ?.let { toCursor(it) }
+      )
+    }
+  }
+
+  private fun toCursor(doc: DocumentSnapshot): SubmissionCursor {
+    val serverTimestamp = doc.get(LAST_MODIFIED_SERVER_TIMESTAMP) as Timestamp
+    return SubmissionCursor(
+      serverTimestamp.seconds * MICROS_PER_SECOND + serverTimestamp.nanoseconds / NANOS_PER_MICRO,
+      doc.id
+    )
+  }
+
+  private fun toTimestamp(micros: Long): Timestamp =
+    Timestamp(
+      Math.floorDiv(micros, MICROS_PER_SECOND),
+      (Math.floorMod(micros, MICROS_PER_SECOND) * NANOS_PER_MICRO).toInt()
+    )
+
+  private fun toSubmission(
+    loisById: Map<String, LocationOfInterest>,
+    doc: DocumentSnapshot
+  ): Submission {
+    val loiId = doc.getString(SubmissionMutationConverter.LOI_ID)
+    val loi = loisById[loiId] ?: throw DataStoreException("LOI $loiId of ${doc.id} not found")
+    return SubmissionConverter.toSubmission(loi, doc)
+  }
+
   private fun convert(
     querySnapshot: QuerySnapshot,
     locationOfInterest: LocationOfInterest
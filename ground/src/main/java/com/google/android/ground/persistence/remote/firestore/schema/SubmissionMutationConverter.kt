@@ -34,7 +34,7 @@ internal object SubmissionMutationConverter {
   private const val JOB_ID = "jobId"
   private const val RESPONSES = "responses"
   private const val CREATED = "created"
-  private const val LAST_MODIFIED = "lastModified"
+  const val LAST_MODIFIED = "lastModified"
 
   @Throws(DataStoreException::class)
   fun toMap(mutation: SubmissionMutation, user: User): ImmutableMap<String, Any> {
@@ -38,6 +38,12 @@ internal abstract class BaseWorkManager {
    */
   protected open fun preferredNetworkType(): NetworkType = DEFAULT_NETWORK_TYPE
 
+  /**
+   * Override this method to delay the start of newly enqueued work, for example to allow several
+   * requests made in quick succession to be handled by a single worker.
+   */
+  protected open fun initialDelayMillis(): Long = 0
+
   /** A class extending [BaseWorker] which gets scheduled for a request. */
   protected abstract val workerClass: Class<out BaseWorker?>
 
@@ -51,6 +57,7 @@ internal abstract class BaseWorkManager {
       OneTimeWorkRequest.Builder(workerClass)
         .setConstraints(workerConstraints)
         .setBackoffCriteria(BACKOFF_POLICY, BACKOFF_DELAY_MILLIS, TimeUnit.MILLISECONDS)
+        .setInitialDelay(initialDelayMillis(), TimeUnit.MILLISECONDS)
 
     if (inputData != null) {
       builder.setInputData(inputData)
@@ -52,7 +52,8 @@ internal constructor(
       transferProgress.state,
       notificationTitle,
       transferProgress.byteCount,
-      transferProgress.bytesTransferred
+      transferProgress.bytesTransferred,
+      transferProgress.bytesPerSecond
     )
 
   /**
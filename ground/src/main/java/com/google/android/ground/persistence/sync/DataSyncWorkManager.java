@@ -16,7 +16,6 @@
 
 package com.google.android.ground.persistence.sync;
 
-import androidx.work.Data;
 import androidx.work.ExistingWorkPolicy;
 import androidx.work.WorkManager;
 import io.reactivex.Completable;
@@ -25,6 +24,11 @@ import javax.inject.Inject;
 /** Enqueues data sync work to be done in the background. */
 public class DataSyncWorkManager extends BaseWorkManager {
 
+  /** Delay before syncing, so that changes made in quick succession are uploaded together. */
+  private static final long SYNC_DEBOUNCE_MILLIS = 5_000;
+
+  private static final String SYNC_WORK_NAME = LocalMutationSyncWorker.class.getName();
+
   private final WorkManager workManager;
 
   @Inject
@@ -37,25 +41,26 @@ public class DataSyncWorkManager extends BaseWorkManager {
     return LocalMutationSyncWorker.class;
   }
 
+  @Override
+  protected long initialDelayMillis() {
+    return SYNC_DEBOUNCE_MILLIS;
+  }
+
   /**
-   * Enqueues a worker that sends changes made locally to the remote data store once a network
-   * connection is available. The returned {@code Completable} completes immediately as soon as the
-   * worker is added to the work queue (not once the sync job completes).
+   * Enqueues a worker that sends all pending changes made locally to the remote data store once a
+   * network connection is available. The returned {@code Completable} completes immediately as
+   * soon as the worker is added to the work queue (not once the sync job completes).
    */
-  public Completable enqueueSyncWorker(String locationOfInterestId) {
-    return Completable.fromRunnable(() -> enqueueSyncWorkerInternal(locationOfInterestId));
+  public Completable enqueueSyncWorker() {
+    return Completable.fromRunnable(this::enqueueSyncWorkerInternal);
   }
 
-  private void enqueueSyncWorkerInternal(String locationOfInterestId) {
-    // Rather than having running workers monitor the queue for new mutations for their respective
-    // locationOfInterestId, we instead queue a new worker on each new mutation. This simplifies the
-    // worker
-    // implementation and avoids race conditions in the rare event the worker finishes just when new
-    // mutations are added to the db.
-    Data inputData = LocalMutationSyncWorker.Companion.createInputData(locationOfInterestId);
+  private void enqueueSyncWorkerInternal() {
+    // Each worker drains all pending mutations when it starts, so a worker appended behind one
+    // which is still waiting to start finds nothing left to sync and finishes right away. Appending
+    // rather than keeping the existing work ensures mutations added while a worker is running are
+    // still synced once it completes.
     workManager.enqueueUniqueWork(
-        LocalMutationSyncWorker.class.getName(),
-        ExistingWorkPolicy.APPEND,
-        buildWorkerRequest(inputData));
+        SYNC_WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, buildWorkerRequest());
   }
 }
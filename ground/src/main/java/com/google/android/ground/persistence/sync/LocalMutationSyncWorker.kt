@@ -17,22 +17,26 @@ package com.google.android.ground.persistence.sync
 
 import android.content.Context
 import androidx.hilt.work.HiltWorker
-import androidx.work.Data
 import androidx.work.WorkerParameters
+import com.google.android.ground.Config
 import com.google.android.ground.R
 import com.google.android.ground.model.User
 import com.google.android.ground.model.mutation.LocationOfInterestMutation
 import com.google.android.ground.model.mutation.Mutation
+import com.google.android.ground.model.mutation.Mutation.SyncStatus
+import com.google.android.ground.model.mutation.MutationCompactor
 import com.google.android.ground.model.mutation.SubmissionMutation
 import com.google.android.ground.model.submission.TaskDataDelta
 import com.google.android.ground.model.task.Task
 import com.google.android.ground.persistence.local.LocalDataStore
+import com.google.android.ground.persistence.remote.DataStoreException
 import com.google.android.ground.persistence.remote.RemoteDataStore
-import com.google.android.ground.persistence.sync.LocalMutationSyncWorker.Companion.createInputData
 import com.google.android.ground.system.NotificationManager
 import com.google.android.ground.util.toImmutableList
 import com.google.common.collect.ImmutableList
+import com.google.common.collect.Lists
 import com.google.firebase.crashlytics.FirebaseCrashlytics
+import com.google.firebase.firestore.FirebaseFirestoreException
 import dagger.assisted.Assisted
 import dagger.assisted.AssistedInject
 import io.reactivex.Completable
@@ -40,9 +44,15 @@ import io.reactivex.Observable
 import timber.log.Timber
 
 /**
- * A worker that syncs local changes to the remote data store. Each instance handles mutations for a
- * specific map location of interest, whose id is provided in the [Data] object built by
- * [createInputData] and provided to the worker request while being enqueued.
+ * A worker that syncs all pending local changes to the remote data store. Mutations are uploaded in
+ * batches of at most [Config.FIRESTORE_MAX_BATCH_WRITES], each of which is marked as completed as
+ * soon as it has been written. When a batch is rejected by the remote data store, it is split in
+ * half and each half retried until the mutations causing the failure are isolated, so that the rest
+ * can still be synced. Mutations which are rejected on their own
+ * [Config.MAX_MUTATION_SYNC_ATTEMPTS] times are marked as failed and are no longer retried.
+ *
+ * Other errors, such as the network being unavailable, would fail every half alike, so the sync is
+ * instead stopped and retried later with backoff, without counting against any mutation's attempts.
  */
 @HiltWorker
 class LocalMutationSyncWorker
@@ -60,57 +70,128 @@ constructor(
   override val notificationTitle: String
     get() = applicationContext.getString(R.string.uploading_data)
 
-  private val locationOfInterestId: String =
-    params.inputData.getString(LOCATION_OF_INTEREST_ID_PARAM_KEY)!!
-
   override fun doWork(): Result {
-    Timber.d("Connected. Syncing changes to location of interest $locationOfInterestId")
-    val mutations: ImmutableList<Mutation> =
-      localDataStore.getPendingMutations(locationOfInterestId).blockingGet()
+    val mutations: ImmutableList<Mutation> = localDataStore.allPendingMutations.blockingGet()
+    Timber.d("Connected. Syncing ${mutations.size} pending changes")
+    if (mutations.isEmpty()) return Result.success()
+    val syncedMutations = mutableSetOf<Mutation>()
+    val failedMutations = mutableMapOf<Mutation, Throwable>()
     return try {
-      Timber.v("Mutations: $mutations")
-      processMutations(mutations)
+      val startTimeMillis = System.currentTimeMillis()
+      processMutations(mutations, syncedMutations, failedMutations)
         .compose { completable: Completable -> this.notifyTransferState(completable) }
         .blockingAwait()
-      Result.success()
+      Timber.d(
+        "Synced ${syncedMutations.size} of ${mutations.size} changes in " +
+          "${System.currentTimeMillis() - startTimeMillis}ms"
+      )
+      val updatedMutations = recordFailures(failedMutations)
+      // Retry with backoff while any of the failed mutations may still be retried.
+      if (updatedMutations.any { it.syncStatus != SyncStatus.FAILED }) Result.retry()
+      else Result.success()
     } catch (t: Throwable) {
-      FirebaseCrashlytics.getInstance()
-        .log("Error applying remote updates to location of interest $locationOfInterestId")
+      FirebaseCrashlytics.getInstance().log("Error applying remote updates")
       FirebaseCrashlytics.getInstance().recordException(t)
-      Timber.e(t, "Remote updates for location of interest $locationOfInterestId failed")
-      localDataStore.updateMutations(incrementRetryCounts(mutations, t)).blockingAwait()
+      Timber.e(t, "Remote updates failed, retrying remaining changes later")
+      recordFailures(failedMutations)
       Result.retry()
     }
   }
 
+  /**
+   * Increments the retry count of each mutation rejected before the sync completed or stopped, and
+   * returns the updated mutations.
+   */
+  private fun recordFailures(failedMutations: Map<Mutation, Throwable>): List<Mutation> {
+    if (failedMutations.isEmpty()) return listOf()
+    val updatedMutations =
+      failedMutations.map { (mutation, error) -> incrementRetryCount(mutation, error) }
+    localDataStore.updateMutations(updatedMutations.toImmutableList()).blockingAwait()
+    return updatedMutations
+  }
+
   /**
    * Groups mutations by user id, loads each user, applies mutations, and removes processed
-   * mutations.
+   * mutations. Mutations which were successfully synced are added to [syncedMutations], and those
+   * which failed on their own are added to [failedMutations].
    */
-  private fun processMutations(pendingMutations: ImmutableList<Mutation>): Completable {
+  private fun processMutations(
+    pendingMutations: ImmutableList<Mutation>,
+    syncedMutations: MutableSet<Mutation>,
+    failedMutations: MutableMap<Mutation, Throwable>
+  ): Completable {
     val mutationsByUserId: Map<String, List<Mutation>> = groupByUserId(pendingMutations)
     val userIds = mutationsByUserId.keys
-    return Observable.fromIterable(userIds).flatMapCompletable { userId: String ->
+    return Observable.fromIterable(userIds).concatMapCompletable { userId: String ->
       val mutations = mutationsByUserId[userId]?.toImmutableList() ?: ImmutableList.of()
-      processMutations(mutations, userId)
+      processMutations(mutations, userId, syncedMutations, failedMutations)
     }
   }
 
   /** Loads each user with specified id, applies mutations, and removes processed mutations. */
-  private fun processMutations(mutations: ImmutableList<Mutation>, userId: String): Completable {
+  private fun processMutations(
+    mutations: ImmutableList<Mutation>,
+    userId: String,
+    syncedMutations: MutableSet<Mutation>,
+    failedMutations: MutableMap<Mutation, Throwable>
+  ): Completable {
     return localDataStore
       .getUser(userId)
-      .flatMapCompletable { user: User -> processMutations(mutations, user) }
       .doOnError { Timber.d("User account removed before mutation processed") }
+      .toMaybe()
       .onErrorComplete()
+      .flatMapCompletable { user: User ->
+        Observable.fromIterable(Lists.partition(mutations, Config.FIRESTORE_MAX_BATCH_WRITES))
+          .concatMapCompletable { batch ->
+            processBatch(batch, user, syncedMutations, failedMutations)
+          }
+      }
   }
 
-  /** Applies mutations to remote data store. Once successful, removes them from the local db. */
+  /**
+   * Applies a batch of mutations. If the batch is rejected, each half is retried separately,
+   * recursing until the rejected mutations are isolated and recorded in [failedMutations]. Any
+   * other error is propagated so that the whole sync is retried.
+   */
+  private fun processBatch(
+    batch: List<Mutation>,
+    user: User,
+    syncedMutations: MutableSet<Mutation>,
+    failedMutations: MutableMap<Mutation, Throwable>
+  ): Completable =
+    processMutations(batch.toImmutableList(), user)
+      .doOnComplete { syncedMutations.addAll(batch) }
+      .onErrorResumeNext { error: Throwable ->
+        if (!isRejection(error)) {
+          Completable.error(error)
+        } else if (batch.size == 1) {
+          Timber.e(error, "Mutation failed to sync: ${batch[0]}")
+          failedMutations[batch[0]] = error
+          Completable.complete()
+        } else {
+          Timber.w(error, "Batch of ${batch.size} mutations failed, retrying each half")
+          val half = batch.size / 2
+          processBatch(batch.subList(0, half), user, syncedMutations, failedMutations)
+            .andThen(
+              Completable.defer {
+                val rest = batch.subList(half, batch.size)
+                processBatch(rest, user, syncedMutations, failedMutations)
+              }
+            )
+        }
+      }
+
+  /**
+   * Applies mutations to remote data store in a single batch. Once successful, removes them from
+   * the local db. Successive mutations to the same entity are folded so that each is only written
+   * once.
+   */
   private fun processMutations(mutations: ImmutableList<Mutation>, user: User): Completable {
+    val compactedMutations = MutationCompactor.compact(mutations)
     return remoteDataStore
-      .applyMutations(mutations, user)
+      .applyMutations(compactedMutations, user)
       .andThen(
-        processPhotoFieldMutations(mutations)
+        processPhotoFieldMutations(compactedMutations)
       ) // TODO: If the remote sync fails, reset the state to DEFAULT.
       .andThen(localDataStore.finalizePendingMutations(mutations))
   }
@@ -136,26 +217,42 @@ constructor(
     pendingMutations: ImmutableList<Mutation>
   ): Map<String, List<Mutation>> = pendingMutations.groupBy { it.userId }
 
-  private fun incrementRetryCounts(
-    mutations: ImmutableList<Mutation>,
-    error: Throwable
-  ): ImmutableList<Mutation> =
-    mutations.map { m: Mutation -> incrementRetryCount(m, error) }.toImmutableList()
+  /**
+   * Returns true if the specified error means that the remote data store rejected the mutations
+   * themselves, such that retrying them unchanged would fail again. Mutations which can't be
+   * converted for the remote data store are treated the same way.
+   */
+  private fun isRejection(error: Throwable): Boolean =
+    when (error) {
+      is FirebaseFirestoreException -> error.code in REJECTION_CODES
+      is DataStoreException -> true
+      else -> false
+    }
 
-  private fun incrementRetryCount(mutation: Mutation, error: Throwable): Mutation =
-    when (mutation) {
+  /**
+   * Increments the retry count of the specified mutation, marking it as failed once it reaches
+   * [Config.MAX_MUTATION_SYNC_ATTEMPTS].
+   */
+  private fun incrementRetryCount(mutation: Mutation, error: Throwable): Mutation {
+    val retryCount = mutation.retryCount + 1
+    val syncStatus =
+      if (retryCount >= Config.MAX_MUTATION_SYNC_ATTEMPTS) SyncStatus.FAILED
+      else mutation.syncStatus
+    val lastError = error.toString()
+    return when (mutation) {
       is LocationOfInterestMutation ->
-        mutation.copy(retryCount = mutation.retryCount + 1, lastError = error.toString())
+        mutation.copy(retryCount = retryCount, lastError = lastError, syncStatus = syncStatus)
       is SubmissionMutation ->
-        mutation.copy(retryCount = mutation.retryCount + 1, lastError = error.toString())
+        mutation.copy(retryCount = retryCount, lastError = lastError, syncStatus = syncStatus)
     }
+  }
 
   companion object {
-    private const val LOCATION_OF_INTEREST_ID_PARAM_KEY = "locationOfInterestId"
-
-    /** Returns a new work [Data] object containing the specified location of interest id. */
-    @JvmStatic
-    fun createInputData(locationOfInterestId: String): Data =
-      Data.Builder().putString(LOCATION_OF_INTEREST_ID_PARAM_KEY, locationOfInterestId).build()
+    private val REJECTION_CODES =
+      setOf(
+        FirebaseFirestoreException.Code.INVALID_ARGUMENT,
+        FirebaseFirestoreException.Code.PERMISSION_DENIED,
+        FirebaseFirestoreException.Code.FAILED_PRECONDITION
+      )
   }
 }
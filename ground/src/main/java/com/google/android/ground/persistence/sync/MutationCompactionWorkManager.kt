@@ -0,0 +1,60 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.persistence.sync
+
+import androidx.work.Constraints
+import androidx.work.ExistingPeriodicWorkPolicy
+import androidx.work.PeriodicWorkRequest
+import androidx.work.WorkManager
+import com.google.android.ground.Config
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+
+/**
+ * Schedules periodic removal of completed mutations from the local db. Unlike sync work, this
+ * doesn't need a network connection, so it only waits for the battery not to be low.
+ */
+class MutationCompactionWorkManager @Inject constructor(private val workManager: WorkManager) {
+
+  /**
+   * Schedules daily compaction, keeping completed mutations for [retentionDays]. Calling this when
+   * the work is already scheduled has no effect.
+   */
+  @JvmOverloads
+  fun enqueuePeriodicCompactionWorker(
+    retentionDays: Int = Config.COMPLETED_MUTATION_RETENTION_DAYS
+  ) {
+    val request =
+      PeriodicWorkRequest.Builder(
+          MutationCompactionWorker::class.java,
+          COMPACTION_INTERVAL_DAYS,
+          TimeUnit.DAYS
+        )
+        .setConstraints(Constraints.Builder().setRequiresBatteryNotLow(true).build())
+        .setInputData(MutationCompactionWorker.createInputData(retentionDays))
+        .build()
+    workManager.enqueueUniquePeriodicWork(
+      MutationCompactionWorker::class.java.name,
+      ExistingPeriodicWorkPolicy.KEEP,
+      request
+    )
+  }
+
+  companion object {
+    private const val COMPACTION_INTERVAL_DAYS = 1L
+  }
+}
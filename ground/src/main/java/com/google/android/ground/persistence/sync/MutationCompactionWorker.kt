@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.persistence.sync
+
+import android.content.Context
+import androidx.hilt.work.HiltWorker
+import androidx.work.Data
+import androidx.work.Worker
+import androidx.work.WorkerParameters
+import com.google.android.ground.Config
+import com.google.android.ground.persistence.local.LocalDataStore
+import dagger.assisted.Assisted
+import dagger.assisted.AssistedInject
+import java.util.concurrent.TimeUnit
+import timber.log.Timber
+
+/**
+ * A worker that removes completed mutations older than the retention window provided in the [Data]
+ * built by [createInputData], so that scans of the mutation queue stay proportional to the number
+ * of pending mutations rather than to the full history of the device. The number of mutations
+ * removed is reported in the output data under [ROWS_REMOVED_KEY].
+ */
+@HiltWorker
+class MutationCompactionWorker
+@AssistedInject
+constructor(
+  @Assisted context: Context,
+  @Assisted params: WorkerParameters,
+  private val localDataStore: LocalDataStore
+) : Worker(context, params) {
+
+  private val retentionDays: Int =
+    params.inputData.getInt(RETENTION_DAYS_PARAM_KEY, Config.COMPLETED_MUTATION_RETENTION_DAYS)
+
+  override fun doWork(): Result =
+    try {
+      val cutoffTimestamp =
+        System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays.toLong())
+      val removed =
+        localDataStore
+          .deleteCompletedMutations(cutoffTimestamp, Config.MUTATION_COMPACTION_BATCH_SIZE)
+          .blockingGet()
+      Timber.i("Removed $removed completed mutations older than $retentionDays days")
+      Result.success(Data.Builder().putInt(ROWS_REMOVED_KEY, removed).build())
+    } catch (t: Throwable) {
+      Timber.e(t, "Mutation compaction failed")
+      Result.retry()
+    }
+
+  companion object {
+    private const val RETENTION_DAYS_PARAM_KEY = "retentionDays"
+
+    /** Key of the number of removed mutations in the worker's output data. */
+    const val ROWS_REMOVED_KEY = "rowsRemoved"
+
+    /** Returns a new work [Data] object containing the specified retention window. */
+    @JvmStatic
+    fun createInputData(retentionDays: Int): Data =
+      Data.Builder().putInt(RETENTION_DAYS_PARAM_KEY, retentionDays).build()
+  }
+}
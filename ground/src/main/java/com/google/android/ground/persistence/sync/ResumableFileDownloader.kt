@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.sync
+
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.InputStream
+import java.net.HttpURLConnection
+import java.net.URL
+import java.nio.ByteBuffer
+import java.nio.channels.Channels
+import javax.inject.Inject
+
+/**
+ * Downloads files over HTTP. Bytes are written to the target file as they are received, so the
+ * length of a partially downloaded file is always the number of bytes transferred so far; if the
+ * target file already exists, the download resumes from its current length using an HTTP Range
+ * request.
+ */
+class ResumableFileDownloader @Inject constructor() {
+
+  /**
+   * Downloads the resource at [url] to [file], resuming from the current length of [file] if it
+   * exists. Returns the number of bytes transferred.
+   */
+  @Throws(IOException::class)
+  fun download(url: URL, file: File): Long {
+    val offset = file.length()
+    val connection = url.openConnection() as HttpURLConnection
+    try {
+      // For more info see: https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Range
+      if (offset > 0) {
+        connection.setRequestProperty("Range", "bytes=$offset-")
+      }
+      return when (val responseCode = connection.responseCode) {
+        HttpURLConnection.HTTP_PARTIAL -> copy(connection.inputStream, file, append = true)
+        // The server ignored the Range header and is returning the whole file.
+        HttpURLConnection.HTTP_OK -> copy(connection.inputStream, file, append = false)
+        // The file was already completely downloaded.
+        HTTP_RANGE_NOT_SATISFIABLE -> if (offset > 0) 0 else throw unexpectedResponse(responseCode)
+        else -> throw unexpectedResponse(responseCode)
+      }
+    } finally {
+      connection.disconnect()
+    }
+  }
+
+  private fun copy(input: InputStream, file: File, append: Boolean): Long {
+    var bytesTransferred = 0L
+    Channels.newChannel(input).use { source ->
+      FileOutputStream(file, append).channel.use { target ->
+        val buffer = ByteBuffer.allocateDirect(BUFFER_SIZE)
+        while (source.read(buffer) >= 0) {
+          buffer.flip()
+          while (buffer.hasRemaining()) {
+            bytesTransferred += target.write(buffer)
+          }
+          buffer.clear()
+        }
+      }
+    }
+    return bytesTransferred
+  }
+
+  private fun unexpectedResponse(responseCode: Int) =
+    IOException("Unexpected HTTP response code $responseCode")
+
+  companion object {
+    private const val BUFFER_SIZE = 64 * 1024
+    private const val HTTP_RANGE_NOT_SATISFIABLE = 416
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.persistence.sync
+
+import androidx.work.BackoffPolicy
+import androidx.work.Constraints
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequest
+import androidx.work.WorkManager
+import androidx.work.WorkRequest
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+
+/**
+ * Enqueues background prefetching of submissions in a survey. Each survey has its own unique work,
+ * so activating a survey again while its prefetch is still enqueued or running doesn't restart it.
+ */
+class SubmissionPrefetchWorkManager @Inject constructor(private val workManager: WorkManager) {
+
+  /**
+   * Enqueues a worker which loads submissions in the specified survey modified since the last
+   * completed prefetch into the local db once a network connection is available, unless a prefetch
+   * of the survey is already enqueued or running.
+   */
+  fun enqueueSubmissionPrefetchWorker(surveyId: String) {
+    val request =
+      OneTimeWorkRequest.Builder(SubmissionPrefetchWorker::class.java)
+        .setConstraints(
+          Constraints.Builder()
+            .setRequiredNetworkType(NetworkType.CONNECTED)
+            .setRequiresBatteryNotLow(true)
+            .build()
+        )
+        .setBackoffCriteria(
+          BackoffPolicy.EXPONENTIAL,
+          WorkRequest.MIN_BACKOFF_MILLIS,
+          TimeUnit.MILLISECONDS
+        )
+        .setInputData(SubmissionPrefetchWorker.createInputData(surveyId))
+        .build()
+    workManager.enqueueUniqueWork(
+      SubmissionPrefetchWorker::class.java.name + surveyId,
+      ExistingWorkPolicy.KEEP,
+      request
+    )
+  }
+}
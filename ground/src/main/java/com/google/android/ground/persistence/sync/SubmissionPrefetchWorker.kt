@@ -0,0 +1,143 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.persistence.sync
+
+import android.content.Context
+import androidx.hilt.work.HiltWorker
+import androidx.work.Data
+import androidx.work.Worker
+import androidx.work.WorkerParameters
+import com.google.android.ground.Config
+import com.google.android.ground.model.Survey
+import com.google.android.ground.persistence.local.LocalDataStore
+import com.google.android.ground.persistence.local.LocalValueStore
+import com.google.android.ground.persistence.remote.RemoteDataStore
+import com.google.android.ground.persistence.remote.SubmissionCursor
+import com.google.android.ground.repository.SurveyRepository
+import com.google.android.ground.util.toImmutableList
+import dagger.assisted.Assisted
+import dagger.assisted.AssistedInject
+import java.util.Date
+import timber.log.Timber
+
+/**
+ * A worker that copies submissions in the survey specified in the [Data] built by [createInputData]
+ * from the remote db into the local db, so that they can be browsed offline. Submissions are loaded
+ * in order of server modification time in pages of the size specified in the input data, each of
+ * which is merged into the local db in a single transaction before the next one is loaded, so
+ * memory use doesn't grow with the size of the survey. The position of the last merged submission
+ * is saved after each page, so that the prefetch resumes where it left off if the worker is stopped
+ * or retried. Once all pages have been merged, the modification time of the newest submission is
+ * saved as a watermark, so that later prefetches only load submissions modified since.
+ *
+ * Submissions which have not yet been assigned a server modification time are skipped; they are
+ * loaded on demand when their LOI is opened. Submissions whose LOI hasn't been synced to the local
+ * db yet are skipped too, but the watermark is kept before the oldest of them, so that the next
+ * prefetch loads them again once their LOI has arrived.
+ */
+@HiltWorker
+class SubmissionPrefetchWorker
+@AssistedInject
+constructor(
+  @Assisted context: Context,
+  @Assisted params: WorkerParameters,
+  private val localDataStore: LocalDataStore,
+  private val localValueStore: LocalValueStore,
+  private val remoteDataStore: RemoteDataStore,
+  private val surveyRepository: SurveyRepository
+) : Worker(context, params) {
+
+  private val surveyId: String? = params.inputData.getString(SURVEY_ID_PARAM_KEY)
+  private val pageSize: Int =
+    params.inputData.getInt(PAGE_SIZE_PARAM_KEY, Config.SUBMISSION_PREFETCH_PAGE_SIZE)
+
+  override fun doWork(): Result {
+    if (surveyId == null) return Result.failure()
+    return try {
+      val survey = surveyRepository.getLocalSurvey(surveyId).blockingGet()
+      if (survey == null) {
+        Timber.w("Survey $surveyId not found locally, skipping submission prefetch")
+        Result.success()
+      } else {
+        prefetchSubmissions(survey)
+      }
+    } catch (t: Throwable) {
+      Timber.e(t, "Submission prefetch failed")
+      Result.retry()
+    }
+  }
+
+  private fun prefetchSubmissions(survey: Survey): Result {
+    val watermarkMillis = localValueStore.getSubmissionPrefetchWatermarkMillis(survey.id)
+    val modifiedSince = if (watermarkMillis == 0L) null else Date(watermarkMillis)
+    var cursor = localValueStore.getSubmissionPrefetchCursor(survey.id)
+    Timber.d("Prefetching submissions in ${survey.id} modified since $modifiedSince after $cursor")
+    var mergedCount = 0
+    var firstMissingLoiCursor: SubmissionCursor? = null
+    do {
+      if (isStopped) return Result.retry()
+      val page =
+        remoteDataStore
+          .loadSubmissionsPage(survey, modifiedSince, cursor, pageSize) {
+            localDataStore.getLocationsOfInterest(survey, it)
+          }
+          .blockingGet()
+      val submissions =
+        page.submissions
+          .mapNotNull { result ->
+            result.onFailure { Timber.d(it, "Skipping submission in prefetch") }.getOrNull()
+          }
+          .toImmutableList()
+      localDataStore.mergeSubmissions(submissions).blockingAwait()
+      mergedCount += submissions.size
+      cursor = page.lastCursor ?: cursor
+      firstMissingLoiCursor = firstMissingLoiCursor ?: page.firstMissingLoiCursor
+      localValueStore.setSubmissionPrefetchCursor(survey.id, cursor)
+    } while (!page.isLastPage)
+    // Next time, only load submissions modified after the newest one merged, or from the oldest one
+    // skipped for lack of a LOI, so that it's retried.
+    val watermarkMillis =
+      if (firstMissingLoiCursor != null) {
+        Timber.d("Prefetch will be retried from $firstMissingLoiCursor, whose LOI isn't local")
+        (firstMissingLoiCursor.serverTimestampMicros - 1) / MICROS_PER_MILLI
+      } else cursor?.let { it.serverTimestampMicros / MICROS_PER_MILLI }
+    if (watermarkMillis != null) {
+      localValueStore.setSubmissionPrefetchWatermarkMillis(survey.id, watermarkMillis)
+    }
+    localValueStore.setSubmissionPrefetchCursor(survey.id, null)
+    Timber.d("Prefetched $mergedCount submissions in ${survey.id}")
+    return Result.success()
+  }
+
+  companion object {
+    private const val SURVEY_ID_PARAM_KEY = "surveyId"
+    private const val PAGE_SIZE_PARAM_KEY = "pageSize"
+    private const val MICROS_PER_MILLI = 1_000L
+
+    /** Returns a new work [Data] object containing the specified survey id and page size. */
+    @JvmStatic
+    @JvmOverloads
+    fun createInputData(
+      surveyId: String,
+      pageSize: Int = Config.SUBMISSION_PREFETCH_PAGE_SIZE
+    ): Data =
+      Data.Builder()
+        .putString(SURVEY_ID_PARAM_KEY, surveyId)
+        .putInt(PAGE_SIZE_PARAM_KEY, pageSize)
+        .build()
+  }
+}
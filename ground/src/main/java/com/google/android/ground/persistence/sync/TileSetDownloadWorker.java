@@ -21,82 +21,75 @@ import androidx.annotation.NonNull;
 import androidx.hilt.work.HiltWorker;
 import androidx.work.Data;
 import androidx.work.WorkerParameters;
+import com.google.android.ground.Config;
 import com.google.android.ground.R;
 import com.google.android.ground.model.basemap.tile.TileSet;
 import com.google.android.ground.model.basemap.tile.TileSet.State;
 import com.google.android.ground.persistence.local.LocalDataStore;
 import com.google.android.ground.persistence.remote.TransferProgress;
+import com.google.android.ground.rx.Schedulers;
 import com.google.android.ground.system.NotificationManager;
 import com.google.common.collect.ImmutableList;
 import dagger.assisted.Assisted;
 import dagger.assisted.AssistedInject;
 import io.reactivex.Completable;
-import io.reactivex.Observable;
+import io.reactivex.Flowable;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import timber.log.Timber;
 
 /**
  * A worker that downloads files to the device in the background. The target URL and file name are
  * provided in a {@link Data} object. This worker should only run when the device has a network
- * connection.
+ * connection. Download progress and throughput are published as the worker's progress {@link
+ * Data}, keyed by {@link #COMPLETED_TILE_SET_COUNT_KEY}, {@link #BYTES_TRANSFERRED_KEY} and {@link
+ * #BYTES_PER_SECOND_KEY}. Throughput is also shown in the sync notification.
  */
 @HiltWorker
 public class TileSetDownloadWorker extends BaseWorker {
-  private static final int BUFFER_SIZE = 4096;
+  /** Key of the number of tile sets processed so far in the worker's progress data. */
+  public static final String COMPLETED_TILE_SET_COUNT_KEY = "completedTileSetCount";
+
+  /** Key of the number of bytes downloaded so far in the worker's progress data. */
+  public static final String BYTES_TRANSFERRED_KEY = "bytesTransferred";
+
+  /** Key of the average download throughput so far in the worker's progress data. */
+  public static final String BYTES_PER_SECOND_KEY = "bytesPerSecond";
 
   private final Context context;
   private final LocalDataStore localDataStore;
+  private final ResumableFileDownloader downloader;
+  private final Schedulers schedulers;
+
+  /** Total number of bytes transferred by this worker, used to report throughput. */
+  private final AtomicLong bytesTransferred = new AtomicLong();
 
   @AssistedInject
   public TileSetDownloadWorker(
       @Assisted @NonNull Context context,
       @Assisted @NonNull WorkerParameters params,
       LocalDataStore localDataStore,
+      ResumableFileDownloader downloader,
+      Schedulers schedulers,
       NotificationManager notificationManager) {
     super(context, params, notificationManager, TileSetDownloadWorker.class.hashCode());
     this.context = context;
     this.localDataStore = localDataStore;
+    this.downloader = downloader;
+    this.schedulers = schedulers;
   }
 
   /**
    * Given a tile, downloads the given {@param tile}'s source file and saves it to the device's app
-   * storage. Optional HTTP request header {@param requestProperties} may be provided.
+   * storage. Partially downloaded files are resumed from their current length.
    */
-  private void downloadTileFile(TileSet tileSet, Map<String, String> requestProperties)
-      throws TileSetDownloadException {
-
-    int mode = Context.MODE_PRIVATE;
-
+  private void downloadTileFile(TileSet tileSet) throws TileSetDownloadException {
     try {
-      URL url = new URL(tileSet.getUrl());
-      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-
-      if (!requestProperties.isEmpty()) {
-        for (Map.Entry<String, String> property : requestProperties.entrySet()) {
-          connection.setRequestProperty(property.getKey(), property.getValue());
-        }
-        mode = Context.MODE_APPEND;
-      }
-
-      connection.connect();
-
-      try (InputStream is = connection.getInputStream();
-          FileOutputStream fos = context.openFileOutput(tileSet.getPath(), mode)) {
-
-        byte[] byteChunk = new byte[BUFFER_SIZE];
-        int n;
-
-        while ((n = is.read(byteChunk)) > 0) {
-          fos.write(byteChunk, 0, n);
-        }
-      }
+      File file = new File(context.getFilesDir(), tileSet.getPath());
+      bytesTransferred.addAndGet(downloader.download(new URL(tileSet.getUrl()), file));
     } catch (IOException e) {
       throw new TileSetDownloadException("Failed to download tile", e);
     }
@@ -104,56 +97,37 @@ public class TileSetDownloadWorker extends BaseWorker {
 
   /** Update a tile's state in the database and initiate a download of the tile source file. */
   private Completable downloadTileSet(TileSet tileSet) {
-    Map<String, String> requestProperties = new HashMap<>();
-
-    // To resume a download for an in progress tile, we use the HTTP Range request property.
-    // The range property takes a range of bytes, the server returns the content of the resource
-    // that corresponds to the given byte range.
-    //
-    // To resume a download, we get the current length, in bytes, of the file on disk.
-    // appending '-' to the byte value tells the server to return the range of bytes from the given
-    // byte value to the end of the file, e.g. '500-' returns contents starting at byte 500 to EOF.
-    //
-    // Note that length returns 0 when the file does not exist, so this correctly handles an edge
-    // case whereby the local DB has a tile state of IN_PROGRESS but none of the file has been
-    // downloaded yet (since then we'll fetch the range '0-', the entire file).
-    //
-    // For more info see: https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Range
-    if (tileSet.getState() == State.IN_PROGRESS) {
-      File existingTileFile = new File(context.getFilesDir(), tileSet.getPath());
-      requestProperties.put("Range", "bytes=" + existingTileFile.length() + "-");
+    // Tile sets which were previously IN_PROGRESS or FAILED resume from the bytes already on disk,
+    // so any partial file left over from a pending tile set is stale and must be discarded.
+    if (tileSet.getState() == State.PENDING) {
+      File staleTileFile = new File(context.getFilesDir(), tileSet.getPath());
+      if (staleTileFile.exists() && !staleTileFile.delete()) {
+        Timber.w("Failed to delete stale tile file: %s", staleTileFile);
+      }
     }
 
     return localDataStore
-        .insertOrUpdateTileSet(
-            // TODO: When this class is converted to kotlin we can simply pass a named state
-            //  parameter to tileset.copy()
-            tileSet.copy(
-                tileSet.getUrl(),
-                tileSet.getId(),
-                tileSet.getPath(),
-                TileSet.State.IN_PROGRESS,
-                tileSet.getOfflineAreaReferenceCount()))
-        .andThen(Completable.fromRunnable(() -> downloadTileFile(tileSet, requestProperties)))
+        .insertOrUpdateTileSet(withState(tileSet, State.IN_PROGRESS))
+        .andThen(
+            Completable.fromRunnable(() -> downloadTileFile(tileSet))
+                .subscribeOn(schedulers.io()))
+        .andThen(localDataStore.insertOrUpdateTileSet(withState(tileSet, State.DOWNLOADED)))
         .onErrorResumeNext(
             e -> {
               Timber.d(e, "Failed to download tile: %s", tileSet);
-              return localDataStore.insertOrUpdateTileSet(
-                  tileSet.copy(
-                      tileSet.getUrl(),
-                      tileSet.getId(),
-                      tileSet.getPath(),
-                      TileSet.State.FAILED,
-                      tileSet.getOfflineAreaReferenceCount()));
-            })
-        .andThen(
-            localDataStore.insertOrUpdateTileSet(
-                tileSet.copy(
-                    tileSet.getUrl(),
-                    tileSet.getId(),
-                    tileSet.getPath(),
-                    TileSet.State.DOWNLOADED,
-                    tileSet.getOfflineAreaReferenceCount())));
+              return localDataStore.insertOrUpdateTileSet(withState(tileSet, State.FAILED));
+            });
+  }
+
+  private static TileSet withState(TileSet tileSet, State state) {
+    // TODO: When this class is converted to kotlin we can simply pass a named state
+    //  parameter to tileset.copy()
+    return tileSet.copy(
+        tileSet.getUrl(),
+        tileSet.getId(),
+        tileSet.getPath(),
+        state,
+        tileSet.getOfflineAreaReferenceCount());
   }
 
   /**
@@ -172,27 +146,48 @@ public class TileSetDownloadWorker extends BaseWorker {
   }
 
   private Completable processTileSets(ImmutableList<TileSet> pendingTileSets) {
-    return Observable.fromIterable(pendingTileSets)
-        .doOnNext(
-            tile ->
-                sendNotification(
-                    TransferProgress.inProgress(
-                        pendingTileSets.size(), pendingTileSets.indexOf(tile) + 1)))
+    AtomicInteger completedCount = new AtomicInteger();
+    long startTimeMillis = System.currentTimeMillis();
+    return Flowable.fromIterable(pendingTileSets)
         .flatMapCompletable(
-            t -> {
-              switch (t.getState()) {
-                case DOWNLOADED:
-                  return downloadIfNotFound(t);
-                case PENDING:
-                case IN_PROGRESS:
-                case FAILED:
-                default:
-                  return downloadTileSet(t);
-              }
-            })
+            t ->
+                processTileSet(t)
+                    .doOnComplete(
+                        () ->
+                            onTileSetProcessed(
+                                pendingTileSets.size(),
+                                completedCount.incrementAndGet(),
+                                startTimeMillis)),
+            false,
+            Config.MAX_CONCURRENT_TILE_SET_DOWNLOADS)
         .compose(this::notifyTransferState);
   }
 
+  private Completable processTileSet(TileSet tileSet) {
+    switch (tileSet.getState()) {
+      case DOWNLOADED:
+        return downloadIfNotFound(tileSet);
+      case PENDING:
+      case IN_PROGRESS:
+      case FAILED:
+      default:
+        return downloadTileSet(tileSet);
+    }
+  }
+
+  private void onTileSetProcessed(int tileSetCount, int completedCount, long startTimeMillis) {
+    long elapsedMillis = Math.max(1, System.currentTimeMillis() - startTimeMillis);
+    long bytes = bytesTransferred.get();
+    long bytesPerSecond = bytes * 1000 / elapsedMillis;
+    sendNotification(TransferProgress.inProgress(tileSetCount, completedCount, bytesPerSecond));
+    setProgressAsync(
+        new Data.Builder()
+            .putInt(COMPLETED_TILE_SET_COUNT_KEY, completedCount)
+            .putLong(BYTES_TRANSFERRED_KEY, bytes)
+            .putLong(BYTES_PER_SECOND_KEY, bytesPerSecond)
+            .build());
+  }
+
   /**
    * Given a tile identifier, downloads a tile source file and saves it to the app's file storage.
    * If the tile source file already exists on the device, this method returns {@code
@@ -20,6 +20,7 @@ import com.google.android.ground.model.geometry.LinearRing
 import com.google.android.ground.model.geometry.Point
 import com.google.android.ground.model.geometry.Polygon
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
+import com.google.android.ground.model.locationofinterest.LocationOfInterestChanges
 import com.google.android.ground.model.mutation.LocationOfInterestMutation
 import com.google.android.ground.model.mutation.Mutation
 import com.google.android.ground.model.mutation.Mutation.SyncStatus
@@ -31,13 +32,19 @@ import com.google.android.ground.persistence.remote.RemoteDataEvent
 import com.google.android.ground.persistence.remote.RemoteDataEvent.EventType.*
 import com.google.android.ground.persistence.remote.RemoteDataStore
 import com.google.android.ground.persistence.sync.DataSyncWorkManager
+import com.google.android.ground.persistence.sync.SubmissionPrefetchWorkManager
 import com.google.android.ground.persistence.uuid.OfflineUuidGenerator
 import com.google.android.ground.rx.annotations.Cold
 import com.google.android.ground.system.auth.AuthenticationManager
+import com.google.android.ground.ui.map.Bounds
+import com.google.android.ground.ui.map.LoiMapSummary
+import com.google.android.ground.util.toImmutableList
 import com.google.common.collect.ImmutableList
 import com.google.common.collect.ImmutableSet
 import io.reactivex.*
+import io.reactivex.functions.Action
 import java.util.*
+import java.util.concurrent.atomic.AtomicBoolean
 import javax.inject.Inject
 import javax.inject.Singleton
 import timber.log.Timber
@@ -56,47 +63,153 @@ constructor(
   private val remoteDataStore: RemoteDataStore,
   private val surveyRepository: SurveyRepository,
   private val dataSyncWorkManager: DataSyncWorkManager,
+  private val submissionPrefetchWorkManager: SubmissionPrefetchWorkManager,
   private val authManager: AuthenticationManager,
   private val uuidGenerator: OfflineUuidGenerator
 ) {
   /**
    * Mirrors locations of interest in the specified survey from the remote db into the local db when
-   * the network is available. When invoked, will first attempt to resync all locations of interest
-   * from the remote db, subsequently syncing only remote changes. The returned stream never
-   * completes, and subscriptions will only terminate on disposal.
+   * the network is available. When invoked, will first load locations of interest modified on the
+   * remote db since the latest one stored locally, so that the local db catches up quickly, then
+   * listens to all remote changes. The listener's first snapshot contains every location of
+   * interest in the survey, and is used to delete local copies of those deleted remotely. Once the
+   * first batch has been stored locally, submissions in the survey are prefetched in the
+   * background. The returned stream never completes, and subscriptions will only terminate on
+   * disposal.
    */
-  fun syncLocationsOfInterest(survey: Survey): @Cold Completable {
-    return remoteDataStore.loadLocationsOfInterestOnceAndStreamChanges(survey).flatMapCompletable {
-      updateLocalLocationOfInterest(it)
+  fun syncLocationsOfInterest(survey: Survey): @Cold Completable =
+    Completable.defer {
+      val isFirstBatch = AtomicBoolean(true)
+      val onBatchSynced = Action {
+        // Submissions can only be stored once the locations of interest they belong to are.
+        if (isFirstBatch.compareAndSet(true, false)) {
+          submissionPrefetchWorkManager.enqueueSubmissionPrefetchWorker(survey.id)
+        }
+      }
+      syncModifiedLocationsOfInterest(survey, onBatchSynced)
+        .andThen(streamLocationsOfInterest(survey, onBatchSynced))
+    }
+
+  /**
+   * Merges locations of interest modified on the remote db since the latest one stored locally.
+   * Completes without loading anything if none are stored locally.
+   */
+  private fun syncModifiedLocationsOfInterest(
+    survey: Survey,
+    onBatchSynced: Action
+  ): @Cold Completable =
+    localDataStore
+      .getLatestLocationOfInterestServerTimestamp(survey)
+      .flatMapCompletable { modifiedSince ->
+        remoteDataStore
+          .loadLocationsOfInterestModifiedSince(survey, modifiedSince)
+          .doOnSubscribe { Timber.d("Loading LOIs in ${survey.id} modified since $modifiedSince") }
+          .flatMapCompletable { updateLocalLocationsOfInterest(it) }
+          .doOnComplete(onBatchSynced)
+      }
+      .doOnError { Timber.e(it, "Failed to load modified LOIs in ${survey.id}") }
+      .onErrorComplete()
+
+  /**
+   * Streams all remote changes to locations of interest in the specified survey into the local db,
+   * replacing the local set with the first snapshot.
+   */
+  private fun streamLocationsOfInterest(survey: Survey, onBatchSynced: Action): @Cold Completable =
+    Completable.defer {
+      val isSnapshot = AtomicBoolean(true)
+      remoteDataStore
+        .loadLocationsOfInterestOnceAndStreamChanges(survey)
+        .concatMapCompletable { events ->
+          val update =
+            if (isSnapshot.getAndSet(false)) replaceLocalLocationsOfInterest(survey, events)
+            else updateLocalLocationsOfInterest(events)
+          update.doOnComplete(onBatchSynced)
+        }
     }
-  }
 
   // TODO: Remove "location of interest" qualifier from this and other repository method names.
-  private fun updateLocalLocationOfInterest(
-    event: RemoteDataEvent<LocationOfInterest>
+  /**
+   * Applies a batch of remote changes to the local db in a single write. When the same LOI appears
+   * more than once in the batch, only its last change is applied.
+   */
+  private fun updateLocalLocationsOfInterest(
+    events: List<RemoteDataEvent<LocationOfInterest>>
   ): @Cold Completable {
-    return event.result.fold(
-      { (entityId: String, entity: LocationOfInterest?) ->
-        when (event.eventType) {
-          ENTITY_LOADED,
-          ENTITY_MODIFIED -> localDataStore.mergeLocationOfInterest(checkNotNull(entity))
-          ENTITY_REMOVED -> localDataStore.deleteLocationOfInterest(entityId)
-          else -> throw IllegalArgumentException()
-        }
-      },
-      {
-        Timber.d(it, "Invalid locations of interest in remote db ignored")
-        Completable.complete()
-      }
+    val changes = toLatestChanges(events)
+    if (changes.isEmpty()) return Completable.complete()
+    return localDataStore.mergeLocationsOfInterest(
+      changes.values.filterNotNull().toImmutableList(),
+      ImmutableSet.copyOf(changes.filterValues { it == null }.keys)
     )
   }
 
+  /**
+   * Replaces the locations of interest in the local db with those in a complete snapshot of the
+   * remote db, deleting local copies of any which were deleted remotely.
+   */
+  private fun replaceLocalLocationsOfInterest(
+    survey: Survey,
+    events: List<RemoteDataEvent<LocationOfInterest>>
+  ): @Cold Completable =
+    localDataStore.replaceLocationsOfInterest(
+      survey,
+      toLatestChanges(events).values.filterNotNull().toImmutableList()
+    )
+
+  /** Returns the latest remote state of each LOI in the batch, keyed by id; null when removed. */
+  private fun toLatestChanges(
+    events: List<RemoteDataEvent<LocationOfInterest>>
+  ): Map<String, LocationOfInterest?> {
+    val changes = LinkedHashMap<String, LocationOfInterest?>()
+    for (event in events) {
+      event.result.fold(
+        { (entityId: String, entity: LocationOfInterest?) ->
+          changes[entityId] =
+            when (event.eventType) {
+              ENTITY_LOADED,
+              ENTITY_MODIFIED -> checkNotNull(entity)
+              ENTITY_REMOVED -> null
+              else -> throw IllegalArgumentException()
+            }
+        },
+        { Timber.d(it, "Invalid locations of interest in remote db ignored") }
+      )
+    }
+    return changes
+  }
+
   // TODO: Only return location of interest fields needed to render locations of interest on map.
   fun getLocationsOfInterestOnceAndStream(
     survey: Survey
   ): @Cold(terminates = false) Flowable<ImmutableSet<LocationOfInterest>> =
     localDataStore.getLocationsOfInterestOnceAndStream(survey)
 
+  /**
+   * Returns a long-lived stream of all LOIs in the specified survey on subscribe, followed by the
+   * LOIs added, changed or removed by each subsequent local write.
+   */
+  fun getLocationOfInterestChangesOnceAndStream(
+    survey: Survey
+  ): @Cold(terminates = false) Flowable<LocationOfInterestChanges> =
+    localDataStore.getLocationOfInterestChangesOnceAndStream(survey)
+
+  /**
+   * Returns a long-lived stream of map summaries of the LOIs in the specified survey whose bounding
+   * box intersects [bounds]. A new set is emitted each time a LOI is added/changed/removed.
+   */
+  fun getLocationOfInterestSummariesWithinBoundsOnceAndStream(
+    survey: Survey,
+    bounds: Bounds
+  ): @Cold(terminates = false) Flowable<ImmutableSet<LoiMapSummary>> =
+    localDataStore.getLocationOfInterestSummariesWithinBoundsOnceAndStream(survey, bounds)
+
+  /** Returns the locally cached LOIs in the specified survey with the specified ids. */
+  fun getLocationsOfInterest(
+    survey: Survey,
+    ids: Collection<String>
+  ): @Cold Single<ImmutableList<LocationOfInterest>> =
+    localDataStore.getLocationsOfInterest(survey, ids)
+
   fun getLocationOfInterest(
     locationOfInterestMutation: LocationOfInterestMutation
   ): @Cold Single<LocationOfInterest> =
@@ -162,7 +275,7 @@ constructor(
    */
   fun applyAndEnqueue(mutation: LocationOfInterestMutation): @Cold Completable {
     val localTransaction = localDataStore.applyAndEnqueue(mutation)
-    val remoteSync = dataSyncWorkManager.enqueueSyncWorker(mutation.locationOfInterestId)
+    val remoteSync = dataSyncWorkManager.enqueueSyncWorker()
     return localTransaction.andThen(remoteSync)
   }
 
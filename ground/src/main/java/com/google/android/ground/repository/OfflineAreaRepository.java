@@ -101,13 +101,15 @@ public class OfflineAreaRepository {
   @Cold
   private Completable enqueueDownload(OfflineArea area, ImmutableList<TileSet> tileSets) {
     return Flowable.fromIterable(tileSets)
-        .flatMapCompletable(
+        .concatMapSingle(
             tileSet ->
                 localDataStore
                     .getTileSet(tileSet.getUrl())
                     .map(TileSet::incrementOfflineAreaCount)
-                    .toSingle(tileSet)
-                    .flatMapCompletable(localDataStore::insertOrUpdateTileSet))
+                    .toSingle(tileSet))
+        .toList()
+        .flatMapCompletable(
+            updated -> localDataStore.insertOrUpdateTileSets(ImmutableList.copyOf(updated)))
         .doOnError(__ -> Timber.e("failed to add/update a tile in the database"))
         .andThen(
             localDataStore.insertOrUpdateOfflineArea(
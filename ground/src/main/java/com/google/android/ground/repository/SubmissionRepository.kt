@@ -15,6 +15,7 @@
  */
 package com.google.android.ground.repository
 
+import android.os.SystemClock
 import com.google.android.ground.model.AuditInfo
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
 import com.google.android.ground.model.mutation.Mutation
@@ -35,64 +36,89 @@ import io.reactivex.Completable
 import io.reactivex.Flowable
 import io.reactivex.Observable
 import io.reactivex.Single
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.TimeUnit
 import javax.inject.Inject
+import javax.inject.Singleton
 import timber.log.Timber
 
 private const val LOAD_REMOTE_SUBMISSIONS_TIMEOUT_SECS: Long = 15
 
+/** Time after which submissions for an LOI synced from the remote db are considered stale. */
+private const val SUBMISSIONS_FRESHNESS_TTL_MINUTES: Long = 5
+
 /**
  * Coordinates persistence and retrieval of [Submission] instances from remote, local, and in memory
  * data stores. For more details on this pattern and overall architecture, see
  * https://developer.android.com/jetpack/docs/guide.
  */
+@Singleton
 class SubmissionRepository
 @Inject
 constructor(
   private val localDataStore: LocalDataStore,
   private val remoteDataStore: RemoteDataStore,
   private val locationOfInterestRepository: LocationOfInterestRepository,
+  private val surveyRepository: SurveyRepository,
   private val dataSyncWorkManager: DataSyncWorkManager,
   private val uuidGenerator: OfflineUuidGenerator,
   private val authManager: AuthenticationManager
 ) {
+  /**
+   * Time of the last successful remote submission sync according to [SystemClock.elapsedRealtime],
+   * keyed by location of interest id.
+   */
+  private val lastSubmissionSyncMillis = ConcurrentHashMap<String, Long>()
 
   /**
-   * Retrieves the submissions or the specified survey, location of interest, and task.
-   *
-   * <ol> <li>Attempt to sync remote submission changes to the local data store. If network is not
-   * ```
-   *       available or operation times out, this step is skipped.
-   * ```
-   * <li>Relevant submissions are returned directly from the local data store. </ol>
+   * Returns the locally stored submissions for the specified survey, location of interest, and
+   * task on subscribe. If submissions for the location of interest haven't been synced from the
+   * remote db in the last [SUBMISSIONS_FRESHNESS_TTL_MINUTES], remote changes are then synced in
+   * the background, and the local submissions emitted again if they changed as a result.
    */
-  fun getSubmissions(
+  fun getSubmissionsOnceAndStream(
     surveyId: String,
     locationOfInterestId: String,
     taskId: String
-  ): @Cold Single<ImmutableList<Submission>> =
-    // TODO: Only fetch first n fields.
-    locationOfInterestRepository.getLocationOfInterest(surveyId, locationOfInterestId).flatMap {
-      locationOfInterest: LocationOfInterest ->
-      getSubmissions(locationOfInterest, taskId)
-    }
+  ): @Cold Flowable<ImmutableList<Submission>> =
+    locationOfInterestRepository
+      .getLocationOfInterest(surveyId, locationOfInterestId)
+      .flatMapPublisher { locationOfInterest: LocationOfInterest ->
+        val localSubmissions = localDataStore.getSubmissions(locationOfInterest, taskId)
+        localSubmissions
+          .toFlowable()
+          .concatWith(
+            Flowable.defer {
+              if (isSubmissionSyncFresh(locationOfInterest)) Flowable.empty()
+              else syncRemoteSubmissions(locationOfInterest).andThen(localSubmissions.toFlowable())
+            }
+          )
+          .distinctUntilChanged()
+      }
 
-  private fun getSubmissions(
-    locationOfInterest: LocationOfInterest,
-    taskId: String
-  ): @Cold Single<ImmutableList<Submission>> {
-    val remoteSync =
-      remoteDataStore
-        .loadSubmissions(locationOfInterest)
-        .timeout(LOAD_REMOTE_SUBMISSIONS_TIMEOUT_SECS, TimeUnit.SECONDS)
-        .doOnError { Timber.e(it, "Submission sync timed out") }
-        .flatMapCompletable { submissions: ImmutableList<Result<Submission>> ->
-          mergeRemoteSubmissions(submissions)
-        }
-        .onErrorComplete()
-    return remoteSync.andThen(localDataStore.getSubmissions(locationOfInterest, taskId))
+  private fun isSubmissionSyncFresh(locationOfInterest: LocationOfInterest): Boolean {
+    val lastSyncMillis = lastSubmissionSyncMillis[locationOfInterest.id] ?: return false
+    val ttlMillis = TimeUnit.MINUTES.toMillis(SUBMISSIONS_FRESHNESS_TTL_MINUTES)
+    return SystemClock.elapsedRealtime() - lastSyncMillis < ttlMillis
   }
 
+  /**
+   * Merges remote submissions for the specified location of interest into the local db. If the
+   * network is not available or the operation times out, completes without syncing.
+   */
+  private fun syncRemoteSubmissions(locationOfInterest: LocationOfInterest): @Cold Completable =
+    remoteDataStore
+      .loadSubmissions(locationOfInterest)
+      .timeout(LOAD_REMOTE_SUBMISSIONS_TIMEOUT_SECS, TimeUnit.SECONDS)
+      .doOnError { Timber.e(it, "Submission sync timed out") }
+      .flatMapCompletable { submissions: ImmutableList<Result<Submission>> ->
+        mergeRemoteSubmissions(submissions)
+      }
+      .doOnComplete {
+        lastSubmissionSyncMillis[locationOfInterest.id] = SystemClock.elapsedRealtime()
+      }
+      .onErrorComplete()
+
   private fun mergeRemoteSubmissions(
     submissions: ImmutableList<Result<Submission>>
   ): @Cold Completable {
@@ -174,7 +200,7 @@ constructor(
   private fun applyAndEnqueue(mutation: SubmissionMutation): @Cold Completable =
     localDataStore
       .applyAndEnqueue(mutation)
-      .andThen(dataSyncWorkManager.enqueueSyncWorker(mutation.locationOfInterestId))
+      .andThen(dataSyncWorkManager.enqueueSyncWorker())
 
   /**
    * Returns all [SubmissionMutation] instances for a given location of interest which have not yet
@@ -185,7 +211,7 @@ constructor(
     surveyId: String,
     locationOfInterestId: String
   ): Flowable<ImmutableList<SubmissionMutation>> =
-    localDataStore.getSurveyById(surveyId).toFlowable().flatMap {
+    surveyRepository.getLocalSurvey(surveyId).toFlowable().flatMap {
       localDataStore.getSubmissionMutationsByLocationOfInterestIdOnceAndStream(
         it,
         locationOfInterestId,
@@ -15,6 +15,8 @@
  */
 package com.google.android.ground.repository
 
+import android.util.LruCache
+import androidx.annotation.VisibleForTesting
 import com.google.android.ground.model.Survey
 import com.google.android.ground.model.User
 import com.google.android.ground.model.job.Job
@@ -29,7 +31,9 @@ import com.google.android.ground.rx.annotations.Hot
 import com.google.android.ground.ui.map.CameraPosition
 import com.google.common.collect.ImmutableList
 import com.google.common.collect.ImmutableMap
+import io.reactivex.Completable
 import io.reactivex.Flowable
+import io.reactivex.Maybe
 import io.reactivex.Single
 import io.reactivex.processors.BehaviorProcessor
 import io.reactivex.processors.FlowableProcessor
@@ -43,6 +47,9 @@ import timber.log.Timber
 private const val LOAD_REMOTE_SURVEY_TIMEOUT_SECS: Long = 15
 private const val LOAD_REMOTE_SURVEY_SUMMARIES_TIMEOUT_SECS: Long = 30
 
+/** Maximum number of hydrated surveys kept in memory by [SurveyRepository]. */
+private const val MAX_CACHED_SURVEYS = 8
+
 /**
  * Coordinates persistence and retrieval of [Survey] instances from remote, local, and in memory
  * data stores. For more details on this pattern and overall architecture, see
@@ -73,6 +80,27 @@ constructor(
   val activeSurvey: @Hot(replays = true) Flowable<Optional<Survey>>
     get() = surveyLoadingState.map { obj: Loadable<Survey> -> obj.value() }
 
+  /**
+   * Surveys loaded from the local db, keyed by id. Reading a survey rebuilds its full schema (jobs,
+   * tasks, options), so callers which look up the same survey for each mutation or LOI are served
+   * from memory instead. Entries are replaced or removed whenever the survey is written or deleted.
+   */
+  private val surveyCache = LruCache<String, Survey>(MAX_CACHED_SURVEYS)
+
+  /**
+   * Incremented on each write to [surveyCache], so that loads started before a write don't
+   * overwrite the newer value once they complete.
+   */
+  @Volatile private var surveyCacheGeneration = 0L
+
+  @get:VisibleForTesting
+  val surveyCacheHitCount: Int
+    get() = surveyCache.hitCount()
+
+  @get:VisibleForTesting
+  val surveyCacheMissCount: Int
+    get() = surveyCache.missCount()
+
   val offlineSurveys: @Cold Single<ImmutableList<Survey>>
     get() = localDataStore.surveys
 
@@ -108,15 +136,46 @@ constructor(
 
   /** This only works if the survey is already cached to local db. */
   fun getSurvey(surveyId: String): @Cold Single<Survey> =
-    localDataStore
-      .getSurveyById(surveyId)
+    getLocalSurvey(surveyId)
       .switchIfEmpty(Single.error { NotFoundException("Survey not found $surveyId") })
 
+  /** Returns the specified survey from memory or the local db, or empty if not found. */
+  fun getLocalSurvey(surveyId: String): @Cold Maybe<Survey> =
+    Maybe.defer {
+      val cachedSurvey = surveyCache.get(surveyId)
+      if (cachedSurvey != null) return@defer Maybe.just(cachedSurvey)
+      val generation = surveyCacheGeneration
+      localDataStore.getSurveyById(surveyId).doOnSuccess { cacheSurvey(it, generation) }
+    }
+
+  private fun cacheSurvey(survey: Survey, generation: Long) {
+    synchronized(surveyCache) {
+      if (generation == surveyCacheGeneration) surveyCache.put(survey.id, survey)
+    }
+    Timber.v("Survey cache: ${surveyCache.hitCount()} hits, ${surveyCache.missCount()} misses")
+  }
+
+  private fun invalidateCachedSurvey(surveyId: String) {
+    synchronized(surveyCache) {
+      surveyCacheGeneration++
+      surveyCache.remove(surveyId)
+    }
+  }
+
+  /** Removes the specified survey and all related data from the local db. */
+  fun deleteSurvey(survey: Survey): @Cold Completable =
+    localDataStore.deleteSurvey(survey).doOnComplete { invalidateCachedSurvey(survey.id) }
+
   private fun syncSurveyWithRemote(id: String): @Cold Single<Survey> =
     remoteDataStore
       .loadSurvey(id)
       .timeout(LOAD_REMOTE_SURVEY_TIMEOUT_SECS, TimeUnit.SECONDS)
-      .flatMap { localDataStore.insertOrUpdateSurvey(it).toSingleDefault(it) }
+      .flatMap { survey ->
+        localDataStore
+          .insertOrUpdateSurvey(survey)
+          .doOnComplete { invalidateCachedSurvey(survey.id) }
+          .toSingleDefault(survey)
+      }
       .doOnSubscribe { Timber.d("Loading survey $id") }
       .doOnError { err -> Timber.d(err, "Error loading survey from remote") }
 
@@ -139,12 +198,21 @@ constructor(
       .loadSurveySummaries(user)
       .timeout(LOAD_REMOTE_SURVEY_SUMMARIES_TIMEOUT_SECS, TimeUnit.SECONDS)
 
+  /** Returns a long-lived stream of the [limit] most recent mutations in the specified survey. */
   fun getMutationsOnceAndStream(
-    survey: Survey
+    survey: Survey,
+    limit: Int
   ): @Cold(terminates = false) Flowable<ImmutableList<Mutation>> {
-    return localDataStore.getMutationsOnceAndStream(survey)
+    return localDataStore.getMutationsOnceAndStream(survey, limit)
   }
 
+  /** Returns a long-lived stream of the number of mutations in a survey with the given status. */
+  fun getMutationCountOnceAndStream(
+    survey: Survey,
+    syncStatus: Mutation.SyncStatus
+  ): @Cold(terminates = false) Flowable<Int> =
+    localDataStore.getMutationCountOnceAndStream(survey, syncStatus)
+
   fun setCameraPosition(surveyId: String, cameraPosition: CameraPosition) =
     localValueStore.setLastCameraPosition(surveyId, cameraPosition)
 
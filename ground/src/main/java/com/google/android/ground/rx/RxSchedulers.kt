@@ -23,4 +23,5 @@ import javax.inject.Inject
 class RxSchedulers @Inject constructor() : Schedulers {
   override fun io(): Scheduler = RxSchedulers.io()
   override fun ui(): Scheduler = AndroidSchedulers.mainThread()
+  override fun computation(): Scheduler = RxSchedulers.computation()
 }
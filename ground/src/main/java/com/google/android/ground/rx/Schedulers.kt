@@ -20,4 +20,5 @@ import io.reactivex.Scheduler
 interface Schedulers {
   fun io(): Scheduler
   fun ui(): Scheduler
+  fun computation(): Scheduler
 }
@@ -21,6 +21,7 @@ import android.app.NotificationManager
 import android.content.Context
 import android.os.Build.VERSION
 import android.os.Build.VERSION_CODES
+import android.text.format.Formatter
 import androidx.annotation.RequiresApi
 import androidx.core.app.NotificationCompat
 import com.google.android.ground.R
@@ -53,7 +54,8 @@ internal constructor(@param:ApplicationContext private val context: Context) {
     state: UploadState,
     title: String,
     total: Int,
-    progress: Int
+    progress: Int,
+    bytesPerSecond: Long
   ): Notification {
     val notification =
       NotificationCompat.Builder(context, CHANNEL_ID)
@@ -68,7 +70,12 @@ internal constructor(@param:ApplicationContext private val context: Context) {
       UploadState.IN_PROGRESS ->
         notification
           .setContentText(
-            context.getString(R.string.in_progress)
+            if (bytesPerSecond > 0)
+              context.getString(
+                R.string.in_progress_with_rate,
+                Formatter.formatShortFileSize(context, bytesPerSecond)
+              )
+            else context.getString(R.string.in_progress)
           ) // only alert once and don't allow cancelling it
           .setOnlyAlertOnce(true)
           .setOngoing(true)
@@ -19,7 +19,9 @@ import android.content.Context
 import android.graphics.Bitmap
 import android.graphics.Canvas
 import android.graphics.PorterDuff
+import android.util.LruCache
 import androidx.annotation.ColorInt
+import androidx.annotation.VisibleForTesting
 import androidx.appcompat.content.res.AppCompatResources
 import androidx.core.content.res.ResourcesCompat
 import com.google.android.gms.maps.model.BitmapDescriptor
@@ -33,13 +35,37 @@ import javax.inject.Singleton
 @Singleton
 class MarkerIconFactory @Inject constructor(@ApplicationContext private val context: Context) {
 
-  fun getMarkerBitmap(color: Int, currentZoomLevel: Float, isSelected: Boolean = false): Bitmap {
+  /**
+   * Rendered marker icons, keyed by the parameters which affect their appearance. Markers for
+   * thousands of cluster items share a handful of distinct icons, so caching avoids inflating
+   * drawables and allocating a new bitmap for each marker rendered.
+   */
+  private val cache =
+    object : LruCache<MarkerIconKey, MarkerIcon>(MAX_CACHE_SIZE_BYTES) {
+      override fun sizeOf(key: MarkerIconKey, value: MarkerIcon): Int = value.bitmap.byteCount
+
+      override fun create(key: MarkerIconKey): MarkerIcon =
+        MarkerIcon(renderMarkerBitmap(key.color, key.isZoomedIn, key.isSelected))
+    }
+
+  /** Number of icon requests served from the cache. */
+  val cacheHitCount: Int
+    get() = cache.hitCount()
+
+  /** Number of icon requests which required a new bitmap to be rendered. */
+  val cacheMissCount: Int
+    get() = cache.missCount()
+
+  fun getMarkerBitmap(color: Int, currentZoomLevel: Float, isSelected: Boolean = false): Bitmap =
+    renderMarkerBitmap(color, isZoomedIn(currentZoomLevel), isSelected)
+
+  private fun renderMarkerBitmap(color: Int, isZoomedIn: Boolean, isSelected: Boolean): Bitmap {
     val outline = AppCompatResources.getDrawable(context, R.drawable.ic_marker_outline)
     val fill = AppCompatResources.getDrawable(context, R.drawable.ic_marker_fill)
     val overlay = AppCompatResources.getDrawable(context, R.drawable.ic_marker_overlay)
     // TODO: Adjust size based on selection state.
     var scale = ResourcesCompat.getFloat(context.resources, R.dimen.marker_bitmap_default_scale)
-    if (currentZoomLevel >= MapContainerViewModel.ZOOM_LEVEL_THRESHOLD) {
+    if (isZoomedIn) {
       scale = ResourcesCompat.getFloat(context.resources, R.dimen.marker_bitmap_zoomed_scale)
     }
     if (isSelected) {
@@ -64,9 +90,33 @@ class MarkerIconFactory @Inject constructor(@ApplicationContext private val cont
     @ColorInt color: Int,
     currentZoomLevel: Float,
     isSelected: Boolean = false
-  ): BitmapDescriptor {
-    val bitmap = getMarkerBitmap(color, currentZoomLevel, isSelected)
-    // TODO: Cache rendered bitmaps.
-    return BitmapDescriptorFactory.fromBitmap(bitmap)
+  ): BitmapDescriptor = getCachedMarkerIcon(color, currentZoomLevel, isSelected).descriptor
+
+  /** Returns the cached icon with the specified appearance, rendering it if not yet cached. */
+  @VisibleForTesting
+  internal fun getCachedMarkerIcon(
+    @ColorInt color: Int,
+    currentZoomLevel: Float,
+    isSelected: Boolean
+  ): MarkerIcon = cache.get(MarkerIconKey(color, isZoomedIn(currentZoomLevel), isSelected))
+
+  /** Marker icons only change size when the zoom level crosses the zoom threshold. */
+  private fun isZoomedIn(currentZoomLevel: Float): Boolean =
+    currentZoomLevel >= MapContainerViewModel.ZOOM_LEVEL_THRESHOLD
+
+  private data class MarkerIconKey(
+    @ColorInt val color: Int,
+    val isZoomedIn: Boolean,
+    val isSelected: Boolean
+  )
+
+  /** A rendered marker bitmap and its lazily created Maps SDK descriptor. */
+  internal class MarkerIcon(val bitmap: Bitmap) {
+    val descriptor: BitmapDescriptor by lazy { BitmapDescriptorFactory.fromBitmap(bitmap) }
+  }
+
+  companion object {
+    /** Upper bound on the total size of cached marker bitmaps. */
+    private const val MAX_CACHE_SIZE_BYTES = 1024 * 1024
   }
 }
@@ -30,6 +30,7 @@ import com.google.android.ground.repository.UserRepository
 import com.google.android.ground.rx.Loadable
 import com.google.android.ground.rx.Nil
 import com.google.android.ground.rx.RxCompletable
+import com.google.android.ground.rx.Schedulers
 import com.google.android.ground.rx.annotations.Hot
 import com.google.android.ground.ui.common.AbstractViewModel
 import com.google.android.ground.ui.common.Navigator
@@ -57,7 +58,8 @@ internal constructor(
   private val surveyRepository: SurveyRepository,
   private val locationOfInterestRepository: LocationOfInterestRepository,
   private val navigator: Navigator,
-  private val userRepository: UserRepository
+  private val userRepository: UserRepository,
+  private val schedulers: Schedulers
 ) : AbstractViewModel() {
 
   @JvmField
@@ -113,7 +115,37 @@ internal constructor(
   }
 
   fun onMarkerClick(mapLocationOfInterest: MapLocationOfInterest) {
-    mapLocationOfInterest.locationOfInterest.let { showBottomSheet(it) }
+    loadFullLocationsOfInterest(listOf(mapLocationOfInterest.locationOfInterest)) {
+      showBottomSheet(it[0])
+    }
+  }
+
+  /**
+   * Invokes [onLoaded] on the UI thread with the full versions of the specified LOIs, since LOIs
+   * shown on the map are built from summaries with simplified geometries. LOIs which aren't stored
+   * locally, such as unsaved ones, are passed as is.
+   */
+  private fun loadFullLocationsOfInterest(
+    locationsOfInterest: List<LocationOfInterest>,
+    onLoaded: (ImmutableList<LocationOfInterest>) -> Unit
+  ) {
+    val survey = activeSurvey.orElse(null)
+    if (survey == null) {
+      onLoaded(locationsOfInterest.toImmutableList())
+      return
+    }
+    disposeOnClear(
+      locationOfInterestRepository
+        .getLocationsOfInterest(survey, locationsOfInterest.map { it.id })
+        .map { loaded ->
+          val loadedById = loaded.associateBy { it.id }
+          locationsOfInterest.map { loadedById[it.id] ?: it }.toImmutableList()
+        }
+        .doOnError { Timber.e(it, "Couldn't load locations of interest") }
+        .onErrorReturnItem(locationsOfInterest.toImmutableList())
+        .observeOn(schedulers.ui())
+        .subscribe { onLoaded(it) }
+    )
   }
 
   fun onLocationOfInterestSelected(locationOfInterest: LocationOfInterest?) {
@@ -167,11 +199,13 @@ internal constructor(
       Timber.e("onLocationOfInterestClick called with empty or null map locationsOfInterest")
       return
     }
-    if (locationsOfInterest.size == 1) {
-      onLocationOfInterestSelected(locationsOfInterest[0])
-      return
+    loadFullLocationsOfInterest(locationsOfInterest) {
+      if (it.size == 1) {
+        onLocationOfInterestSelected(it[0])
+      } else {
+        showLocationOfInterestSelectorRequests.onNext(it)
+      }
     }
-    showLocationOfInterestSelectorRequests.onNext(locationsOfInterest)
   }
 
   private val activeSurvey: Optional<Survey>
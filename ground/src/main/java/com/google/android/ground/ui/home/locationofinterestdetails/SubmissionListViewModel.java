@@ -26,7 +26,7 @@ import com.google.android.ground.repository.SubmissionRepository;
 import com.google.android.ground.rx.annotations.Hot;
 import com.google.android.ground.ui.common.AbstractViewModel;
 import com.google.common.collect.ImmutableList;
-import io.reactivex.Single;
+import io.reactivex.Flowable;
 import io.reactivex.processors.FlowableProcessor;
 import io.reactivex.processors.PublishProcessor;
 import java8.util.Optional;
@@ -53,7 +53,7 @@ public class SubmissionListViewModel extends AbstractViewModel {
         LiveDataReactiveStreams.fromPublisher(
             submissionListRequests
                 .doOnNext(__ -> isLoading.postValue(true))
-                .switchMapSingle(this::getSubmissions)
+                .switchMap(this::getSubmissions)
                 .doOnNext(__ -> isLoading.postValue(false)));
   }
 
@@ -69,21 +69,21 @@ public class SubmissionListViewModel extends AbstractViewModel {
         Optional.of(locationOfInterest.getJob()).map(Job::getId));
   }
 
-  private Single<ImmutableList<Submission>> getSubmissions(SubmissionListRequest req) {
+  private Flowable<ImmutableList<Submission>> getSubmissions(SubmissionListRequest req) {
     if (req.taskId.isEmpty()) {
       // Do nothing. No task defined for this layer.
       // TODO(#354): Show message or special treatment for layer with no task.
-      return Single.just(ImmutableList.of());
+      return Flowable.just(ImmutableList.of());
     }
     return submissionRepository
-        .getSubmissions(req.surveyId, req.locationOfInterestId, req.taskId.get())
+        .getSubmissionsOnceAndStream(req.surveyId, req.locationOfInterestId, req.taskId.get())
         .onErrorResumeNext(this::onGetSubmissionsError);
   }
 
-  private Single<ImmutableList<Submission>> onGetSubmissionsError(Throwable t) {
+  private Flowable<ImmutableList<Submission>> onGetSubmissionsError(Throwable t) {
     // TODO: Show an appropriate error message to the user.
     Timber.e(t, "Failed to fetch submission list.");
-    return Single.just(ImmutableList.of());
+    return Flowable.just(ImmutableList.of());
   }
 
   private void loadSubmissions(
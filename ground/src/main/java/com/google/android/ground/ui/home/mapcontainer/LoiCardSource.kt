@@ -24,8 +24,9 @@ import com.google.android.ground.model.locationofinterest.LocationOfInterest
 import com.google.android.ground.repository.LocationOfInterestRepository
 import com.google.android.ground.repository.SurveyRepository
 import com.google.android.ground.rx.annotations.Hot
+import com.google.android.ground.ui.map.toLocationsOfInterest
 import com.google.android.ground.ui.map.gms.toLatLng
-import com.google.common.collect.ImmutableSet
+import com.google.android.ground.ui.map.gms.toModelObject
 import io.reactivex.BackpressureStrategy
 import io.reactivex.Flowable
 import io.reactivex.subjects.PublishSubject
@@ -44,12 +45,10 @@ internal constructor(
   val locationsOfInterest: LiveData<List<LocationOfInterest>>
 
   init {
-    val loiStream = getAllLocationsOfInterest()
-
     locationsOfInterest =
       LiveDataReactiveStreams.fromPublisher(
         getCameraBoundUpdates()
-          .flatMap { bounds -> loiStream.map { it.toLoiCardsWithinBounds(bounds) } }
+          .switchMap { bounds -> getLocationsOfInterestWithinBounds(bounds) }
           .distinctUntilChanged()
       )
   }
@@ -62,20 +61,28 @@ internal constructor(
   private fun getCameraBoundUpdates(): Flowable<LatLngBounds> =
     cameraBoundsSubject.toFlowable(BackpressureStrategy.LATEST).distinctUntilChanged()
 
-  /** Returns a flowable of all [LocationOfInterest] for the selected [Survey]. */
-  private fun getAllLocationsOfInterest(): Flowable<ImmutableSet<LocationOfInterest>> =
-    surveyRepository.activeSurvey
-      .switchMap { survey ->
-        survey
-          .map { locationOfInterestRepository.getLocationsOfInterestOnceAndStream(it) }
-          .orElse(Flowable.just(ImmutableSet.of()))
-      }
-      .distinctUntilChanged()
+  /**
+   * Returns a flowable of [LocationOfInterest] in the selected [Survey] with at least one vertex
+   * within [bounds]. LOIs are built from lightweight map summaries, so that full LOIs are never
+   * loaded just to show their cards.
+   */
+  private fun getLocationsOfInterestWithinBounds(
+    bounds: LatLngBounds
+  ): Flowable<List<LocationOfInterest>> =
+    surveyRepository.activeSurvey.switchMap { survey ->
+      survey
+        .map { getLocationsOfInterestWithinBounds(it, bounds) }
+        .orElse(Flowable.just(listOf()))
+    }
 
-  /** Filters all [LocationOfInterest] within [bounds]. */
-  private fun ImmutableSet<LocationOfInterest>.toLoiCardsWithinBounds(
+  private fun getLocationsOfInterestWithinBounds(
+    survey: Survey,
     bounds: LatLngBounds
-  ): List<LocationOfInterest> = this.filter { isGeometryWithinBounds(it.geometry, bounds) }
+  ): Flowable<List<LocationOfInterest>> =
+    locationOfInterestRepository
+      .getLocationOfInterestSummariesWithinBoundsOnceAndStream(survey, bounds.toModelObject())
+      .map { summaries -> summaries.filter { isGeometryWithinBounds(it.geometry, bounds) } }
+      .toLocationsOfInterest(survey)
 
   /** Returns true if the provided [geometry] is within [bounds]. */
   private fun isGeometryWithinBounds(geometry: Geometry, bounds: LatLngBounds): Boolean =
@@ -20,7 +20,6 @@ import android.view.View
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.LiveDataReactiveStreams
 import androidx.lifecycle.MutableLiveData
-import com.cocoahero.android.gmaps.addons.mapbox.MapBoxOfflineTileProvider
 import com.google.android.ground.R
 import com.google.android.ground.model.Survey
 import com.google.android.ground.model.basemap.tile.TileSet
@@ -35,10 +34,13 @@ import com.google.android.ground.rx.Nil
 import com.google.android.ground.rx.annotations.Hot
 import com.google.android.ground.ui.common.AbstractViewModel
 import com.google.android.ground.ui.common.SharedViewModel
+import com.google.android.ground.ui.map.Bounds
 import com.google.android.ground.ui.map.CameraPosition
 import com.google.android.ground.ui.map.LocationController
 import com.google.android.ground.ui.map.MapController
 import com.google.android.ground.ui.map.MapLocationOfInterest
+import com.google.android.ground.ui.map.gms.MbtilesTileProvider
+import com.google.android.ground.ui.map.toLocationsOfInterest
 import com.google.android.ground.util.toImmutableSet
 import com.google.common.collect.ImmutableSet
 import io.reactivex.Flowable
@@ -88,7 +90,13 @@ internal constructor(
   val iconTint: LiveData<Int>
   val isLocationUpdatesEnabled: LiveData<Boolean>
   val locationAccuracy: LiveData<String>
-  private val tileProviders: MutableList<MapBoxOfflineTileProvider> = ArrayList()
+  private val tileProviders: MutableList<MbtilesTileProvider> = ArrayList()
+
+  /**
+   * Bounds of the last known viewport, used to limit LOIs loaded for rendering on the map. Empty
+   * until the camera reports its visible region.
+   */
+  private val viewportBounds = BehaviorProcessor.createDefault(Optional.empty<Bounds>())
 
   /** The currently selected LOI on the map. */
   private val selectedLocationOfInterest =
@@ -126,22 +134,11 @@ internal constructor(
 
   private fun toMapLocationsOfInterest(
     locationsOfInterest: ImmutableSet<LocationOfInterest>
-  ): ImmutableSet<MapLocationOfInterest> {
-    val points =
-      locationsOfInterest
-        .filter { it.type === LocationOfInterestType.POINT }
-        .map { MapLocationOfInterest(it) }
-        .toImmutableSet()
-
-    // TODO: Add support for polylines similar to mapPins.
-    val polygons =
-      locationsOfInterest
-        .filter { it.type === LocationOfInterestType.POLYGON }
-        .map { MapLocationOfInterest(it) }
-        .toImmutableSet()
-
-    return ImmutableSet.builder<MapLocationOfInterest>().addAll(points).addAll(polygons).build()
-  }
+  ): ImmutableSet<MapLocationOfInterest> =
+    locationsOfInterest
+      .filter { RENDERED_LOCATION_OF_INTEREST_TYPES.contains(it.type) }
+      .map { MapLocationOfInterest(it) }
+      .toImmutableSet()
 
   private fun createLocationAccuracyFlowable() =
     locationController.getLocationUpdates().map {
@@ -159,16 +156,54 @@ internal constructor(
     // subscribers.
     activeProject
       .map { survey: Survey ->
-        locationOfInterestRepository.getLocationsOfInterestOnceAndStream(survey)
+        viewportBounds.distinctUntilChanged().switchMap { bounds ->
+          getLocationsOfInterestInViewport(survey, bounds)
+        }
       }
       .orElse(Flowable.just(ImmutableSet.of()))
 
+  /**
+   * Returns LOIs whose bounding box intersects the specified viewport, or all LOIs in the survey if
+   * the viewport isn't known yet. LOIs within the viewport are rendered from lightweight map
+   * summaries, so that their full geometries are never loaded just to draw them.
+   */
+  private fun getLocationsOfInterestInViewport(
+    survey: Survey,
+    bounds: Optional<Bounds>
+  ): Flowable<ImmutableSet<LocationOfInterest>> =
+    bounds
+      .map { getLocationsOfInterestWithinBounds(survey, it) }
+      .orElseGet { getAllLocationsOfInterest(survey) }
+
+  /**
+   * Returns all LOIs in the survey, maintained from the survey's change stream so that each local
+   * write only reloads the LOIs it touched rather than every LOI in the survey.
+   */
+  private fun getAllLocationsOfInterest(
+    survey: Survey
+  ): Flowable<ImmutableSet<LocationOfInterest>> =
+    locationOfInterestRepository
+      .getLocationOfInterestChangesOnceAndStream(survey)
+      .scan(mapOf<String, LocationOfInterest>()) { lois, changes -> changes.applyTo(lois) }
+      .skip(1)
+      .map { it.values.toImmutableSet() }
+
+  private fun getLocationsOfInterestWithinBounds(
+    survey: Survey,
+    bounds: Bounds
+  ): Flowable<ImmutableSet<LocationOfInterest>> =
+    locationOfInterestRepository
+      .getLocationOfInterestSummariesWithinBoundsOnceAndStream(survey, bounds)
+      .toLocationsOfInterest(survey)
+      .map { it.toImmutableSet() }
+
   private fun isLocationLockEnabled(): Boolean = locationLockState.value!!.getOrDefault(false)
 
   fun onCameraMove(newCameraPosition: CameraPosition) {
     Timber.d("Setting position to $newCameraPosition")
     onZoomChange(lastCameraPosition?.zoomLevel, newCameraPosition.zoomLevel)
     surveyRepository.setCameraPosition(surveyRepository.lastActiveSurveyId, newCameraPosition)
+    newCameraPosition.bounds?.let { viewportBounds.onNext(Optional.of(it)) }
     lastCameraPosition = newCameraPosition
   }
 
@@ -213,7 +248,7 @@ internal constructor(
   }
 
   // TODO(#691): Create our own wrapper/interface for MbTiles providers.
-  fun queueTileProvider(tileProvider: MapBoxOfflineTileProvider) {
+  fun queueTileProvider(tileProvider: MbtilesTileProvider) {
     tileProviders.add(tileProvider)
   }
 
@@ -276,6 +311,15 @@ internal constructor(
     const val ZOOM_LEVEL_THRESHOLD = 16f
     const val DEFAULT_LOI_ZOOM_LEVEL = 18.0f
 
+    /** Types of LOIs which the map can render. */
+    private val RENDERED_LOCATION_OF_INTEREST_TYPES =
+      ImmutableSet.of(
+        LocationOfInterestType.POINT,
+        LocationOfInterestType.POLYGON,
+        LocationOfInterestType.MULTIPOLYGON,
+        LocationOfInterestType.LINE_STRING
+      )
+
     private fun concatLocationsOfInterestSets(
       objects: Array<Any>
     ): ImmutableSet<MapLocationOfInterest> =
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.ui.map
+
+import com.google.android.ground.model.Survey
+import com.google.android.ground.model.locationofinterest.LocationOfInterest
+import com.google.android.ground.rx.annotations.Cold
+import io.reactivex.Flowable
+
+/**
+ * Returns a stream of the LOIs described by each collection of summaries emitted by this stream,
+ * in the same order, built using [LoiMapSummary.toLocationOfInterest]. LOIs are cached by id and
+ * last modification time, so that panning the map or an unrelated write reuses the same instances
+ * for unchanged LOIs rather than rebuilding and re-rendering every visible LOI. Summaries whose job
+ * isn't in [survey] are omitted.
+ */
+fun Flowable<out Collection<LoiMapSummary>>.toLocationsOfInterest(
+  survey: Survey
+): @Cold Flowable<List<LocationOfInterest>> =
+  Flowable.defer {
+    var cached: Map<Pair<String, Long>, LocationOfInterest> = mapOf()
+    map { summaries ->
+      val lois =
+        summaries.mapNotNull { summary ->
+          val key = summary.id to summary.lastModifiedMillis
+          (cached[key] ?: summary.toLocationOfInterest(survey))?.let { key to it }
+        }
+      cached = lois.toMap()
+      lois.map { it.second }
+    }
+  }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.ui.map
+
+import com.google.android.ground.model.AuditInfo
+import com.google.android.ground.model.Survey
+import com.google.android.ground.model.geometry.*
+import com.google.android.ground.model.locationofinterest.LocationOfInterest
+import com.google.android.ground.model.locationofinterest.LocationOfInterestType
+
+/**
+ * Lightweight projection of a LOI containing only the fields needed to show it on the map and in
+ * LOI cards. Unlike a full [LocationOfInterest], a summary has a simplified geometry and can be
+ * loaded without reading the LOI's full geometry or creation info.
+ */
+data class LoiMapSummary(
+  /** The LOI's system-defined ID. */
+  val id: String,
+  /** The ID of the job associated with the LOI. */
+  val jobId: String,
+  /** A human readable caption for the LOI. */
+  val caption: String?,
+  /** Bounding box of the LOI's full geometry, or null if not known. */
+  val bounds: Bounds?,
+  /** The LOI's geometry, simplified for rendering on the map. */
+  val geometry: Geometry,
+  /** User and time audit info pertaining to the last modification of the LOI. */
+  val lastModified: AuditInfo,
+) {
+  val type: LocationOfInterestType =
+    when (geometry) {
+      is Point -> LocationOfInterestType.POINT
+      is Polygon -> LocationOfInterestType.POLYGON
+      is LineString -> LocationOfInterestType.LINE_STRING
+      is LinearRing -> LocationOfInterestType.LINEAR_RING
+      is MultiPolygon -> LocationOfInterestType.MULTIPOLYGON
+    }
+
+  /**
+   * Time of the LOI's last modification according to the user's device, used to detect changes
+   * without loading the full LOI.
+   */
+  val lastModifiedMillis: Long
+    get() = lastModified.clientTimestamp.time
+
+  /**
+   * Returns a LOI for showing this summary on the map, or null if its job isn't in [survey]. The
+   * returned LOI has the simplified geometry and reports [lastModified] as its creation info, so
+   * the full LOI should be loaded by [id] wherever more than that is needed.
+   */
+  fun toLocationOfInterest(survey: Survey): LocationOfInterest? =
+    survey.jobMap[jobId]?.let {
+      LocationOfInterest(
+        id = id,
+        surveyId = survey.id,
+        job = it,
+        caption = caption,
+        created = lastModified,
+        lastModified = lastModified,
+        geometry = geometry
+      )
+    }
+}
@@ -17,12 +17,12 @@ package com.google.android.ground.ui.map
 
 import android.annotation.SuppressLint
 import androidx.annotation.IdRes
-import com.cocoahero.android.gmaps.addons.mapbox.MapBoxOfflineTileProvider
 import com.google.android.ground.model.geometry.Point
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
 import com.google.android.ground.rx.Nil
 import com.google.android.ground.rx.annotations.Hot
 import com.google.android.ground.ui.common.AbstractFragment
+import com.google.android.ground.ui.map.gms.MbtilesTileProvider
 import com.google.common.collect.ImmutableList
 import com.google.common.collect.ImmutableSet
 import io.reactivex.Flowable
@@ -90,9 +90,9 @@ interface MapFragment {
 
   fun refresh()
 
-  // TODO(#691): Create interface and impl to encapsulate MapBoxOfflineTileProvider impl.
+  // TODO(#691): Create interface and impl to encapsulate MbtilesTileProvider impl.
   /** Returns TileProviders associated with this map adapter. */
-  val tileProviders: @Hot Observable<MapBoxOfflineTileProvider>
+  val tileProviders: @Hot Observable<MbtilesTileProvider>
 
   /** Render locally stored tile overlays on the map. */
   fun addLocalTileOverlays(mbtilesFiles: ImmutableSet<String>)
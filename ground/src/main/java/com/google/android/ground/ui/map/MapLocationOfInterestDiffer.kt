@@ -0,0 +1,58 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.ui.map
+
+/**
+ * The changes needed to bring the set of [MapLocationOfInterest]s rendered on a map up to date with
+ * a newly requested set. A LOI which was modified since it was rendered is both removed and added.
+ *
+ * @property added LOIs which weren't previously rendered.
+ * @property removed previously rendered LOIs which are no longer present.
+ */
+data class MapLocationOfInterestDiff(
+  val added: List<MapLocationOfInterest>,
+  val removed: List<MapLocationOfInterest>
+) {
+  fun isEmpty(): Boolean = added.isEmpty() && removed.isEmpty()
+}
+
+/**
+ * Tracks the [MapLocationOfInterest]s currently rendered on a map, and computes the minimal set of
+ * changes needed to render a new set. LOIs are compared by value rather than by id, since several
+ * map LOIs may share an id, e.g. a polygon being drawn and its vertices, and since a LOI's geometry
+ * may change without its last modified time changing, e.g. while it's being drawn. Map objects
+ * therefore only need to be created or removed for LOIs that were actually added, removed, or
+ * modified.
+ */
+class MapLocationOfInterestDiffer {
+  private val rendered: MutableSet<MapLocationOfInterest> = LinkedHashSet()
+
+  /** The LOIs rendered as of the last call to [update]. */
+  val renderedLocationsOfInterest: Set<MapLocationOfInterest>
+    get() = rendered
+
+  /**
+   * Returns the changes needed to render [mapLocationsOfInterest] in place of the currently
+   * rendered set, and records [mapLocationsOfInterest] as the new rendered set.
+   */
+  fun update(mapLocationsOfInterest: Set<MapLocationOfInterest>): MapLocationOfInterestDiff {
+    val added = mapLocationsOfInterest.filterNot { rendered.contains(it) }
+    val removed = rendered.filterNot { mapLocationsOfInterest.contains(it) }
+    rendered.clear()
+    rendered.addAll(mapLocationsOfInterest)
+    return MapLocationOfInterestDiff(added, removed)
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.ui.map
+
+import timber.log.Timber
+
+/**
+ * Renders sets of [MapLocationOfInterest]s incrementally, only creating and removing the map
+ * objects of LOIs which were added, removed or modified since the previous render.
+ *
+ * @param addToMap creates the map objects of a LOI and returns the number of objects created.
+ * @param removeFromMap removes the map objects of a LOI and returns the number of objects removed.
+ */
+class MapLocationOfInterestRenderer(
+  private val addToMap: (MapLocationOfInterest) -> Int,
+  private val removeFromMap: (MapLocationOfInterest) -> Int
+) {
+  private val differ = MapLocationOfInterestDiffer()
+
+  /** The LOIs rendered as of the last call to [render]. */
+  val renderedLocationsOfInterest: Set<MapLocationOfInterest>
+    get() = differ.renderedLocationsOfInterest
+
+  /** The number of map objects added or removed by the last call to [render]. */
+  var lastRenderOperationCount = 0
+    private set
+
+  /**
+   * Renders [mapLocationsOfInterest] in place of the previously rendered set. Returns true if any
+   * map objects were added or removed.
+   */
+  fun render(mapLocationsOfInterest: Set<MapLocationOfInterest>): Boolean {
+    val diff = differ.update(mapLocationsOfInterest)
+    lastRenderOperationCount =
+      diff.removed.sumOf { removeFromMap(it) } + diff.added.sumOf { addToMap(it) }
+    if (diff.isEmpty()) return false
+    Timber.v(
+      "Rendered LOIs: ${diff.added.size} added, ${diff.removed.size} removed, " +
+        "$lastRenderOperationCount map objects changed"
+    )
+    return true
+  }
+}
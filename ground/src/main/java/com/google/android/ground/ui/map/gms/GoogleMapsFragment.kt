@@ -24,9 +24,9 @@ import android.view.ViewGroup
 import android.widget.ImageView
 import android.widget.RelativeLayout
 import androidx.annotation.IdRes
+import androidx.annotation.VisibleForTesting
 import androidx.core.view.ViewCompat
 import androidx.core.view.WindowInsetsCompat
-import com.cocoahero.android.gmaps.addons.mapbox.MapBoxOfflineTileProvider
 import com.google.android.gms.maps.CameraUpdateFactory
 import com.google.android.gms.maps.GoogleMap
 import com.google.android.gms.maps.GoogleMap.OnCameraMoveStartedListener
@@ -34,6 +34,8 @@ import com.google.android.gms.maps.SupportMapFragment
 import com.google.android.gms.maps.model.*
 import com.google.android.gms.maps.model.Polygon as MapsPolygon
 import com.google.android.ground.R
+import com.google.android.ground.model.geometry.LineString
+import com.google.android.ground.model.geometry.LinearRing
 import com.google.android.ground.model.geometry.MultiPolygon
 import com.google.android.ground.model.geometry.Point
 import com.google.android.ground.model.geometry.Polygon
@@ -87,16 +89,30 @@ class GoogleMapsFragment : SupportMapFragment(), MapFragment {
   // TODO(#691): This is a limitation of the MapBox tile provider we're using;
   // since one need to call `close` explicitly, we cannot generically expose these as TileProviders;
   // instead we must retain explicit reference to the concrete type.
-  private val tileProvidersSubject: @Hot PublishSubject<MapBoxOfflineTileProvider> =
+  private val tileProvidersSubject: @Hot PublishSubject<MbtilesTileProvider> =
     PublishSubject.create()
 
+  /** Paths of mbtiles files already rendered, so that each file is opened at most once. */
+  private val localTileOverlayPaths: MutableSet<String> = HashSet()
+
   /**
-   * References to Google Maps SDK Markers present on the map. Used to sync and update polylines
+   * References to Google Maps SDK Polygons present on the map. Used to sync and update polygons
    * with current view and data state.
    */
-  private val clusters: MutableMap<LocationOfInterestClusterItem, MapLocationOfInterest> = HashMap()
   private val polygons: MutableMap<MapLocationOfInterest, MutableList<MapsPolygon>> = HashMap()
 
+  /** References to Google Maps SDK Polylines present on the map, keyed by the LOI they render. */
+  private val polylines: MutableMap<MapLocationOfInterest, Polyline> = HashMap()
+
+  /** Renders LOIs so that only the map objects of those which changed are updated. */
+  private val renderer =
+    MapLocationOfInterestRenderer(this::addLocationOfInterest, this::removeLocationOfInterest)
+
+  /** The number of map objects added or removed by the last call to [renderLocationsOfInterest]. */
+  @VisibleForTesting
+  val lastRenderOperationCount: Int
+    get() = renderer.lastRenderOperationCount
+
   @Inject lateinit var bitmapUtil: BitmapUtil
 
   @Inject lateinit var markerIconFactory: MarkerIconFactory
@@ -191,19 +207,11 @@ class GoogleMapsFragment : SupportMapFragment(), MapFragment {
   // Handle taps on ambiguous features.
   private fun handleAmbiguity(latLng: LatLng) {
     val candidates = ImmutableList.builder<MapLocationOfInterest>()
-    val processed = ArrayList<String>()
 
     for ((mapLocationOfInterest, value) in polygons) {
-      val loiId = mapLocationOfInterest.locationOfInterest.id
-      if (processed.contains(loiId)) {
-        continue
-      }
-
       if (value.any { PolyUtil.containsLocation(latLng, it.points, false) }) {
         candidates.add(mapLocationOfInterest)
       }
-
-      processed.add(loiId)
     }
     val result = candidates.build()
     if (!result.isEmpty()) {
@@ -234,7 +242,7 @@ class GoogleMapsFragment : SupportMapFragment(), MapFragment {
 
   override val cameraMovedEvents: @Hot Flowable<CameraPosition> = cameraMovedEventsProcessor
 
-  override val tileProviders: @Hot Observable<MapBoxOfflineTileProvider> = tileProvidersSubject
+  override val tileProviders: @Hot Observable<MbtilesTileProvider> = tileProvidersSubject
 
   override fun getDistanceInPixels(point1: Point, point2: Point): Double {
     if (map == null) {
@@ -265,9 +273,12 @@ class GoogleMapsFragment : SupportMapFragment(), MapFragment {
   private fun addMultiPolygon(
     locationOfInterest: MapLocationOfInterest,
     multiPolygon: MultiPolygon
-  ) = multiPolygon.polygons.forEach { addPolygon(locationOfInterest, it) }
+  ): Int {
+    multiPolygon.polygons.forEach { addPolygon(locationOfInterest, it) }
+    return multiPolygon.polygons.size
+  }
 
-  private fun addPolygon(locationOfInterest: MapLocationOfInterest, polygon: Polygon) {
+  private fun addPolygon(locationOfInterest: MapLocationOfInterest, polygon: Polygon): Int {
     val options = PolygonOptions()
     options.clickable(false)
     val shellVertices = polygon.shell.vertices.map { it.toLatLng() }
@@ -285,6 +296,22 @@ class GoogleMapsFragment : SupportMapFragment(), MapFragment {
     mapsPolygon.strokeJointType = JointType.ROUND
 
     polygons.getOrPut(locationOfInterest) { mutableListOf() }.add(mapsPolygon)
+    return 1
+  }
+
+  private fun addPolyline(locationOfInterest: MapLocationOfInterest, vertices: List<Point>): Int {
+    val options = PolylineOptions()
+    options.clickable(false)
+    options.addAll(vertices.map { it.toLatLng() })
+
+    val polyline = getMap().addPolyline(options)
+    polyline.tag = Pair(locationOfInterest.locationOfInterest.id, LocationOfInterest::javaClass)
+    polyline.width = polylineStrokeWidth.toFloat()
+    polyline.color = parseColor(Style().color)
+    polyline.jointType = JointType.ROUND
+
+    polylines[locationOfInterest] = polyline
+    return 1
   }
 
   private val polylineStrokeWidth: Int
@@ -302,48 +329,44 @@ class GoogleMapsFragment : SupportMapFragment(), MapFragment {
     }
   }
 
-  private fun removeStaleLocationsOfInterest(
-    mapLocationsOfInterest: ImmutableSet<MapLocationOfInterest>
-  ) {
-    clusterManager.removeLocationsOfInterest(
-      mapLocationsOfInterest.map { it.locationOfInterest }.toSet()
-    )
-
-    val deletedIds =
-      polygons.keys.map { it.locationOfInterest.id } -
-        mapLocationsOfInterest.map { it.locationOfInterest.id }.toSet()
-    val deletedPolygons = polygons.filter { deletedIds.contains(it.key.locationOfInterest.id) }
-    deletedPolygons.values.forEach { it.forEach(MapsPolygon::remove) }
-    polygons.minusAssign(deletedPolygons.keys)
+  /** Removes the map objects of the specified LOI, returning the number of objects removed. */
+  private fun removeLocationOfInterest(mapLocationOfInterest: MapLocationOfInterest): Int {
+    val markerCount =
+      if (clusterManager.removeLocationOfInterest(mapLocationOfInterest.locationOfInterest)) 1
+      else 0
+    val removedPolygons = polygons.remove(mapLocationOfInterest).orEmpty()
+    removedPolygons.forEach { it.remove() }
+    val removedPolyline = polylines.remove(mapLocationOfInterest)
+    removedPolyline?.remove()
+    return markerCount + removedPolygons.size + (if (removedPolyline == null) 0 else 1)
   }
 
-  private fun addOrUpdateLocationOfInterest(mapLocationOfInterest: MapLocationOfInterest) {
+  /** Adds map objects for the specified LOI, returning the number of objects added. */
+  private fun addLocationOfInterest(mapLocationOfInterest: MapLocationOfInterest): Int {
     val loi = mapLocationOfInterest.locationOfInterest
 
-    when (loi.geometry) {
-      is Point -> clusterManager.addOrUpdateLocationOfInterest(loi)
+    return when (loi.geometry) {
+      is Point -> if (clusterManager.addOrUpdateLocationOfInterest(loi)) 1 else 0
       is Polygon -> addPolygon(mapLocationOfInterest, loi.geometry)
       is MultiPolygon -> addMultiPolygon(mapLocationOfInterest, loi.geometry)
-      else -> TODO()
+      is LineString -> addPolyline(mapLocationOfInterest, loi.geometry.vertices)
+      is LinearRing -> addPolyline(mapLocationOfInterest, loi.geometry.vertices)
     }
   }
 
   override fun renderLocationsOfInterest(
     mapLocationsOfInterest: ImmutableSet<MapLocationOfInterest>
   ) {
-    // Re-cluster and re-render
-    if (!mapLocationsOfInterest.isEmpty()) {
-      Timber.v(
-        "renderLocationsOfInterest() called with ${mapLocationsOfInterest.size} locations of interest"
-      )
-      removeStaleLocationsOfInterest(mapLocationsOfInterest)
-      Timber.v("Updating ${mapLocationsOfInterest.size} features")
-      mapLocationsOfInterest.forEach(this::addOrUpdateLocationOfInterest)
+    if (renderer.render(mapLocationsOfInterest)) {
+      // Re-cluster and re-render
       clusterManager.cluster()
     }
   }
 
-  override fun refresh() = renderLocationsOfInterest(clusterManager.getMapLocationsOfInterest())
+  override fun refresh() {
+    clusterManager.invalidateMarkers()
+    clusterManager.cluster()
+  }
 
   override var mapType: Int
     get() = getMap().mapType
@@ -388,6 +411,7 @@ class GoogleMapsFragment : SupportMapFragment(), MapFragment {
       getMap().moveCamera(CameraUpdateFactory.newLatLngBounds(bounds.toGoogleMapsObject(), 0))
 
   private fun addTileOverlay(filePath: String) {
+    if (localTileOverlayPaths.contains(filePath)) return
     val mbtilesFile = File(requireContext().filesDir, filePath)
 
     if (!mbtilesFile.exists()) {
@@ -396,9 +420,10 @@ class GoogleMapsFragment : SupportMapFragment(), MapFragment {
     }
 
     try {
-      val tileProvider = MapBoxOfflineTileProvider(mbtilesFile)
+      val tileProvider = MbtilesTileProvider(mbtilesFile)
       tileProvidersSubject.onNext(tileProvider)
       getMap().addTileOverlay(TileOverlayOptions().tileProvider(tileProvider))
+      localTileOverlayPaths.add(filePath)
     } catch (e: Exception) {
       Timber.e(e, "Couldn't initialize tile provider for mbtiles file $mbtilesFile")
     }
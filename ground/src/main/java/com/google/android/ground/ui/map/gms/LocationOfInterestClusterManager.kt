@@ -33,40 +33,62 @@ class LocationOfInterestClusterManager(context: Context?, map: GoogleMap) :
 
   override fun getRenderer(): LocationOfInterestClusterRenderer = renderer
 
-  fun addOrUpdateLocationOfInterest(locationOfInterest: LocationOfInterest) {
+  /**
+   * Cluster items indexed by LOI, to avoid scanning all items on each update. LOIs are compared by
+   * value, since several LOIs may share an id, e.g. the vertices of a polygon being drawn.
+   */
+  private val itemsByLoi: MutableMap<LocationOfInterest, LocationOfInterestClusterItem> =
+    HashMap()
+
+  /**
+   * Adds a marker for the specified LOI unless one is already present. Returns false if no marker
+   * was added, e.g. because the LOI can't be rendered as a marker.
+   */
+  fun addOrUpdateLocationOfInterest(locationOfInterest: LocationOfInterest): Boolean {
     if (locationOfInterest.geometry !is Point) {
       // TODO(#1152): Add support for polygons.
       Timber.d("can't manage a non-point")
-      return
+      return false
     }
 
-    val clusterItem = algorithm.items.find { it.locationOfInterest.id == locationOfInterest.id }
-
-    if (clusterItem != null) {
-      updateItem(clusterItem)
-    } else {
-      Timber.d("adding loi to cluster manager: ${locationOfInterest}")
-      addItem(
-        LocationOfInterestClusterItem(
-          locationOfInterest.geometry,
-          locationOfInterest.caption ?: "",
-          locationOfInterest.lastModified.toString(),
-          locationOfInterest,
-        )
+    if (itemsByLoi.containsKey(locationOfInterest)) return false
+    Timber.v("adding loi to cluster manager: $locationOfInterest")
+    val clusterItem =
+      LocationOfInterestClusterItem(
+        locationOfInterest.geometry,
+        locationOfInterest.caption ?: "",
+        locationOfInterest.lastModified.toString(),
+        locationOfInterest,
       )
-    }
+    itemsByLoi[locationOfInterest] = clusterItem
+    addItem(clusterItem)
+    return true
+  }
+
+  /** Removes the marker for the specified LOI. Returns false if no marker was found. */
+  fun removeLocationOfInterest(locationOfInterest: LocationOfInterest): Boolean {
+    val clusterItem = itemsByLoi.remove(locationOfInterest) ?: return false
+    removeItem(clusterItem)
+    return true
   }
 
   fun removeLocationsOfInterest(locationsOfInterest: Set<LocationOfInterest>) {
-    val existingIds = algorithm.items.map { it.locationOfInterest.id }.toSet()
-    val deletedIds = existingIds.intersect(locationsOfInterest.map { it.id }.toSet())
-    val deletedPoints: Set<LocationOfInterestClusterItem> =
-      algorithm.items.filter { deletedIds.contains(it.locationOfInterest.id) }.toSet()
+    val deletedPoints = locationsOfInterest.mapNotNull { itemsByLoi.remove(it) }
 
-    Timber.d("removing points: ${deletedPoints}")
+    Timber.d("removing points: $deletedPoints")
     removeItems(deletedPoints)
   }
 
+  /**
+   * Removes and re-adds all items so that their markers are re-rendered on the next call to
+   * [cluster], e.g. after the active LOI or zoom level changes marker icons.
+   */
+  fun invalidateMarkers() {
+    val items = algorithm.items.toList()
+    clearItems()
+    addItems(items)
+  }
+
   fun getMapLocationsOfInterest() =
     algorithm.items.map { MapLocationOfInterest(it.locationOfInterest) }.toImmutableSet()
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.ui.map.gms
+
+import android.database.sqlite.SQLiteDatabase
+import android.database.sqlite.SQLiteException
+import android.util.LruCache
+import androidx.annotation.VisibleForTesting
+import com.google.android.gms.maps.model.Tile
+import com.google.android.gms.maps.model.TileProvider
+import java.io.Closeable
+import java.io.File
+import java.util.concurrent.locks.ReentrantReadWriteLock
+import kotlin.concurrent.read
+import kotlin.concurrent.write
+import timber.log.Timber
+
+/**
+ * Serves map tiles from a local MBTiles (SQLite) file.
+ *
+ * Google Maps requests tiles from several background threads at once, so lookups share a single
+ * read-only connection and a byte-bounded cache of recently served tiles. Lookups always use the
+ * same SQL text so that the statement is compiled once and reused from the connection's prepared
+ * statement cache. Callers must invoke [close] when the provider is no longer needed.
+ */
+class MbtilesTileProvider(file: File, maxCacheBytes: Int = DEFAULT_MAX_CACHE_BYTES) :
+  TileProvider, Closeable {
+
+  /** Guards [database] so that [close] never races with in-flight tile lookups. */
+  private val lock = ReentrantReadWriteLock()
+
+  private var database: SQLiteDatabase? =
+    SQLiteDatabase.openDatabase(
+      file.absolutePath,
+      null,
+      SQLiteDatabase.OPEN_READONLY or SQLiteDatabase.NO_LOCALIZED_COLLATORS
+    )
+
+  private val tileCache =
+    object : LruCache<Long, ByteArray>(maxCacheBytes) {
+      override fun sizeOf(key: Long, value: ByteArray): Int = value.size
+    }
+
+  val minZoom: Int = readZoomMetadata("minzoom") ?: Int.MIN_VALUE
+
+  val maxZoom: Int = readZoomMetadata("maxzoom") ?: Int.MAX_VALUE
+
+  @get:VisibleForTesting
+  val cacheHitCount: Int
+    get() = tileCache.hitCount()
+
+  override fun getTile(x: Int, y: Int, zoom: Int): Tile {
+    if (zoom < minZoom || zoom > maxZoom) return TileProvider.NO_TILE
+    val key = tileKey(x, y, zoom)
+    val cached = tileCache.get(key)
+    if (cached != null) return Tile(TILE_SIZE, TILE_SIZE, cached)
+    val data = lock.read { queryTileData(x, y, zoom) } ?: return TileProvider.NO_TILE
+    tileCache.put(key, data)
+    return Tile(TILE_SIZE, TILE_SIZE, data)
+  }
+
+  /** Returns the raw tile image for the given XYZ tile, or `null` if not present. */
+  private fun queryTileData(x: Int, y: Int, zoom: Int): ByteArray? {
+    val db = database?.takeIf { it.isOpen } ?: return null
+    // MBTiles uses TMS row numbering, which counts from the bottom of the map.
+    val row = (1 shl zoom) - 1 - y
+    return try {
+      db.rawQuery(TILE_QUERY, arrayOf(zoom.toString(), x.toString(), row.toString())).use {
+        if (it.moveToFirst()) it.getBlob(0) else null
+      }
+    } catch (e: SQLiteException) {
+      Timber.e(e, "Failed to read tile $zoom/$x/$y")
+      null
+    }
+  }
+
+  private fun readZoomMetadata(name: String): Int? =
+    try {
+      database?.rawQuery(METADATA_QUERY, arrayOf(name))?.use {
+        if (it.moveToFirst()) it.getString(0)?.toIntOrNull() else null
+      }
+    } catch (e: SQLiteException) {
+      Timber.e(e, "Failed to read mbtiles metadata $name")
+      null
+    }
+
+  /** Closes the backing database and releases cached tiles. */
+  override fun close() {
+    lock.write {
+      database?.close()
+      database = null
+    }
+    tileCache.evictAll()
+  }
+
+  companion object {
+    private const val TILE_SIZE = 256
+    private const val DEFAULT_MAX_CACHE_BYTES = 4 * 1024 * 1024
+    private const val TILE_QUERY =
+      "SELECT tile_data FROM tiles WHERE zoom_level = ? AND tile_column = ? AND tile_row = ?"
+    private const val METADATA_QUERY = "SELECT value FROM metadata WHERE name = ?"
+
+    /** Packs tile coordinates into a single cache key; x and y are < 2^29 at zoom <= 29. */
+    private fun tileKey(x: Int, y: Int, zoom: Int): Long =
+      (zoom.toLong() shl 58) or (x.toLong() shl 29) or y.toLong()
+  }
+}
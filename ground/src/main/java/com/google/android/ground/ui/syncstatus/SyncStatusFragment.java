@@ -20,6 +20,7 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -34,6 +35,9 @@ import javax.inject.Inject;
 /** Fragment containing a list of mutations and their respective upload statuses. */
 @AndroidEntryPoint
 public class SyncStatusFragment extends AbstractFragment {
+  /** Number of items from the end of the list at which the next page is requested. */
+  private static final int LOAD_MORE_THRESHOLD = 10;
+
   @Inject Navigator navigator;
   @Inject LocationOfInterestHelper locationOfInterestHelper;
 
@@ -62,6 +66,17 @@ public class SyncStatusFragment extends AbstractFragment {
     recyclerView.setHasFixedSize(true);
     recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
     recyclerView.setAdapter(syncStatusListAdapter);
+    recyclerView.addOnScrollListener(
+        new RecyclerView.OnScrollListener() {
+          @Override
+          public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+            LinearLayoutManager layoutManager = (LinearLayoutManager) view.getLayoutManager();
+            int lastVisible = layoutManager.findLastVisibleItemPosition();
+            if (lastVisible >= layoutManager.getItemCount() - LOAD_MORE_THRESHOLD) {
+              viewModel.loadMoreMutations();
+            }
+          }
+        });
 
     viewModel.getMutations().observe(getViewLifecycleOwner(), syncStatusListAdapter::update);
 
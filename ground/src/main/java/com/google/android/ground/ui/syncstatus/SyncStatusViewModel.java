@@ -27,12 +27,14 @@ import com.google.android.ground.model.mutation.Mutation;
 import com.google.android.ground.repository.LocationOfInterestRepository;
 import com.google.android.ground.repository.SurveyRepository;
 import com.google.android.ground.rx.annotations.Cold;
+import com.google.android.ground.rx.annotations.Hot;
 import com.google.android.ground.ui.common.AbstractViewModel;
 import com.google.android.ground.ui.common.Navigator;
 import com.google.android.ground.ui.offlinebasemap.OfflineAreasFragmentDirections;
 import com.google.common.collect.ImmutableList;
 import io.reactivex.Flowable;
 import io.reactivex.Single;
+import io.reactivex.processors.BehaviorProcessor;
 import javax.inject.Inject;
 
 /**
@@ -40,7 +42,17 @@ import javax.inject.Inject;
  */
 public class SyncStatusViewModel extends AbstractViewModel {
 
+  /** Number of additional mutations loaded each time the user scrolls to the end of the list. */
+  static final int PAGE_SIZE = 50;
+
+  /** Maximum number of mutations to load, grows by {@link #PAGE_SIZE} as more are requested. */
+  @Hot(replays = true)
+  private final BehaviorProcessor<Integer> mutationLimit =
+      BehaviorProcessor.createDefault(PAGE_SIZE);
+
   private final LiveData<ImmutableList<Pair<LocationOfInterest, Mutation>>> mutations;
+  private final LiveData<Integer> pendingMutationCount;
+  private final LiveData<Integer> failedMutationCount;
   private final Navigator navigator;
   private final SurveyRepository surveyRepository;
   private final LocationOfInterestRepository locationOfInterestRepository;
@@ -57,6 +69,12 @@ public class SyncStatusViewModel extends AbstractViewModel {
     this.mutations =
         LiveDataReactiveStreams.fromPublisher(
             getMutationsOnceAndStream().switchMap(this::loadLocationsOfInterestAndPair));
+    this.pendingMutationCount =
+        LiveDataReactiveStreams.fromPublisher(
+            getMutationCountOnceAndStream(Mutation.SyncStatus.PENDING));
+    this.failedMutationCount =
+        LiveDataReactiveStreams.fromPublisher(
+            getMutationCountOnceAndStream(Mutation.SyncStatus.FAILED));
   }
 
   private Flowable<ImmutableList<Pair<LocationOfInterest, Mutation>>>
@@ -81,10 +99,40 @@ public class SyncStatusViewModel extends AbstractViewModel {
         .switchMap(
             survey ->
                 survey
-                    .map(surveyRepository::getMutationsOnceAndStream)
+                    .map(
+                        activeSurvey ->
+                            mutationLimit.switchMap(
+                                limit ->
+                                    surveyRepository.getMutationsOnceAndStream(
+                                        activeSurvey, limit)))
                     .orElse(Flowable.just(ImmutableList.of())));
   }
 
+  private Flowable<Integer> getMutationCountOnceAndStream(Mutation.SyncStatus syncStatus) {
+    return surveyRepository
+        .getActiveSurvey()
+        .switchMap(
+            survey ->
+                survey
+                    .map(
+                        activeSurvey ->
+                            surveyRepository.getMutationCountOnceAndStream(
+                                activeSurvey, syncStatus))
+                    .orElse(Flowable.just(0)));
+  }
+
+  /**
+   * Requests the next page of mutations. Ignored if the currently loaded list is shorter than the
+   * current limit, since no more mutations remain.
+   */
+  public void loadMoreMutations() {
+    ImmutableList<Pair<LocationOfInterest, Mutation>> loaded = mutations.getValue();
+    int limit = mutationLimit.getValue();
+    if (loaded != null && loaded.size() >= limit) {
+      mutationLimit.onNext(limit + PAGE_SIZE);
+    }
+  }
+
   public void showOfflineAreaSelector() {
     navigator.navigate(OfflineAreasFragmentDirections.showOfflineAreaSelector());
   }
@@ -93,4 +141,16 @@ public class SyncStatusViewModel extends AbstractViewModel {
   LiveData<ImmutableList<Pair<LocationOfInterest, Mutation>>> getMutations() {
     return mutations;
   }
+
+  /** Number of changes in the active survey which are waiting to be synced. */
+  @Cold(replays = true, terminates = false)
+  public LiveData<Integer> getPendingMutationCount() {
+    return pendingMutationCount;
+  }
+
+  /** Number of changes in the active survey which could not be synced after repeated attempts. */
+  @Cold(replays = true, terminates = false)
+  public LiveData<Integer> getFailedMutationCount() {
+    return failedMutationCount;
+  }
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.model.mutation
+
+import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.model.geometry.Point
+import com.google.android.ground.model.mutation.Mutation.Type
+import com.google.android.ground.model.submission.TaskDataDelta
+import com.google.android.ground.model.submission.TaskDataMap
+import com.google.android.ground.model.submission.TextTaskData
+import com.google.android.ground.model.task.Task
+import com.google.common.collect.ImmutableList
+import com.google.common.truth.Truth.assertThat
+import java.util.*
+import org.junit.Test
+
+class MutationCompactorTest {
+
+  @Test
+  fun testCompact_createThenUpdate_foldsIntoCreate() {
+    val create = submissionMutation(1, Type.CREATE, delta("a", "1"), delta("b", "2"))
+    val update = submissionMutation(2, Type.UPDATE, delta("a", "3"))
+
+    val compacted = MutationCompactor.compact(ImmutableList.of(create, update))
+
+    val expectedDeltas = ImmutableList.of(delta("a", "3"), delta("b", "2"))
+    assertThat(compacted)
+      .containsExactly(update.copy(type = Type.CREATE, taskDataDeltas = expectedDeltas))
+  }
+
+  @Test
+  fun testCompact_updateThenDelete_foldsIntoDelete() {
+    val update = submissionMutation(1, Type.UPDATE, delta("a", "1"))
+    val delete = submissionMutation(2, Type.DELETE)
+
+    assertThat(MutationCompactor.compact(ImmutableList.of(update, delete))).containsExactly(delete)
+  }
+
+  @Test
+  fun testCompact_differentSubmissions_notFolded() {
+    val first = submissionMutation(1, Type.CREATE, delta("a", "1"))
+    val second = submissionMutation(2, Type.UPDATE, delta("a", "2")).copy(submissionId = "other")
+
+    assertThat(MutationCompactor.compact(ImmutableList.of(first, second)))
+      .containsExactly(first, second)
+      .inOrder()
+  }
+
+  @Test
+  fun testCompact_differentUsers_notFolded() {
+    val first = submissionMutation(1, Type.CREATE, delta("a", "1"))
+    val second = submissionMutation(2, Type.UPDATE, delta("a", "2")).copy(userId = "other")
+
+    assertThat(MutationCompactor.compact(ImmutableList.of(first, second)))
+      .containsExactly(first, second)
+      .inOrder()
+  }
+
+  @Test
+  fun testCompact_afterDelete_notFolded() {
+    val delete = submissionMutation(1, Type.DELETE)
+    val update = submissionMutation(2, Type.UPDATE, delta("a", "1"))
+
+    assertThat(MutationCompactor.compact(ImmutableList.of(delete, update)))
+      .containsExactly(delete, update)
+      .inOrder()
+  }
+
+  @Test
+  fun testCompact_loiMutations_keepsLatestGeometry() {
+    val create = loiMutation(1, Type.CREATE, POINT_1)
+    val submission = submissionMutation(2, Type.CREATE, delta("a", "1"))
+    val move = loiMutation(3, Type.UPDATE, POINT_2)
+    val unchanged = loiMutation(4, Type.UPDATE, null)
+
+    assertThat(MutationCompactor.compact(ImmutableList.of(create, submission, move, unchanged)))
+      .containsExactly(unchanged.copy(type = Type.CREATE, geometry = POINT_2), submission)
+      .inOrder()
+  }
+
+  @Test
+  fun testCompact_randomSequences_equivalentToSequentialApplication() {
+    val random = Random(SEED)
+    repeat(ITERATIONS) {
+      val mutations = randomSubmissionMutations(random)
+
+      val compacted = MutationCompactor.compact(mutations)
+
+      assertThat(compacted).hasSize(1)
+      val folded = compacted[0] as SubmissionMutation
+      val expectedType =
+        if (mutations.any { it.type == Type.DELETE }) Type.DELETE else mutations[0].type
+      assertThat(folded.type).isEqualTo(expectedType)
+      if (expectedType != Type.DELETE) {
+        val sequential =
+          mutations.fold(TaskDataMap()) { responses, mutation ->
+            responses.copyWithDeltas(mutation.taskDataDeltas)
+          }
+        assertThat(TaskDataMap().copyWithDeltas(folded.taskDataDeltas)).isEqualTo(sequential)
+      }
+      assertThat(folded.clientTimestamp).isEqualTo(mutations.last().clientTimestamp)
+    }
+  }
+
+  @Test
+  fun testMergeDeltas_keepsLastChangePerTask() {
+    val deltas = ImmutableList.of(delta("a", "1"), delta("b", "2"), delta("a", ""))
+
+    assertThat(MutationCompactor.mergeDeltas(deltas))
+      .containsExactly(delta("a", ""), delta("b", "2"))
+      .inOrder()
+  }
+
+  /**
+   * Returns a CREATE or UPDATE followed by up to [MAX_UPDATES] random updates, and sometimes a
+   * final DELETE.
+   */
+  private fun randomSubmissionMutations(random: Random): List<SubmissionMutation> {
+    val first = if (random.nextBoolean()) Type.CREATE else Type.UPDATE
+    val mutations = mutableListOf(submissionMutation(0, first, *randomDeltas(random)))
+    repeat(random.nextInt(MAX_UPDATES + 1)) {
+      mutations.add(submissionMutation(mutations.size.toLong(), Type.UPDATE, *randomDeltas(random)))
+    }
+    if (random.nextInt(4) == 0) {
+      mutations.add(submissionMutation(mutations.size.toLong(), Type.DELETE))
+    }
+    return mutations
+  }
+
+  private fun randomDeltas(random: Random): Array<TaskDataDelta> =
+    Array(random.nextInt(TASK_IDS.size + 1)) {
+      // Empty values clear the response.
+      val value = if (random.nextInt(3) == 0) "" else random.nextInt(100).toString()
+      delta(TASK_IDS[random.nextInt(TASK_IDS.size)], value)
+    }
+
+  companion object {
+    private const val SEED = 42L
+    private const val ITERATIONS = 500
+    private const val MAX_UPDATES = 6
+    private val TASK_IDS = listOf("a", "b", "c", "d")
+    private val POINT_1 = Point(Coordinate(1.0, 1.0))
+    private val POINT_2 = Point(Coordinate(2.0, 2.0))
+
+    private fun delta(taskId: String, value: String) =
+      TaskDataDelta(taskId, Task.Type.TEXT, TextTaskData.fromString(value))
+
+    private fun submissionMutation(id: Long, type: Type, vararg deltas: TaskDataDelta) =
+      SubmissionMutation(
+        id = id,
+        type = type,
+        surveyId = "survey id",
+        locationOfInterestId = "loi id",
+        userId = "user id",
+        clientTimestamp = Date(id),
+        submissionId = "submission id",
+        taskDataDeltas = ImmutableList.copyOf(deltas)
+      )
+
+    private fun loiMutation(id: Long, type: Type, point: Point?) =
+      LocationOfInterestMutation(
+        id = id,
+        type = type,
+        surveyId = "survey id",
+        locationOfInterestId = "loi id",
+        userId = "user id",
+        clientTimestamp = Date(id),
+        jobId = "job id",
+        geometry = point
+      )
+  }
+}
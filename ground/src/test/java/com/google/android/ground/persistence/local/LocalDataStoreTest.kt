@@ -15,19 +15,24 @@
  */
 package com.google.android.ground.persistence.local
 
+import androidx.room.InvalidationTracker
 import com.google.android.gms.maps.model.LatLng
 import com.google.android.gms.maps.model.LatLngBounds
 import com.google.android.ground.BaseHiltTest
+import com.google.android.ground.model.AuditInfo
 import com.google.android.ground.model.Survey
 import com.google.android.ground.model.User
 import com.google.android.ground.model.basemap.OfflineArea
 import com.google.android.ground.model.basemap.tile.TileSet
 import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.model.geometry.LineString
 import com.google.android.ground.model.geometry.LinearRing
+import com.google.android.ground.model.geometry.MultiPolygon
 import com.google.android.ground.model.geometry.Point
 import com.google.android.ground.model.geometry.Polygon
 import com.google.android.ground.model.job.Job
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
+import com.google.android.ground.model.locationofinterest.LocationOfInterestChanges
 import com.google.android.ground.model.mutation.LocationOfInterestMutation
 import com.google.android.ground.model.mutation.Mutation
 import com.google.android.ground.model.mutation.Mutation.SyncStatus
@@ -36,7 +41,12 @@ import com.google.android.ground.model.submission.Submission
 import com.google.android.ground.model.submission.TaskDataDelta
 import com.google.android.ground.model.submission.TaskDataMap
 import com.google.android.ground.model.submission.TextTaskData
+import com.google.android.ground.model.task.MultipleChoice
+import com.google.android.ground.model.task.Option
 import com.google.android.ground.model.task.Task
+import com.google.android.ground.persistence.local.room.LocalDatabase
+import com.google.android.ground.persistence.local.room.LocalWriteQueue
+import com.google.android.ground.persistence.local.room.RoomLocalDataStore
 import com.google.android.ground.persistence.local.room.converter.formatVertices
 import com.google.android.ground.persistence.local.room.converter.parseVertices
 import com.google.android.ground.persistence.local.room.dao.LocationOfInterestDao
@@ -44,13 +54,19 @@ import com.google.android.ground.persistence.local.room.dao.SubmissionDao
 import com.google.android.ground.persistence.local.room.entity.LocationOfInterestEntity
 import com.google.android.ground.persistence.local.room.entity.SubmissionEntity
 import com.google.android.ground.persistence.local.room.models.EntityState
+import com.google.android.ground.rx.RxSchedulers
+import com.google.android.ground.ui.map.Bounds
+import com.google.android.ground.util.toImmutableList
 import com.google.common.collect.ImmutableList
 import com.google.common.collect.ImmutableMap
 import com.google.common.collect.ImmutableSet
 import com.google.common.truth.Truth.assertThat
 import dagger.hilt.android.testing.HiltAndroidTest
 import java.util.*
+import java.util.concurrent.TimeUnit
+import java8.util.Optional
 import javax.inject.Inject
+import kotlinx.collections.immutable.persistentListOf
 import org.hamcrest.MatcherAssert
 import org.hamcrest.Matchers
 import org.junit.Test
@@ -68,6 +84,8 @@ class LocalDataStoreTest : BaseHiltTest() {
 
   @Inject lateinit var locationOfInterestDao: LocationOfInterestDao
 
+  @Inject lateinit var database: LocalDatabase
+
   @Test
   fun testInsertAndGetSurveys() {
     localDataStore.insertOrUpdateSurvey(TEST_SURVEY).test().assertComplete()
@@ -112,6 +130,69 @@ class LocalDataStoreTest : BaseHiltTest() {
     }
   }
 
+  @Test
+  fun testInsertOrUpdateSurvey_replacesTasksAndOptions() {
+    val options = persistentListOf(Option("option 1", "code 1", "label 1"))
+    val task =
+      Task(
+        "mc task id",
+        1,
+        Task.Type.MULTIPLE_CHOICE,
+        "mc task label",
+        false,
+        MultipleChoice(options, MultipleChoice.Cardinality.SELECT_ONE)
+      )
+    val job = Job("mc job id", "mc job name", ImmutableMap.of(task.id, task))
+    val survey = TEST_SURVEY.copy(jobMap = ImmutableMap.of(TEST_JOB.id, TEST_JOB, job.id, job))
+    localDataStore.insertOrUpdateSurvey(survey).blockingAwait()
+    val updatedTask =
+      task.copy(
+        multipleChoice =
+          MultipleChoice(
+            persistentListOf(Option("option 2", "code 2", "label 2")),
+            MultipleChoice.Cardinality.SELECT_MULTIPLE
+          )
+      )
+    val updatedSurvey =
+      survey.copy(
+        jobMap = ImmutableMap.of(job.id, job.copy(tasks = ImmutableMap.of(task.id, updatedTask)))
+      )
+
+    localDataStore.insertOrUpdateSurvey(updatedSurvey).test().assertComplete()
+
+    localDataStore.getSurveyById(survey.id).test().assertValue(updatedSurvey)
+  }
+
+  @Test
+  fun testInsertOrUpdateSurvey_writesInSingleTransaction() {
+    val options = persistentListOf(Option("option 1", "code 1", "label 1"))
+    val task =
+      Task(
+        "mc task id",
+        1,
+        Task.Type.MULTIPLE_CHOICE,
+        "mc task label",
+        false,
+        MultipleChoice(options, MultipleChoice.Cardinality.SELECT_ONE)
+      )
+    val job = Job("mc job id", "mc job name", ImmutableMap.of(task.id, task))
+    val survey = TEST_SURVEY.copy(jobMap = ImmutableMap.of(job.id, job))
+    val invalidatedTables = mutableListOf<Set<String>>()
+    // Room notifies observers once for each committed transaction that changed their tables.
+    database.invalidationTracker.addObserver(
+      object : InvalidationTracker.Observer("survey", "job", "task", "multiple_choice", "option") {
+        override fun onInvalidated(tables: MutableSet<String>) {
+          invalidatedTables.add(tables.toSet())
+        }
+      }
+    )
+
+    localDataStore.insertOrUpdateSurvey(survey).test().assertComplete()
+
+    assertThat(invalidatedTables)
+      .containsExactly(setOf("survey", "job", "task", "multiple_choice", "option"))
+  }
+
   @Test
   fun testInsertAndGetUser() {
     localDataStore.insertOrUpdateUser(TEST_USER).test().assertComplete()
@@ -163,6 +244,278 @@ class LocalDataStoreTest : BaseHiltTest() {
     subscriber.assertValueSet(ImmutableSet.of(ImmutableSet.of(), ImmutableSet.of(loi)))
   }
 
+  @Test
+  fun testGetLoiChangesOnceAndStream() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    val subscriber = localDataStore.getLocationOfInterestChangesOnceAndStream(TEST_SURVEY).test()
+
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    val loi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+    val updateMutation = TEST_LOI_MUTATION.copy(id = 2L, type = Mutation.Type.UPDATE)
+    localDataStore.applyAndEnqueue(updateMutation).blockingAwait()
+    val updatedLoi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+    val deleteMutation = TEST_LOI_MUTATION.copy(id = 3L, type = Mutation.Type.DELETE)
+    localDataStore.applyAndEnqueue(deleteMutation).blockingAwait()
+
+    subscriber.assertValues(
+      LocationOfInterestChanges(),
+      LocationOfInterestChanges(added = ImmutableSet.of(loi)),
+      LocationOfInterestChanges(updated = ImmutableSet.of(updatedLoi)),
+      LocationOfInterestChanges(removedIds = ImmutableSet.of("loi id"))
+    )
+  }
+
+  @Test
+  fun testGetLoiChangesOnceAndStream_afterMergeWithDeletions_emitsOnlyAffectedLois() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    val loi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+    val subscriber = localDataStore.getLocationOfInterestChangesOnceAndStream(TEST_SURVEY).test()
+    val otherLoi = loi.copy(id = "other loi id")
+
+    localDataStore
+      .mergeLocationsOfInterest(ImmutableList.of(otherLoi), ImmutableSet.of("loi id"))
+      .blockingAwait()
+
+    subscriber.assertValueCount(2)
+    subscriber.assertValueAt(0, LocationOfInterestChanges(added = ImmutableSet.of(loi)))
+    subscriber.assertValueAt(1) {
+      it.added.map { added -> added.id } == listOf("other loi id") &&
+        it.updated.isEmpty() &&
+        it.removedIds == ImmutableSet.of("loi id")
+    }
+  }
+
+  @Test
+  fun testGetLoisWithinBoundsOnceAndStream() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_POLYGON_LOI_MUTATION).blockingAwait()
+    val loi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+
+    localDataStore
+      .getLocationsOfInterestWithinBoundsOnceAndStream(
+        TEST_SURVEY,
+        Bounds(Coordinate(49.873, 8.652), Coordinate(50.0, 9.0))
+      )
+      .test()
+      .assertValue(ImmutableSet.of(loi))
+    localDataStore
+      .getLocationsOfInterestWithinBoundsOnceAndStream(
+        TEST_SURVEY,
+        Bounds(Coordinate(49.8, 8.6), Coordinate(49.87, 8.64))
+      )
+      .test()
+      .assertValue(ImmutableSet.of())
+  }
+
+  @Test
+  fun testGetLoiSummariesWithinBoundsOnceAndStream() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_POLYGON_LOI_MUTATION).blockingAwait()
+    val loi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+
+    localDataStore
+      .getLocationOfInterestSummariesWithinBoundsOnceAndStream(
+        TEST_SURVEY,
+        Bounds(Coordinate(49.873, 8.652), Coordinate(50.0, 9.0))
+      )
+      .test()
+      .assertValue {
+        it.single().id == loi.id &&
+          it.single().jobId == loi.job.id &&
+          it.single().geometry == loi.geometry &&
+          it.single().lastModifiedMillis == loi.lastModified.clientTimestamp.time
+      }
+    localDataStore
+      .getLocationOfInterestSummariesWithinBoundsOnceAndStream(
+        TEST_SURVEY,
+        Bounds(Coordinate(49.8, 8.6), Coordinate(49.87, 8.64))
+      )
+      .test()
+      .assertValue(ImmutableSet.of())
+  }
+
+  @Test
+  fun testGetLoiSummariesWithinBoundsOnceAndStream_returnsCaptionAndSimplifiedGeometry() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    val coordinates = (0..1000).map { Coordinate(50.0 + it / 10000.0, 9.0) }.toImmutableList()
+    val loi =
+      localDataStore
+        .getLocationOfInterest(TEST_SURVEY, "loi id")
+        .blockingGet()
+        .copy(caption = "caption", geometry = LineString(coordinates))
+    localDataStore.mergeLocationOfInterest(loi).blockingAwait()
+
+    val summary =
+      localDataStore
+        .getLocationOfInterestSummariesWithinBoundsOnceAndStream(
+          TEST_SURVEY,
+          Bounds(Coordinate(49.0, 8.0), Coordinate(51.0, 10.0))
+        )
+        .blockingFirst()
+        .single()
+
+    assertThat(summary.caption).isEqualTo("caption")
+    assertThat(summary.geometry.vertices).hasSize(100)
+    assertThat(summary.geometry.vertices.first()).isEqualTo(loi.geometry.vertices.first())
+    assertThat(summary.geometry.vertices.last()).isEqualTo(loi.geometry.vertices.last())
+    // The full LOI is unaffected.
+    localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").test().assertValue(loi)
+  }
+
+  @Test
+  fun testApplyAndEnqueue_updateLoi_keepsCaption() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    val loi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+    localDataStore.mergeLocationOfInterest(loi.copy(caption = "caption")).blockingAwait()
+
+    val update =
+      createTestLocationOfInterestMutation(TEST_POINT_2).copy(id = 2L, type = Mutation.Type.UPDATE)
+    localDataStore.applyAndEnqueue(update).blockingAwait()
+
+    localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").test().assertValue {
+      it.caption == "caption" && it.geometry == TEST_POINT_2
+    }
+  }
+
+  @Test
+  fun testGetLoisByIds() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    val loi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+
+    localDataStore
+      .getLocationsOfInterest(TEST_SURVEY, listOf("loi id", "missing id"))
+      .test()
+      .assertValue(ImmutableList.of(loi))
+  }
+
+  @Test
+  fun testGetLoisWithinBoundsOnceAndStream_acrossAntimeridian() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore
+      .applyAndEnqueue(createTestLocationOfInterestMutation(Point(Coordinate(10.0, 179.5))))
+      .blockingAwait()
+    val loi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+
+    localDataStore
+      .getLocationsOfInterestWithinBoundsOnceAndStream(
+        TEST_SURVEY,
+        Bounds(Coordinate(0.0, 179.0), Coordinate(20.0, -179.0))
+      )
+      .test()
+      .assertValue(ImmutableSet.of(loi))
+  }
+
+  @Test
+  fun testGetLoisWithinBoundsOnceAndStream_withoutGeometry_isExcluded() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION.copy(geometry = null)).blockingAwait()
+    val world = Bounds(Coordinate(-90.0, -180.0), Coordinate(90.0, 180.0))
+
+    localDataStore
+      .getLocationsOfInterestWithinBoundsOnceAndStream(TEST_SURVEY, world)
+      .test()
+      .assertValue(ImmutableSet.of())
+    localDataStore
+      .getLocationOfInterestSummariesWithinBoundsOnceAndStream(TEST_SURVEY, world)
+      .test()
+      .assertValue(ImmutableSet.of())
+  }
+
+  @Test
+  fun testGetMutationsOnceAndStream_returnsMostRecentFirst() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    val loiMutation = TEST_LOI_MUTATION.copy(clientTimestamp = Date(1000))
+    val submissionMutation = TEST_SUBMISSION_MUTATION.copy(clientTimestamp = Date(2000))
+    localDataStore.applyAndEnqueue(loiMutation).blockingAwait()
+    localDataStore.applyAndEnqueue(submissionMutation).blockingAwait()
+
+    localDataStore
+      .getMutationsOnceAndStream(TEST_SURVEY, 10)
+      .test()
+      .assertValue(ImmutableList.of(submissionMutation, loiMutation))
+  }
+
+  @Test
+  fun testGetMutationsOnceAndStream_appliesLimit() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    val loiMutation = TEST_LOI_MUTATION.copy(clientTimestamp = Date(1000))
+    val submissionMutation = TEST_SUBMISSION_MUTATION.copy(clientTimestamp = Date(2000))
+    localDataStore.applyAndEnqueue(loiMutation).blockingAwait()
+    localDataStore.applyAndEnqueue(submissionMutation).blockingAwait()
+
+    localDataStore
+      .getMutationsOnceAndStream(TEST_SURVEY, 1)
+      .test()
+      .assertValue(ImmutableList.of(submissionMutation))
+  }
+
+  @Test
+  fun testGetAllPendingMutations() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    val otherLoiMutation = TEST_LOI_MUTATION.copy(id = 2L, locationOfInterestId = "other loi id")
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    localDataStore.applyAndEnqueue(otherLoiMutation).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_SUBMISSION_MUTATION).blockingAwait()
+    localDataStore.finalizePendingMutations(ImmutableList.of(TEST_LOI_MUTATION)).blockingAwait()
+
+    localDataStore.allPendingMutations
+      .test()
+      .assertValue(ImmutableList.of(otherLoiMutation, TEST_SUBMISSION_MUTATION))
+  }
+
+  @Test
+  fun testGetMutationCountOnceAndStream() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_SUBMISSION_MUTATION).blockingAwait()
+    val failedMutation = TEST_LOI_MUTATION.copy(syncStatus = SyncStatus.FAILED)
+    localDataStore.updateMutations(ImmutableList.of(failedMutation)).blockingAwait()
+
+    localDataStore
+      .getMutationCountOnceAndStream(TEST_SURVEY, SyncStatus.PENDING)
+      .test()
+      .assertValue(1)
+    localDataStore
+      .getMutationCountOnceAndStream(TEST_SURVEY, SyncStatus.FAILED)
+      .test()
+      .assertValue(1)
+  }
+
+  @Test
+  fun testDeleteCompletedMutations() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    val loiMutation = TEST_LOI_MUTATION.copy(clientTimestamp = Date(1000))
+    val submissionMutation = TEST_SUBMISSION_MUTATION.copy(clientTimestamp = Date(2000))
+    localDataStore.applyAndEnqueue(loiMutation).blockingAwait()
+    localDataStore.applyAndEnqueue(submissionMutation).blockingAwait()
+    localDataStore.finalizePendingMutations(ImmutableList.of(loiMutation)).blockingAwait()
+
+    localDataStore.deleteCompletedMutations(3000, 1).test().assertValue(1)
+
+    localDataStore
+      .getMutationsOnceAndStream(TEST_SURVEY, 10)
+      .test()
+      .assertValue(ImmutableList.of(submissionMutation))
+  }
+
   @Test
   fun testUpdateMutations() {
     localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
@@ -201,6 +554,22 @@ class LocalDataStoreTest : BaseHiltTest() {
     localDataStore.getPendingMutations("loi id").test().assertValue { it.isEmpty() }
   }
 
+  @Test
+  fun testDeleteLoi_afterQueuedUpsert_isAppliedLast() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    val loi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+
+    // Both writes are queued before either is committed.
+    val upsert = localDataStore.mergeLocationOfInterest(loi.copy(geometry = TEST_POINT_2)).test()
+    val delete = localDataStore.deleteLocationOfInterest("loi id").test()
+
+    upsert.await().assertComplete()
+    delete.await().assertComplete()
+    localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").test().assertNoValues()
+  }
+
   @Test
   fun testMergeLoi() {
     localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
@@ -214,6 +583,96 @@ class LocalDataStoreTest : BaseHiltTest() {
     }
   }
 
+  @Test
+  fun testMergeLois_updatesInsertsAndDeletes() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    val loi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+    val updatedLoi = loi.copy(geometry = TEST_POINT_2)
+    val newLoi = loi.copy(id = "new loi id")
+
+    localDataStore
+      .mergeLocationsOfInterest(ImmutableList.of(updatedLoi, newLoi), ImmutableSet.of())
+      .test()
+      .assertComplete()
+
+    localDataStore.getLocationsOfInterestOnceAndStream(TEST_SURVEY).test().assertValueAt(0) {
+      it == ImmutableSet.of(updatedLoi, newLoi)
+    }
+
+    localDataStore
+      .mergeLocationsOfInterest(ImmutableList.of(), ImmutableSet.of("loi id", "missing id"))
+      .test()
+      .assertComplete()
+
+    localDataStore.getLocationsOfInterestOnceAndStream(TEST_SURVEY).test().assertValueAt(0) {
+      it == ImmutableSet.of(newLoi)
+    }
+  }
+
+  @Test
+  fun testReplaceLois_deletesRemoteLoisMissingFromSnapshot() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    // Created locally and not yet synced, so it has no server timestamp.
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    val localLoi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+    val syncedAuditInfo = AuditInfo(TEST_USER, Date(1000), Optional.of(Date(1000)))
+    val unmodifiedLoi = localLoi.copy(id = "unmodified loi id", lastModified = syncedAuditInfo)
+    val otherLoi = localLoi.copy(id = "other loi id", lastModified = syncedAuditInfo)
+    localDataStore
+      .mergeLocationsOfInterest(ImmutableList.of(unmodifiedLoi, otherLoi), ImmutableSet.of())
+      .blockingAwait()
+
+    // The unmodified LOI was deleted remotely, so it's missing from the snapshot.
+    localDataStore
+      .replaceLocationsOfInterest(TEST_SURVEY, ImmutableList.of(otherLoi))
+      .test()
+      .assertComplete()
+
+    localDataStore.getLocationsOfInterestOnceAndStream(TEST_SURVEY).test().assertValueAt(0) {
+      it == ImmutableSet.of(localLoi, otherLoi)
+    }
+  }
+
+  @Test
+  fun testMergeMultiPolygonLoi() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    val loi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+    val multiPolygon =
+      MultiPolygon(
+        ImmutableList.of(
+          Polygon(LinearRing(TEST_POLYGON_1.map { it.coordinate }), ImmutableList.of()),
+          Polygon(
+            LinearRing(TEST_POLYGON_2.map { it.coordinate }),
+            ImmutableList.of(LinearRing(TEST_POLYGON_1.map { it.coordinate }))
+          )
+        )
+      )
+    val newLoi = loi.copy(geometry = multiPolygon)
+    localDataStore.mergeLocationOfInterest(newLoi).test().assertComplete()
+    localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").test().assertValue {
+      it.geometry == multiPolygon
+    }
+  }
+
+  @Test
+  fun testMergeLineStringLoi() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    val loi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+    val lineString = LineString(TEST_POLYGON_2.map { it.coordinate }.toImmutableList())
+    val newLoi = loi.copy(geometry = lineString)
+    localDataStore.mergeLocationOfInterest(newLoi).test().assertComplete()
+    localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").test().assertValue {
+      it.geometry == lineString
+    }
+  }
+
   @Test
   fun testMergePolygonLoi() {
     localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
@@ -285,6 +744,53 @@ class LocalDataStoreTest : BaseHiltTest() {
       .isEqualTo(TextTaskData.fromString("updated taskData"))
   }
 
+  @Test
+  fun testMergeSubmissions() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_SUBMISSION_MUTATION).blockingAwait()
+    val loi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+    val taskDataMap =
+      TaskDataMap(ImmutableMap.of("task id", TextTaskData.fromString("foo value").get()))
+    val submission =
+      localDataStore.getSubmission(loi, "submission id").blockingGet().copy(responses = taskDataMap)
+    val newSubmission = submission.copy(id = "new submission id")
+
+    localDataStore
+      .mergeSubmissions(ImmutableList.of(submission, newSubmission))
+      .test()
+      .assertComplete()
+
+    // Pending local changes are applied on top of the remote submission.
+    val responses = localDataStore.getSubmission(loi, submission.id).blockingGet().responses
+    assertThat(responses.getResponse("task id"))
+      .isEqualTo(TextTaskData.fromString("updated taskData"))
+    val newResponses = localDataStore.getSubmission(loi, newSubmission.id).blockingGet().responses
+    assertThat(newResponses.getResponse("task id")).isEqualTo(TextTaskData.fromString("foo value"))
+  }
+
+  @Test
+  fun testMergeSubmissions_withRealSchedulers() {
+    localDataStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localDataStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    localDataStore.applyAndEnqueue(TEST_SUBMISSION_MUTATION).blockingAwait()
+    val loi = localDataStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+    val submission = localDataStore.getSubmission(loi, "submission id").blockingGet()
+    // Run writes and their callers on separate background threads, as in production.
+    val roomLocalDataStore = localDataStore as RoomLocalDataStore
+    roomLocalDataStore.schedulers = RxSchedulers()
+    roomLocalDataStore.writeQueue = LocalWriteQueue(database, roomLocalDataStore.schedulers)
+
+    val merged =
+      localDataStore
+        .mergeSubmissions(ImmutableList.of(submission, submission.copy(id = "new submission id")))
+        .blockingAwait(MERGE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+
+    assertThat(merged).isTrue()
+  }
+
   @Test
   fun testDeleteSubmission() {
     // Add test submission
@@ -364,6 +870,22 @@ class LocalDataStoreTest : BaseHiltTest() {
       .assertValue(TEST_PENDING_TILE_SOURCE)
   }
 
+  @Test
+  fun testInsertOrUpdateTileSets() {
+    localDataStore.insertOrUpdateTileSet(TEST_PENDING_TILE_SOURCE).blockingAwait()
+    val updatedTileSet = TEST_PENDING_TILE_SOURCE.copy(state = TileSet.State.DOWNLOADED)
+
+    localDataStore
+      .insertOrUpdateTileSets(ImmutableList.of(updatedTileSet, TEST_FAILED_TILE_SOURCE))
+      .test()
+      .assertComplete()
+
+    localDataStore
+      .tileSetsOnceAndStream
+      .test()
+      .assertValue(ImmutableSet.of(updatedTileSet, TEST_FAILED_TILE_SOURCE))
+  }
+
   @Test
   fun testGetTilesOnceAndStream() {
     val subscriber = localDataStore.tileSetsOnceAndStream.test()
@@ -399,8 +921,8 @@ class LocalDataStoreTest : BaseHiltTest() {
   }
 
   @Test
-  fun testParseVertices_emptyString() {
-    assertThat(parseVertices("")).isEqualTo(ImmutableList.of<Any>())
+  fun testParseVertices_null() {
+    assertThat(parseVertices(null)).isEqualTo(ImmutableList.of<Any>())
   }
 
   @Test
@@ -420,6 +942,7 @@ class LocalDataStoreTest : BaseHiltTest() {
   }
 
   companion object {
+    private const val MERGE_TIMEOUT_SECONDS = 5L
     private val TEST_USER = User("user id", "user@gmail.com", "user 1")
     private val TEST_TASK = Task("task id", 1, Task.Type.TEXT, "task label", false)
     private val TEST_JOB =
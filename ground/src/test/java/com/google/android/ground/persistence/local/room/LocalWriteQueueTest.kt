@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.persistence.local.room
+
+import com.google.android.ground.BaseHiltTest
+import com.google.android.ground.Config
+import com.google.android.ground.model.User
+import com.google.android.ground.persistence.local.room.converter.toLocalDataStoreObject
+import com.google.android.ground.persistence.local.room.dao.UserDao
+import com.google.android.ground.rx.Schedulers
+import com.google.common.truth.Truth.assertThat
+import dagger.hilt.android.testing.HiltAndroidTest
+import io.reactivex.schedulers.TestScheduler
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@HiltAndroidTest
+@RunWith(RobolectricTestRunner::class)
+class LocalWriteQueueTest : BaseHiltTest() {
+  @Inject lateinit var writeQueue: LocalWriteQueue
+
+  @Inject lateinit var userDao: UserDao
+
+  @Inject lateinit var database: LocalDatabase
+
+  private val ioScheduler = TestScheduler()
+
+  /** A queue which only commits writes once [ioScheduler] is advanced. */
+  private val pausedWriteQueue by lazy {
+    LocalWriteQueue(
+      database,
+      object : Schedulers {
+        override fun io() = ioScheduler
+
+        override fun ui() = ioScheduler
+
+        override fun computation() = ioScheduler
+      }
+    )
+  }
+
+  @Test
+  fun testEnqueue_commitsWrite() {
+    writeQueue
+      .enqueue { userDao.insert(TEST_USER.toLocalDataStoreObject()).blockingAwait() }
+      .test()
+      .assertComplete()
+
+    userDao.findById(TEST_USER.id).test().assertValue(TEST_USER.toLocalDataStoreObject())
+    assertThat(writeQueue.queueDepth).isEqualTo(0)
+    assertThat(writeQueue.lastGroupSize).isEqualTo(1)
+  }
+
+  @Test
+  fun testEnqueue_failedWriteIsRolledBack() {
+    writeQueue
+      .enqueue {
+        userDao.insert(TEST_USER.toLocalDataStoreObject()).blockingAwait()
+        throw IllegalStateException()
+      }
+      .test()
+      .assertError(IllegalStateException::class.java)
+
+    userDao.findById(TEST_USER.id).test().assertNoValues()
+  }
+
+  @Test
+  fun testEnqueue_continuesAfterFailedWrite() {
+    writeQueue.enqueue { throw IllegalStateException() }.test()
+
+    writeQueue
+      .enqueue { userDao.insert(TEST_USER.toLocalDataStoreObject()).blockingAwait() }
+      .test()
+      .assertComplete()
+
+    userDao.findById(TEST_USER.id).test().assertValue(TEST_USER.toLocalDataStoreObject())
+  }
+
+  @Test
+  fun testEnqueue_groupsConcurrentWrites() {
+    val results = TEST_USERS.map { user -> pausedWriteQueue.enqueue { insert(user) }.test() }
+    assertThat(pausedWriteQueue.queueDepth).isEqualTo(TEST_USERS.size)
+
+    advanceToCommit()
+
+    results.forEach { it.assertComplete() }
+    TEST_USERS.forEach { userDao.findById(it.id).test().assertValue(it.toLocalDataStoreObject()) }
+    assertThat(pausedWriteQueue.queueDepth).isEqualTo(0)
+    assertThat(pausedWriteQueue.lastGroupSize).isEqualTo(TEST_USERS.size)
+  }
+
+  @Test
+  fun testEnqueue_failedWriteInGroup_onlyFailsItsCaller() {
+    val (user1, user2, user3) = TEST_USERS
+    val result1 = pausedWriteQueue.enqueue { insert(user1) }.test()
+    val failedResult =
+      pausedWriteQueue
+        .enqueue {
+          insert(user2)
+          throw IllegalStateException()
+        }
+        .test()
+    val result3 = pausedWriteQueue.enqueue { insert(user3) }.test()
+
+    advanceToCommit()
+
+    result1.assertComplete()
+    failedResult.assertError(IllegalStateException::class.java)
+    result3.assertComplete()
+    userDao.findById(user1.id).test().assertValue(user1.toLocalDataStoreObject())
+    userDao.findById(user2.id).test().assertNoValues()
+    userDao.findById(user3.id).test().assertValue(user3.toLocalDataStoreObject())
+    // The other writes are retried in their own transactions once the group fails.
+    assertThat(pausedWriteQueue.lastGroupSize).isEqualTo(1)
+  }
+
+  private fun insert(user: User) = userDao.insert(user.toLocalDataStoreObject()).blockingAwait()
+
+  private fun advanceToCommit() =
+    ioScheduler.advanceTimeBy(Config.LOCAL_WRITE_GROUP_COMMIT_WINDOW_MILLIS, TimeUnit.MILLISECONDS)
+
+  companion object {
+    private val TEST_USER = User("user id", "user@gmail.com", "user 1")
+    private val TEST_USERS =
+      listOf(
+        User("user id 1", "user1@gmail.com", "user 1"),
+        User("user id 2", "user2@gmail.com", "user 2"),
+        User("user id 3", "user3@gmail.com", "user 3")
+      )
+  }
+}
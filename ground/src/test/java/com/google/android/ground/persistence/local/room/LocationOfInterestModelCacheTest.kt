@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.persistence.local.room
+
+import com.google.android.ground.model.AuditInfo
+import com.google.android.ground.model.Survey
+import com.google.android.ground.persistence.local.room.converter.toLocalDataStoreObject
+import com.google.android.ground.persistence.local.room.entity.LocationOfInterestEntity
+import com.google.common.collect.ImmutableMap
+import com.google.common.truth.Truth.assertThat
+import com.sharedtest.FakeData
+import java.util.Date
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class LocationOfInterestModelCacheTest {
+  private val cache = LocationOfInterestModelCache()
+
+  @Test
+  fun testToLocationsOfInterest_reusesUnchangedRows() {
+    val entities = createEntities(ROW_COUNT)
+
+    val first = cache.toLocationsOfInterest(SURVEY, entities).toList()
+    val second = cache.toLocationsOfInterest(SURVEY, entities).toList()
+
+    assertThat(cache.conversionCount).isEqualTo(ROW_COUNT)
+    assertThat(second).hasSize(ROW_COUNT)
+    for (i in first.indices) {
+      assertThat(second[i]).isSameInstanceAs(first[i])
+    }
+  }
+
+  @Test
+  fun testToLocationsOfInterest_convertsOnlyModifiedRows() {
+    val entities = createEntities(ROW_COUNT)
+    val first = cache.toLocationsOfInterest(SURVEY, entities).toList()
+    val modifiedEntity =
+      entities[0].copy(
+        lastModified = AuditInfo(FakeData.USER, Date(MODIFIED_TIMESTAMP)).toLocalDataStoreObject()
+      )
+
+    val second =
+      cache.toLocationsOfInterest(SURVEY, listOf(modifiedEntity) + entities.drop(1)).toList()
+
+    assertThat(cache.conversionCount).isEqualTo(ROW_COUNT + 1)
+    assertThat(second[0]).isNotSameInstanceAs(first[0])
+    assertThat(second[0].lastModified.clientTimestamp).isEqualTo(Date(MODIFIED_TIMESTAMP))
+    assertThat(second[1]).isSameInstanceAs(first[1])
+  }
+
+  @Test
+  fun testToLocationsOfInterest_surveyChanged() {
+    val entities = createEntities(1)
+    cache.toLocationsOfInterest(SURVEY, entities)
+
+    cache.toLocationsOfInterest(SURVEY.copy(title = "Updated survey"), entities)
+
+    assertThat(cache.conversionCount).isEqualTo(2)
+  }
+
+  private fun createEntities(count: Int): List<LocationOfInterestEntity> =
+    (0 until count).map { i ->
+      FakeData.LOCATION_OF_INTEREST.copy(id = "loi $i", surveyId = SURVEY.id, job = FakeData.JOB)
+        .toLocalDataStoreObject()
+    }
+
+  companion object {
+    private const val ROW_COUNT = 10_000
+    private const val MODIFIED_TIMESTAMP = 1000L
+    private val SURVEY = Survey("survey id", "", "", ImmutableMap.of(FakeData.JOB.id, FakeData.JOB))
+  }
+}
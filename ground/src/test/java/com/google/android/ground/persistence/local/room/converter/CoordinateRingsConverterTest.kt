@@ -0,0 +1,92 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.room.converter
+
+import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.persistence.local.LocalDataConsistencyException
+import com.google.common.truth.Truth.assertThat
+import org.junit.Assert.assertThrows
+import org.junit.Test
+
+class CoordinateRingsConverterTest {
+
+  @Test
+  fun testToBytes_emptyList() {
+    assertThat(CoordinateRingsConverter.toBytes(listOf())).isNull()
+  }
+
+  @Test
+  fun testFromBytes_null() {
+    assertThat(CoordinateRingsConverter.fromBytes(null)).isEmpty()
+  }
+
+  @Test
+  fun testRoundTrip() {
+    val rings = listOf(SHELL, listOf(), HOLE)
+
+    val bytes = CoordinateRingsConverter.toBytes(rings)
+
+    assertThat(CoordinateRingsConverter.fromBytes(bytes)).isEqualTo(rings)
+  }
+
+  @Test
+  fun testToBytes_packsVertices() {
+    val bytes = CoordinateRingsConverter.toBytes(listOf(SHELL))!!
+
+    // Version byte, ring count, vertex count and two doubles per vertex.
+    assertThat(bytes.size).isEqualTo(1 + 4 + 4 + SHELL.size * 16)
+  }
+
+  @Test
+  fun testPolygonsRoundTrip() {
+    val polygons = listOf(listOf(SHELL, HOLE), listOf(SHELL))
+
+    val bytes = CoordinateRingsConverter.polygonsToBytes(polygons)
+
+    assertThat(CoordinateRingsConverter.polygonsFromBytes(bytes)).isEqualTo(polygons)
+  }
+
+  @Test
+  fun testPolygonsToBytes_emptyList() {
+    assertThat(CoordinateRingsConverter.polygonsToBytes(listOf())).isNull()
+  }
+
+  @Test
+  fun testFromBytes_unsupportedVersion() {
+    val bytes = CoordinateRingsConverter.toBytes(listOf(SHELL))!!
+    bytes[0] = 0
+
+    assertThrows(LocalDataConsistencyException::class.java) {
+      CoordinateRingsConverter.fromBytes(bytes)
+    }
+  }
+
+  companion object {
+    private val SHELL =
+      listOf(
+        Coordinate(49.874502, 8.655993),
+        Coordinate(49.874099, 8.651173),
+        Coordinate(49.872919, 8.651628),
+        Coordinate(49.874502, 8.655993)
+      )
+    private val HOLE =
+      listOf(
+        Coordinate(-0.1234567890123, 179.99999999999),
+        Coordinate(-0.12, 179.9),
+        Coordinate(-0.1234567890123, 179.99999999999)
+      )
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.persistence.local.room.dao
+
+import com.google.android.ground.BaseHiltTest
+import com.google.android.ground.persistence.local.room.LocalWriteQueue
+import com.google.android.ground.persistence.local.room.converter.toLocalDataStoreObject
+import com.google.android.ground.persistence.local.room.entity.LocationOfInterestEntity
+import com.google.common.truth.Truth.assertThat
+import com.sharedtest.FakeData
+import dagger.hilt.android.testing.HiltAndroidTest
+import javax.inject.Inject
+import org.junit.Ignore
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import timber.log.Timber
+
+@HiltAndroidTest
+@RunWith(RobolectricTestRunner::class)
+class BaseDaoTest : BaseHiltTest() {
+  @Inject lateinit var writeQueue: LocalWriteQueue
+
+  @Inject lateinit var locationOfInterestDao: LocationOfInterestDao
+
+  @Test
+  fun testFindByIdsInChunks_moreIdsThanBindParameterLimit() {
+    val entities = createEntities(CHUNKED_ROW_COUNT)
+    writeQueue.enqueue { locationOfInterestDao.upsertAll(entities).blockingAwait() }.blockingAwait()
+
+    findByIdsInChunks(entities.map { it.id }) { locationOfInterestDao.findByIds(it) }
+      .test()
+      .assertValue { it.map { entity -> entity.id }.toSet() == entities.map { it.id }.toSet() }
+  }
+
+  @Test
+  fun testDeleteByIdsInChunks_moreIdsThanBindParameterLimit() {
+    val entities = createEntities(CHUNKED_ROW_COUNT)
+    val ids = entities.map { it.id }
+    writeQueue.enqueue { locationOfInterestDao.upsertAll(entities).blockingAwait() }.blockingAwait()
+
+    writeQueue
+      .enqueue {
+        deleteByIdsInChunks(ids) { locationOfInterestDao.deleteByIds(it) }.blockingAwait()
+      }
+      .test()
+      .assertComplete()
+
+    locationOfInterestDao.findByIds(ids.take(MAX_QUERY_PARAMS)).test().assertValue(listOf())
+    locationOfInterestDao.findByIds(ids.takeLast(MAX_QUERY_PARAMS)).test().assertValue(listOf())
+  }
+
+  @Test
+  @Ignore("Benchmark; timings are unreliable on shared CI machines, so run manually")
+  fun testBatchWrites_benchmark() {
+    val entities = createEntities(BENCHMARK_ROW_COUNT)
+    val ids = entities.map { it.id }
+
+    val singleUpsertRowsPerSec = measureRowsPerSec {
+      entities.forEach { entity ->
+        writeQueue.enqueue { locationOfInterestDao.upsert(entity).blockingAwait() }.blockingAwait()
+      }
+    }
+    val singleDeleteRowsPerSec = measureRowsPerSec {
+      ids.forEach { id ->
+        writeQueue
+          .enqueue { locationOfInterestDao.deleteByIds(listOf(id)).blockingAwait() }
+          .blockingAwait()
+      }
+    }
+    val batchUpsertRowsPerSec = measureRowsPerSec {
+      writeQueue
+        .enqueue { locationOfInterestDao.upsertAll(entities).blockingAwait() }
+        .blockingAwait()
+    }
+    val batchDeleteRowsPerSec = measureRowsPerSec {
+      writeQueue
+        .enqueue {
+          deleteByIdsInChunks(ids) { locationOfInterestDao.deleteByIds(it) }.blockingAwait()
+        }
+        .blockingAwait()
+    }
+
+    Timber.i("Single-row upsert: $singleUpsertRowsPerSec rows/sec")
+    Timber.i("Batch upsert: $batchUpsertRowsPerSec rows/sec")
+    Timber.i("Single-row delete: $singleDeleteRowsPerSec rows/sec")
+    Timber.i("Batch delete: $batchDeleteRowsPerSec rows/sec")
+    assertThat(batchUpsertRowsPerSec).isGreaterThan(0)
+    assertThat(batchDeleteRowsPerSec).isGreaterThan(0)
+  }
+
+  private fun measureRowsPerSec(write: () -> Unit): Long {
+    val startNanos = System.nanoTime()
+    write()
+    val elapsedNanos = System.nanoTime() - startNanos
+    return BENCHMARK_ROW_COUNT * 1_000_000_000L / maxOf(elapsedNanos, 1)
+  }
+
+  private fun createEntities(count: Int): List<LocationOfInterestEntity> =
+    (0 until count).map { i ->
+      FakeData.LOCATION_OF_INTEREST.copy(id = "loi $i").toLocalDataStoreObject()
+    }
+
+  companion object {
+    /** Enough ids to exceed SQLite's default limit of 999 bind parameters per statement. */
+    private const val CHUNKED_ROW_COUNT = 1_200
+    private const val BENCHMARK_ROW_COUNT = 10_000
+  }
+}
@@ -20,7 +20,9 @@ import com.google.android.ground.model.geometry.*
 import com.google.firebase.firestore.GeoPoint
 import com.sharedtest.assertIsFailure
 import com.sharedtest.assertIsSuccessWith
+import org.junit.Ignore
 import org.junit.Test
+import timber.log.Timber
 
 typealias Path = Array<Pair<Double, Double>>
 
@@ -200,6 +202,48 @@ class GeometryConverterTest {
     )
   }
 
+  @Test
+  fun roundTrip_largeMultiPolygon() {
+    val geometry = largeMultiPolygon()
+
+    val map = GeometryConverter.toFirestoreMap(geometry).getOrThrow()
+
+    assertIsSuccessWith(geometry, GeometryConverter.fromFirestoreMap(map))
+  }
+
+  @Test
+  @Ignore("Benchmark; timings are unreliable on shared CI machines, so run manually")
+  fun roundTrip_benchmark() {
+    val geometry = largeMultiPolygon()
+    val map = GeometryConverter.toFirestoreMap(geometry).getOrThrow()
+    val vertexCount = LARGE_POLYGON_COUNT * LARGE_RING_COUNT * LARGE_RING_VERTEX_COUNT
+
+    val encodeStartNanos = System.nanoTime()
+    repeat(BENCHMARK_ITERATIONS) { GeometryConverter.toFirestoreMap(geometry).getOrThrow() }
+    val encodeNanos = System.nanoTime() - encodeStartNanos
+    val decodeStartNanos = System.nanoTime()
+    repeat(BENCHMARK_ITERATIONS) { GeometryConverter.fromFirestoreMap(map).getOrThrow() }
+    val decodeNanos = System.nanoTime() - decodeStartNanos
+
+    val totalVertices = vertexCount.toLong() * BENCHMARK_ITERATIONS
+    Timber.i("Encoded ${totalVertices * 1_000_000_000L / encodeNanos} vertices/sec")
+    Timber.i("Decoded ${totalVertices * 1_000_000_000L / decodeNanos} vertices/sec")
+  }
+
+  /** Returns a MultiPolygon with more vertices per ring than the converter's cached index keys. */
+  private fun largeMultiPolygon(): MultiPolygon =
+    MultiPolygon(
+      (0 until LARGE_POLYGON_COUNT).map { p ->
+        val rings =
+          (0 until LARGE_RING_COUNT).map { r ->
+            LinearRing(
+              (0 until LARGE_RING_VERTEX_COUNT).map { v -> Coordinate(p + v * 1e-4, r + v * 1e-4) }
+            )
+          }
+        Polygon(rings.first(), rings.drop(1))
+      }
+    )
+
   private fun point(x: Double, y: Double) = Point(Coordinate(x, y))
 
   private fun linearRing(path: Path) = LinearRing(toCoordinateList(path))
@@ -214,4 +258,11 @@ class GeometryConverterTest {
 
   private fun indexedGeoPointMap(path: Path): Map<String, Any> =
     path.mapIndexed { idx, it -> idx.toString() to GeoPoint(it.first, it.second) }.toMap()
+
+  companion object {
+    private const val LARGE_POLYGON_COUNT = 4
+    private const val LARGE_RING_COUNT = 2
+    private const val LARGE_RING_VERTEX_COUNT = 2_000
+    private const val BENCHMARK_ITERATIONS = 20
+  }
 }
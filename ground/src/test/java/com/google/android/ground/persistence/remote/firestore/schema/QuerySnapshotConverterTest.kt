@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.persistence.remote.firestore.schema
+
+import com.google.android.ground.model.Survey
+import com.google.android.ground.persistence.remote.RemoteDataEvent
+import com.google.common.collect.ImmutableMap
+import com.google.common.truth.Truth.assertThat
+import com.google.firebase.firestore.DocumentChange
+import com.google.firebase.firestore.DocumentSnapshot
+import com.google.firebase.firestore.GeoPoint
+import com.google.firebase.firestore.QuerySnapshot
+import com.sharedtest.FakeData
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Schedulers
+import org.junit.Ignore
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.Mockito
+import org.mockito.Mockito.withSettings
+import org.mockito.junit.MockitoJUnitRunner
+import timber.log.Timber
+
+@RunWith(MockitoJUnitRunner::class)
+class QuerySnapshotConverterTest {
+
+  @Test
+  fun testToEvents_preservesOrder() {
+    val snapshot = mockSnapshot(DOCUMENT_COUNT)
+
+    val events = toEvents(snapshot, Schedulers.computation())
+
+    assertThat(events).hasSize(DOCUMENT_COUNT)
+    events.forEachIndexed { i, event ->
+      assertThat(event.eventType).isEqualTo(RemoteDataEvent.EventType.ENTITY_LOADED)
+      assertThat(event.result.getOrThrow().first).isEqualTo("loi $i")
+    }
+  }
+
+  @Test
+  @Ignore("Benchmark; timings are unreliable on shared CI machines, so run manually")
+  fun testToEvents_benchmark() {
+    val snapshot = mockSnapshot(DOCUMENT_COUNT)
+    // Warm up class loading and JIT before measuring.
+    toEvents(snapshot, Schedulers.trampoline())
+
+    val serialDocsPerSec = measureDocsPerSec(snapshot, Schedulers.trampoline())
+    val parallelDocsPerSec = measureDocsPerSec(snapshot, Schedulers.computation())
+
+    Timber.i("Serial conversion: $serialDocsPerSec docs/sec")
+    Timber.i("Parallel conversion: $parallelDocsPerSec docs/sec")
+    assertThat(parallelDocsPerSec).isGreaterThan(0)
+  }
+
+  private fun measureDocsPerSec(snapshot: QuerySnapshot, scheduler: Scheduler): Long {
+    val startNanos = System.nanoTime()
+    toEvents(snapshot, scheduler)
+    val elapsedNanos = System.nanoTime() - startNanos
+    return DOCUMENT_COUNT * 1_000_000_000L / maxOf(elapsedNanos, 1)
+  }
+
+  private fun toEvents(snapshot: QuerySnapshot, scheduler: Scheduler) =
+    QuerySnapshotConverter.toEvents(snapshot, scheduler) { doc: DocumentSnapshot ->
+        LoiConverter.toLoi(SURVEY, doc)
+      }
+      .blockingGet()
+
+  /** Returns a snapshot in which each of the specified number of LOI documents was added. */
+  private fun mockSnapshot(documentCount: Int): QuerySnapshot {
+    // Mocks are stub-only since they're called from several threads at once.
+    val changes =
+      (0 until documentCount).map { i ->
+        val doc = Mockito.mock(DocumentSnapshot::class.java, withSettings().stubOnly())
+        Mockito.`when`(doc.id).thenReturn("loi $i")
+        Mockito.`when`(doc.toObject(LoiDocument::class.java)).thenReturn(LOI_DOCUMENT)
+        val change = Mockito.mock(DocumentChange::class.java, withSettings().stubOnly())
+        Mockito.`when`(change.type).thenReturn(DocumentChange.Type.ADDED)
+        Mockito.`when`(change.document).thenReturn(doc)
+        change
+      }
+    val snapshot = Mockito.mock(QuerySnapshot::class.java, withSettings().stubOnly())
+    Mockito.`when`(snapshot.documentChanges).thenReturn(changes)
+    return snapshot
+  }
+
+  companion object {
+    private const val DOCUMENT_COUNT = 5_000
+    private const val VERTEX_COUNT = 50
+
+    private val SURVEY = Survey("survey id", "", "", ImmutableMap.of(FakeData.JOB.id, FakeData.JOB))
+
+    private val POLYGON_GEOMETRY =
+      mapOf(
+        LoiConverter.GEOMETRY_TYPE to LoiConverter.POLYGON_TYPE,
+        LoiConverter.GEOMETRY_COORDINATES to
+          mapOf(
+            "0" to
+              (0 until VERTEX_COUNT).associate { i ->
+                i.toString() to GeoPoint(i.toDouble() / VERTEX_COUNT, 1.0)
+              }
+          )
+      )
+
+    private val LOI_DOCUMENT = LoiDocument(jobId = FakeData.JOB.id, geometry = POLYGON_GEOMETRY)
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.persistence.remote.firestore.schema
+
+import com.google.android.ground.model.locationofinterest.LocationOfInterest
+import com.google.android.ground.persistence.remote.SubmissionCursor
+import com.google.common.collect.ImmutableList
+import com.google.common.truth.Truth.assertThat
+import com.google.firebase.Timestamp
+import com.google.firebase.firestore.CollectionReference
+import com.google.firebase.firestore.DocumentSnapshot
+import com.google.firebase.firestore.FieldPath
+import com.sharedtest.FakeData
+import io.reactivex.Single
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.Mockito
+import org.mockito.junit.MockitoJUnitRunner
+
+@RunWith(MockitoJUnitRunner::class)
+class SubmissionCollectionReferenceTest {
+  private val submissions =
+    SubmissionCollectionReference(Mockito.mock(CollectionReference::class.java))
+
+  @Test
+  fun testToPage() {
+    val documents =
+      listOf(
+        mockDocument("submission 1", LOI.id, Timestamp(100, 0)),
+        mockDocument("submission 2", LOI.id, Timestamp(100, 123_456_000))
+      )
+
+    val page = toPage(documents, PAGE_SIZE) { Single.just(ImmutableList.of(LOI)) }
+
+    assertThat(page.submissions.map { it.getOrThrow().id })
+      .containsExactly("submission 1", "submission 2")
+      .inOrder()
+    assertThat(page.submissions.map { it.getOrThrow().locationOfInterest })
+      .containsExactly(LOI, LOI)
+    assertThat(page.lastCursor).isEqualTo(SubmissionCursor(100_123_456, "submission 2"))
+    assertThat(page.isLastPage).isTrue()
+  }
+
+  @Test
+  fun testToPage_loadsLoisOfPage() {
+    val documents =
+      listOf(
+        mockDocument("submission 1", LOI.id, Timestamp(100, 0)),
+        mockDocument("submission 2", "other loi", Timestamp(200, 0)),
+        mockDocument("submission 3", LOI.id, Timestamp(300, 0))
+      )
+    var requestedLoiIds: Collection<String>? = null
+
+    toPage(documents, PAGE_SIZE) {
+      requestedLoiIds = it
+      Single.just(ImmutableList.of(LOI))
+    }
+
+    assertThat(requestedLoiIds).containsExactly(LOI.id, "other loi")
+  }
+
+  @Test
+  fun testToPage_missingLoi() {
+    val documents =
+      listOf(
+        mockDocument("submission 1", "missing loi", Timestamp(100, 0)),
+        mockDocument("submission 2", LOI.id, Timestamp(200, 0))
+      )
+
+    val page = toPage(documents, PAGE_SIZE) { Single.just(ImmutableList.of(LOI)) }
+
+    assertThat(page.submissions[0].isFailure).isTrue()
+    assertThat(page.submissions[1].getOrThrow().id).isEqualTo("submission 2")
+    assertThat(page.lastCursor).isEqualTo(SubmissionCursor(200_000_000, "submission 2"))
+    assertThat(page.firstMissingLoiCursor).isEqualTo(SubmissionCursor(100_000_000, "submission 1"))
+  }
+
+  @Test
+  fun testToPage_fullPage() {
+    val documents =
+      (1..PAGE_SIZE).map { i -> mockDocument("submission $i", LOI.id, Timestamp(i.toLong(), 0)) }
+
+    val page = toPage(documents, PAGE_SIZE) { Single.just(ImmutableList.of(LOI)) }
+
+    assertThat(page.submissions).hasSize(PAGE_SIZE)
+    assertThat(page.isLastPage).isFalse()
+  }
+
+  @Test
+  fun testToPage_empty() {
+    val page = toPage(listOf(), PAGE_SIZE) { Single.just(ImmutableList.of()) }
+
+    assertThat(page.submissions).isEmpty()
+    assertThat(page.lastCursor).isNull()
+    assertThat(page.isLastPage).isTrue()
+  }
+
+  private fun toPage(
+    documents: List<DocumentSnapshot>,
+    pageSize: Int,
+    getLocationsOfInterest: (Collection<String>) -> Single<ImmutableList<LocationOfInterest>>
+  ) = submissions.toPage(documents, pageSize, getLocationsOfInterest).blockingGet()
+
+  /** Returns a submission document with the specified id, LOI, and server modification time. */
+  private fun mockDocument(
+    id: String,
+    loiId: String,
+    serverTimestamp: Timestamp
+  ): DocumentSnapshot {
+    val auditInfo =
+      AuditInfoNestedObject(UserNestedObject("user", null, null), serverTimestamp, serverTimestamp)
+    val doc = Mockito.mock(DocumentSnapshot::class.java)
+    // Stubs are lenient since only the last document's timestamp is read, and documents whose LOI
+    // is missing are never converted.
+    Mockito.lenient().`when`(doc.id).thenReturn(id)
+    Mockito.lenient()
+      .`when`(doc.getString(SubmissionMutationConverter.LOI_ID))
+      .thenReturn(loiId)
+    Mockito.lenient()
+      .`when`(doc.toObject(SubmissionDocument::class.java))
+      .thenReturn(SubmissionDocument(loiId, FakeData.JOB.id, auditInfo, auditInfo))
+    Mockito.lenient()
+      .`when`(doc.get(LAST_MODIFIED_SERVER_TIMESTAMP))
+      .thenReturn(serverTimestamp)
+    return doc
+  }
+
+  companion object {
+    private const val PAGE_SIZE = 3
+
+    private val LOI = FakeData.LOCATION_OF_INTEREST
+    private val LAST_MODIFIED_SERVER_TIMESTAMP =
+      FieldPath.of(SubmissionMutationConverter.LAST_MODIFIED, AuditInfoConverter.SERVER_TIMESTAMP)
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.sync
+
+import com.google.common.truth.Truth.assertThat
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import java.io.File
+import java.io.IOException
+import java.net.InetSocketAddress
+import java.net.URL
+import org.junit.After
+import org.junit.Assert.assertThrows
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class ResumableFileDownloaderTest {
+  @get:Rule val tempFolder = TemporaryFolder()
+
+  private val downloader = ResumableFileDownloader()
+  private lateinit var server: HttpServer
+  private lateinit var url: URL
+  private lateinit var file: File
+  private var supportsRanges = true
+  private var lastRangeHeader: String? = null
+
+  @Before
+  fun setUp() {
+    server = HttpServer.create(InetSocketAddress("localhost", 0), 0)
+    server.createContext("/tiles.mbtiles") { exchange -> serve(exchange) }
+    server.start()
+    url = URL("http://localhost:${server.address.port}/tiles.mbtiles")
+    file = File(tempFolder.root, "tiles.mbtiles")
+  }
+
+  @After
+  fun tearDown() {
+    server.stop(0)
+  }
+
+  /** Serves [CONTENT], honoring "bytes=<offset>-" Range requests if [supportsRanges] is true. */
+  private fun serve(exchange: HttpExchange) {
+    lastRangeHeader = exchange.requestHeaders.getFirst("Range")
+    val offset = lastRangeHeader?.removePrefix("bytes=")?.removeSuffix("-")?.toInt()
+    when {
+      offset == null || !supportsRanges -> respond(exchange, 200, CONTENT)
+      offset >= CONTENT.size -> respond(exchange, 416, ByteArray(0))
+      else -> respond(exchange, 206, CONTENT.copyOfRange(offset, CONTENT.size))
+    }
+  }
+
+  private fun respond(exchange: HttpExchange, code: Int, body: ByteArray) {
+    exchange.sendResponseHeaders(code, if (body.isEmpty()) -1 else body.size.toLong())
+    exchange.responseBody.use { it.write(body) }
+  }
+
+  @Test
+  fun testDownload_newFile() {
+    val bytesTransferred = downloader.download(url, file)
+
+    assertThat(lastRangeHeader).isNull()
+    assertThat(bytesTransferred).isEqualTo(CONTENT.size.toLong())
+    assertThat(file.readBytes()).isEqualTo(CONTENT)
+  }
+
+  @Test
+  fun testDownload_partialFile_resumesFromLastByte() {
+    file.writeBytes(CONTENT.copyOfRange(0, PARTIAL_LENGTH))
+
+    val bytesTransferred = downloader.download(url, file)
+
+    assertThat(lastRangeHeader).isEqualTo("bytes=$PARTIAL_LENGTH-")
+    assertThat(bytesTransferred).isEqualTo((CONTENT.size - PARTIAL_LENGTH).toLong())
+    assertThat(file.readBytes()).isEqualTo(CONTENT)
+  }
+
+  @Test
+  fun testDownload_partialFile_rangeNotSupported_restarts() {
+    supportsRanges = false
+    file.writeBytes(CONTENT.copyOfRange(0, PARTIAL_LENGTH))
+
+    val bytesTransferred = downloader.download(url, file)
+
+    assertThat(bytesTransferred).isEqualTo(CONTENT.size.toLong())
+    assertThat(file.readBytes()).isEqualTo(CONTENT)
+  }
+
+  @Test
+  fun testDownload_completeFile_transfersNothing() {
+    file.writeBytes(CONTENT)
+
+    val bytesTransferred = downloader.download(url, file)
+
+    assertThat(bytesTransferred).isEqualTo(0L)
+    assertThat(file.readBytes()).isEqualTo(CONTENT)
+  }
+
+  @Test
+  fun testDownload_notFound_throws() {
+    val missingUrl = URL("http://localhost:${server.address.port}/missing.mbtiles")
+
+    assertThrows(IOException::class.java) { downloader.download(missingUrl, file) }
+  }
+
+  companion object {
+    /** Larger than the downloader's buffer so that multiple reads are needed. */
+    private val CONTENT = ByteArray(200 * 1024) { (it % 251).toByte() }
+    private const val PARTIAL_LENGTH = 70_000
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.persistence.sync
+
+import android.content.Context
+import androidx.work.ListenableWorker
+import androidx.work.WorkerFactory
+import androidx.work.WorkerParameters
+import androidx.work.testing.TestListenableWorkerBuilder
+import com.google.android.ground.BaseHiltTest
+import com.google.android.ground.model.AuditInfo
+import com.google.android.ground.model.Survey
+import com.google.android.ground.model.locationofinterest.LocationOfInterest
+import com.google.android.ground.model.submission.Submission
+import com.google.android.ground.persistence.local.LocalDataStore
+import com.google.android.ground.persistence.local.LocalValueStore
+import com.google.android.ground.persistence.remote.SubmissionCursor
+import com.google.android.ground.repository.SurveyRepository
+import com.google.common.collect.ImmutableMap
+import com.google.common.truth.Truth.assertThat
+import com.sharedtest.FakeData
+import com.sharedtest.persistence.remote.FakeRemoteDataStore
+import dagger.hilt.android.qualifiers.ApplicationContext
+import dagger.hilt.android.testing.HiltAndroidTest
+import java.util.Date
+import java8.util.Optional
+import javax.inject.Inject
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@HiltAndroidTest
+@RunWith(RobolectricTestRunner::class)
+class SubmissionPrefetchWorkerTest : BaseHiltTest() {
+  @Inject @ApplicationContext lateinit var context: Context
+  @Inject lateinit var localDataStore: LocalDataStore
+  @Inject lateinit var localValueStore: LocalValueStore
+  @Inject lateinit var fakeRemoteDataStore: FakeRemoteDataStore
+  @Inject lateinit var surveyRepository: SurveyRepository
+
+  override fun setUp() {
+    super.setUp()
+    localDataStore.insertOrUpdateSurvey(SURVEY).blockingAwait()
+    localDataStore.mergeLocationOfInterest(LOI).blockingAwait()
+  }
+
+  @Test
+  fun testDoWork_loadsAllPages() {
+    fakeRemoteDataStore.submissions = (1..5).map { newSubmission("submission $it", it * 1000L) }
+
+    val result = createWorker(pageSize = 2).doWork()
+
+    assertThat(result).isEqualTo(ListenableWorker.Result.success())
+    assertThat(fakeRemoteDataStore.submissionPagesLoaded).isEqualTo(3)
+    assertThat(localSubmissionIds())
+      .containsExactlyElementsIn((1..5).map { "submission $it" })
+    assertThat(localValueStore.getSubmissionPrefetchCursor(SURVEY.id)).isNull()
+    assertThat(localValueStore.getSubmissionPrefetchWatermarkMillis(SURVEY.id)).isEqualTo(5000L)
+  }
+
+  @Test
+  fun testDoWork_resumesFromCursor() {
+    fakeRemoteDataStore.submissions = (1..5).map { newSubmission("submission $it", it * 1000L) }
+    // As left by a previous run stopped after merging the first three submissions.
+    localValueStore.setSubmissionPrefetchCursor(
+      SURVEY.id,
+      SubmissionCursor(3_000_000L, "submission 3")
+    )
+
+    val result = createWorker(pageSize = 3).doWork()
+
+    assertThat(result).isEqualTo(ListenableWorker.Result.success())
+    assertThat(fakeRemoteDataStore.submissionPagesLoaded).isEqualTo(1)
+    assertThat(localSubmissionIds()).containsExactly("submission 4", "submission 5")
+    assertThat(localValueStore.getSubmissionPrefetchCursor(SURVEY.id)).isNull()
+  }
+
+  @Test
+  fun testDoWork_onlyLoadsSubmissionsModifiedSinceWatermark() {
+    fakeRemoteDataStore.submissions = (1..5).map { newSubmission("submission $it", it * 1000L) }
+    localValueStore.setSubmissionPrefetchWatermarkMillis(SURVEY.id, 3000L)
+
+    val result = createWorker(pageSize = 2).doWork()
+
+    assertThat(result).isEqualTo(ListenableWorker.Result.success())
+    assertThat(localSubmissionIds()).containsExactly("submission 4", "submission 5")
+    assertThat(localValueStore.getSubmissionPrefetchWatermarkMillis(SURVEY.id)).isEqualTo(5000L)
+  }
+
+  @Test
+  fun testDoWork_noChanges_keepsWatermark() {
+    fakeRemoteDataStore.submissions = listOf(newSubmission("submission 1", 1000L))
+    localValueStore.setSubmissionPrefetchWatermarkMillis(SURVEY.id, 1000L)
+
+    val result = createWorker(pageSize = 2).doWork()
+
+    assertThat(result).isEqualTo(ListenableWorker.Result.success())
+    assertThat(localSubmissionIds()).isEmpty()
+    assertThat(localValueStore.getSubmissionPrefetchWatermarkMillis(SURVEY.id)).isEqualTo(1000L)
+  }
+
+  @Test
+  fun testDoWork_skipsSubmissionsOfMissingLois() {
+    val otherLoi = LOI.copy(id = "other loi id")
+    fakeRemoteDataStore.submissions =
+      listOf(
+        newSubmission("submission 1", 1000L),
+        newSubmission("submission 2", 2000L).copy(locationOfInterest = otherLoi)
+      )
+
+    val result = createWorker(pageSize = 2).doWork()
+
+    assertThat(result).isEqualTo(ListenableWorker.Result.success())
+    assertThat(localSubmissionIds()).containsExactly("submission 1")
+    // Kept before the skipped submission, so that it's loaded again next time.
+    assertThat(localValueStore.getSubmissionPrefetchWatermarkMillis(SURVEY.id)).isEqualTo(1999L)
+  }
+
+  @Test
+  fun testDoWork_loiArrivesAfterPrefetch_loadsSkippedSubmissions() {
+    val otherLoi = LOI.copy(id = "other loi id")
+    fakeRemoteDataStore.submissions =
+      listOf(
+        newSubmission("submission 1", 1000L).copy(locationOfInterest = otherLoi),
+        newSubmission("submission 2", 2000L),
+        newSubmission("submission 3", 3000L).copy(locationOfInterest = otherLoi)
+      )
+    createWorker(pageSize = 2).doWork()
+    localDataStore.mergeLocationOfInterest(otherLoi).blockingAwait()
+
+    val result = createWorker(pageSize = 2).doWork()
+
+    assertThat(result).isEqualTo(ListenableWorker.Result.success())
+    assertThat(localSubmissionIds(otherLoi)).containsExactly("submission 1", "submission 3")
+    assertThat(localValueStore.getSubmissionPrefetchWatermarkMillis(SURVEY.id)).isEqualTo(3000L)
+  }
+
+  private fun localSubmissionIds(loi: LocationOfInterest = LOI): List<String> =
+    localDataStore.getSubmissions(loi, FakeData.JOB.id).blockingGet().map { it.id }
+
+  private fun createWorker(pageSize: Int): SubmissionPrefetchWorker =
+    TestListenableWorkerBuilder<SubmissionPrefetchWorker>(context)
+      .setInputData(SubmissionPrefetchWorker.createInputData(SURVEY.id, pageSize))
+      .setWorkerFactory(
+        object : WorkerFactory() {
+          override fun createWorker(
+            appContext: Context,
+            workerClassName: String,
+            workerParameters: WorkerParameters
+          ): ListenableWorker =
+            SubmissionPrefetchWorker(
+              appContext,
+              workerParameters,
+              localDataStore,
+              localValueStore,
+              fakeRemoteDataStore,
+              surveyRepository
+            )
+        }
+      )
+      .build()
+
+  private fun newSubmission(id: String, serverTimestampMillis: Long): Submission {
+    val timestamp = Date(serverTimestampMillis)
+    val auditInfo = AuditInfo(FakeData.USER, timestamp, Optional.of(timestamp))
+    return Submission(id, SURVEY.id, LOI, FakeData.JOB, auditInfo, auditInfo)
+  }
+
+  companion object {
+    private val SURVEY =
+      Survey(FakeData.SURVEY.id, "", "", ImmutableMap.of(FakeData.JOB.id, FakeData.JOB))
+    private val LOI = FakeData.LOCATION_OF_INTEREST
+  }
+}
@@ -17,6 +17,7 @@ package com.google.android.ground.repository
 
 import com.google.android.ground.BaseHiltTest
 import com.google.android.ground.capture
+import com.google.android.ground.model.AuditInfo
 import com.google.android.ground.model.mutation.LocationOfInterestMutation
 import com.google.android.ground.model.mutation.Mutation
 import com.google.android.ground.model.mutation.Mutation.SyncStatus
@@ -29,6 +30,7 @@ import com.google.android.ground.persistence.remote.RemoteDataEvent.Companion.lo
 import com.google.android.ground.persistence.remote.RemoteDataEvent.Companion.modified
 import com.google.android.ground.persistence.remote.RemoteDataEvent.Companion.removed
 import com.google.android.ground.persistence.sync.DataSyncWorkManager
+import com.google.common.collect.ImmutableList
 import com.google.common.collect.ImmutableSet
 import com.google.common.truth.Truth.assertThat
 import com.sharedtest.FakeData
@@ -42,6 +44,7 @@ import io.reactivex.Flowable
 import io.reactivex.Maybe
 import io.reactivex.Single
 import java.util.*
+import java8.util.Optional
 import javax.inject.Inject
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -67,6 +70,8 @@ class LocationOfInterestRepositoryTest : BaseHiltTest() {
   override fun setUp() {
     super.setUp()
     fakeAuthenticationManager.setUser(FakeData.USER)
+    Mockito.`when`(mockLocalDataStore.getLatestLocationOfInterestServerTimestamp(any()))
+      .thenReturn(Maybe.empty())
   }
 
   private fun mockApplyAndEnqueue() {
@@ -76,7 +81,7 @@ class LocationOfInterestRepositoryTest : BaseHiltTest() {
   }
 
   private fun mockEnqueueSyncWorker() {
-    Mockito.`when`(mockWorkManager.enqueueSyncWorker(ArgumentMatchers.anyString()))
+    Mockito.`when`(mockWorkManager.enqueueSyncWorker())
       .thenReturn(Completable.complete())
   }
 
@@ -98,7 +103,7 @@ class LocationOfInterestRepositoryTest : BaseHiltTest() {
     Mockito.verify(mockLocalDataStore, Mockito.times(1))
       .applyAndEnqueue(any<LocationOfInterestMutation>())
     Mockito.verify(mockWorkManager, Mockito.times(1))
-      .enqueueSyncWorker(FakeData.LOCATION_OF_INTEREST.id)
+      .enqueueSyncWorker()
   }
 
   @Test
@@ -117,13 +122,13 @@ class LocationOfInterestRepositoryTest : BaseHiltTest() {
     Mockito.verify(mockLocalDataStore, Mockito.times(1))
       .applyAndEnqueue(any<LocationOfInterestMutation>())
     Mockito.verify(mockWorkManager, Mockito.times(1))
-      .enqueueSyncWorker(FakeData.LOCATION_OF_INTEREST.id)
+      .enqueueSyncWorker()
   }
 
   @Test
   fun testEnqueueSyncWorker_returnsError() {
     mockApplyAndEnqueue()
-    Mockito.`when`(mockWorkManager.enqueueSyncWorker(ArgumentMatchers.anyString()))
+    Mockito.`when`(mockWorkManager.enqueueSyncWorker())
       .thenReturn(Completable.error(NullPointerException()))
     locationOfInterestRepository
       .applyAndEnqueue(
@@ -136,49 +141,139 @@ class LocationOfInterestRepositoryTest : BaseHiltTest() {
     Mockito.verify(mockLocalDataStore, Mockito.times(1))
       .applyAndEnqueue(any<LocationOfInterestMutation>())
     Mockito.verify(mockWorkManager, Mockito.times(1))
-      .enqueueSyncWorker(FakeData.LOCATION_OF_INTEREST.id)
+      .enqueueSyncWorker()
+  }
+
+  private fun mockMergeLocationsOfInterest() {
+    Mockito.`when`(mockLocalDataStore.mergeLocationsOfInterest(any(), any()))
+      .thenReturn(Completable.complete())
+    Mockito.`when`(mockLocalDataStore.replaceLocationsOfInterest(any(), any()))
+      .thenReturn(Completable.complete())
   }
 
+  private fun auditInfoAt(serverTimestamp: Long) =
+    AuditInfo(FakeData.USER, Date(serverTimestamp), Optional.of(Date(serverTimestamp)))
+
   @Test
-  fun testSyncLocationsOfInterest_loaded() {
+  fun testSyncLocationsOfInterest_snapshot_replacesLocalLois() {
     fakeRemoteDataStore.streamLoiOnce(loaded("entityId", FakeData.LOCATION_OF_INTEREST))
-    Mockito.`when`(mockLocalDataStore.mergeLocationOfInterest(FakeData.LOCATION_OF_INTEREST))
-      .thenReturn(Completable.complete())
+    mockMergeLocationsOfInterest()
+    locationOfInterestRepository
+      .syncLocationsOfInterest(FakeData.SURVEY)
+      .test()
+      .assertNoErrors()
+      .assertComplete()
+    Mockito.verify(mockLocalDataStore, Mockito.times(1))
+      .replaceLocationsOfInterest(FakeData.SURVEY, ImmutableList.of(FakeData.LOCATION_OF_INTEREST))
+    Mockito.verify(mockLocalDataStore, Mockito.never()).mergeLocationsOfInterest(any(), any())
+  }
+
+  @Test
+  fun testSyncLocationsOfInterest_loaded() {
+    fakeRemoteDataStore.streamLoiSnapshots(
+      listOf(),
+      listOf(loaded("entityId", FakeData.LOCATION_OF_INTEREST))
+    )
+    mockMergeLocationsOfInterest()
     locationOfInterestRepository
       .syncLocationsOfInterest(FakeData.SURVEY)
       .test()
       .assertNoErrors()
       .assertComplete()
     Mockito.verify(mockLocalDataStore, Mockito.times(1))
-      .mergeLocationOfInterest(FakeData.LOCATION_OF_INTEREST)
+      .mergeLocationsOfInterest(ImmutableList.of(FakeData.LOCATION_OF_INTEREST), ImmutableSet.of())
   }
 
   @Test
   fun testSyncLocationsOfInterest_modified() {
-    fakeRemoteDataStore.streamLoiOnce(modified("entityId", FakeData.LOCATION_OF_INTEREST))
-    Mockito.`when`(mockLocalDataStore.mergeLocationOfInterest(FakeData.LOCATION_OF_INTEREST))
-      .thenReturn(Completable.complete())
+    fakeRemoteDataStore.streamLoiSnapshots(
+      listOf(),
+      listOf(modified("entityId", FakeData.LOCATION_OF_INTEREST))
+    )
+    mockMergeLocationsOfInterest()
     locationOfInterestRepository
       .syncLocationsOfInterest(FakeData.SURVEY)
       .test()
       .assertNoErrors()
       .assertComplete()
     Mockito.verify(mockLocalDataStore, Mockito.times(1))
-      .mergeLocationOfInterest(FakeData.LOCATION_OF_INTEREST)
+      .mergeLocationsOfInterest(ImmutableList.of(FakeData.LOCATION_OF_INTEREST), ImmutableSet.of())
   }
 
   @Test
   fun testSyncLocationsOfInterest_removed() {
-    fakeRemoteDataStore.streamLoiOnce(removed("entityId"))
-    Mockito.`when`(mockLocalDataStore.deleteLocationOfInterest(ArgumentMatchers.anyString()))
-      .thenReturn(Completable.complete())
+    fakeRemoteDataStore.streamLoiSnapshots(listOf(), listOf(removed("entityId")))
+    mockMergeLocationsOfInterest()
+    locationOfInterestRepository.syncLocationsOfInterest(FakeData.SURVEY).test().assertComplete()
+    Mockito.verify(mockLocalDataStore, Mockito.times(1))
+      .mergeLocationsOfInterest(ImmutableList.of(), ImmutableSet.of("entityId"))
+  }
+
+  @Test
+  fun testSyncLocationsOfInterest_batch_appliesLastChangePerLoi() {
+    val loi = FakeData.LOCATION_OF_INTEREST
+    val otherLoi = loi.copy(id = "other id")
+    fakeRemoteDataStore.streamLoiSnapshots(
+      listOf(),
+      listOf(
+        loaded(loi.id, loi),
+        loaded(otherLoi.id, otherLoi),
+        removed(loi.id),
+        removed("removed id")
+      )
+    )
+    mockMergeLocationsOfInterest()
+    locationOfInterestRepository
+      .syncLocationsOfInterest(FakeData.SURVEY)
+      .test()
+      .assertNoErrors()
+      .assertComplete()
+    Mockito.verify(mockLocalDataStore, Mockito.times(1))
+      .mergeLocationsOfInterest(ImmutableList.of(otherLoi), ImmutableSet.of(loi.id, "removed id"))
+  }
+
+  @Test
+  fun testSyncLocationsOfInterest_warmRestart_loadsModifiedLoisFirst() {
+    val loi = FakeData.LOCATION_OF_INTEREST.copy(lastModified = auditInfoAt(1000))
+    val modifiedLoi = loi.copy(id = "modified id", lastModified = auditInfoAt(2000))
+    fakeRemoteDataStore.streamLoiOnce(loaded(loi.id, loi), loaded(modifiedLoi.id, modifiedLoi))
+    Mockito.`when`(mockLocalDataStore.getLatestLocationOfInterestServerTimestamp(FakeData.SURVEY))
+      .thenReturn(Maybe.just(Date(1000)))
+    mockMergeLocationsOfInterest()
+
     locationOfInterestRepository.syncLocationsOfInterest(FakeData.SURVEY).test().assertComplete()
-    Mockito.verify(mockLocalDataStore, Mockito.times(1)).deleteLocationOfInterest("entityId")
+
+    // The catch-up query only transfers the modified LOI; the listener's snapshot lists both.
+    assertThat(fakeRemoteDataStore.loiEventsTransferred).isEqualTo(3)
+    val inOrder = Mockito.inOrder(mockLocalDataStore)
+    inOrder
+      .verify(mockLocalDataStore)
+      .mergeLocationsOfInterest(ImmutableList.of(modifiedLoi), ImmutableSet.of())
+    inOrder
+      .verify(mockLocalDataStore)
+      .replaceLocationsOfInterest(FakeData.SURVEY, ImmutableList.of(loi, modifiedLoi))
+  }
+
+  @Test
+  fun testSyncLocationsOfInterest_warmRestart_remoteDeleteOfUnmodifiedLoi_isReplaced() {
+    val modifiedLoi =
+      FakeData.LOCATION_OF_INTEREST.copy(id = "modified id", lastModified = auditInfoAt(2000))
+    // The LOI last modified at 1000 was deleted remotely, so it's missing from the snapshot.
+    fakeRemoteDataStore.streamLoiOnce(loaded(modifiedLoi.id, modifiedLoi))
+    Mockito.`when`(mockLocalDataStore.getLatestLocationOfInterestServerTimestamp(FakeData.SURVEY))
+      .thenReturn(Maybe.just(Date(1000)))
+    mockMergeLocationsOfInterest()
+
+    locationOfInterestRepository.syncLocationsOfInterest(FakeData.SURVEY).test().assertComplete()
+
+    Mockito.verify(mockLocalDataStore, Mockito.times(1))
+      .replaceLocationsOfInterest(FakeData.SURVEY, ImmutableList.of(modifiedLoi))
   }
 
   @Test
   fun testSyncLocationsOfInterest_error() {
     fakeRemoteDataStore.streamLoiOnce(error(Throwable("Foo error")))
+    mockMergeLocationsOfInterest()
     locationOfInterestRepository
       .syncLocationsOfInterest(FakeData.SURVEY)
       .test()
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.repository
+
+import android.os.SystemClock
+import com.google.android.ground.BaseHiltTest
+import com.google.android.ground.model.submission.Submission
+import com.google.android.ground.persistence.local.LocalDataStore
+import com.google.android.ground.persistence.local.LocalDataStoreModule
+import com.google.android.ground.util.toImmutableList
+import com.google.common.collect.ImmutableList
+import com.google.common.truth.Truth.assertThat
+import com.sharedtest.FakeData
+import com.sharedtest.persistence.remote.FakeRemoteDataStore
+import dagger.hilt.android.testing.BindValue
+import dagger.hilt.android.testing.HiltAndroidTest
+import dagger.hilt.android.testing.UninstallModules
+import io.reactivex.Completable
+import io.reactivex.Single
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.Mock
+import org.mockito.Mockito
+import org.mockito.kotlin.any
+import org.robolectric.RobolectricTestRunner
+
+@HiltAndroidTest
+@UninstallModules(LocalDataStoreModule::class)
+@RunWith(RobolectricTestRunner::class)
+class SubmissionRepositoryTest : BaseHiltTest() {
+  @BindValue @Mock lateinit var mockLocalDataStore: LocalDataStore
+  @BindValue @Mock lateinit var mockLocationOfInterestRepository: LocationOfInterestRepository
+
+  @Inject lateinit var fakeRemoteDataStore: FakeRemoteDataStore
+  @Inject lateinit var submissionRepository: SubmissionRepository
+
+  /** Submissions stored in the mock local db. */
+  private val localSubmissions = mutableListOf<Submission>()
+
+  override fun setUp() {
+    super.setUp()
+    Mockito.`when`(mockLocationOfInterestRepository.getLocationOfInterest(SURVEY_ID, LOI.id))
+      .thenReturn(Single.just(LOI))
+    Mockito.`when`(mockLocalDataStore.getSubmissions(LOI, JOB_ID))
+      .thenReturn(Single.fromCallable { localSubmissions.toImmutableList() })
+    Mockito.`when`(mockLocalDataStore.mergeSubmission(any())).thenAnswer { invocation ->
+      Completable.fromAction {
+        localSubmissions.removeAll { it.id == SUBMISSION.id }
+        localSubmissions.add(invocation.getArgument(0))
+      }
+    }
+  }
+
+  private fun getSubmissionsOnceAndStream() =
+    submissionRepository.getSubmissionsOnceAndStream(SURVEY_ID, LOI.id, JOB_ID).test()
+
+  @Test
+  fun testGetSubmissionsOnceAndStream_notSynced_emitsLocalThenSyncedSubmissions() {
+    fakeRemoteDataStore.submissions = listOf(SUBMISSION)
+
+    getSubmissionsOnceAndStream()
+      .assertValues(ImmutableList.of(), ImmutableList.of(SUBMISSION))
+      .assertComplete()
+    assertThat(fakeRemoteDataStore.submissionLoads).isEqualTo(1)
+  }
+
+  @Test
+  fun testGetSubmissionsOnceAndStream_syncedRecently_emitsLocalSubmissionsOnly() {
+    fakeRemoteDataStore.submissions = listOf(SUBMISSION)
+    getSubmissionsOnceAndStream()
+
+    getSubmissionsOnceAndStream().assertValues(ImmutableList.of(SUBMISSION)).assertComplete()
+    assertThat(fakeRemoteDataStore.submissionLoads).isEqualTo(1)
+  }
+
+  @Test
+  fun testGetSubmissionsOnceAndStream_syncStale_syncsAgain() {
+    getSubmissionsOnceAndStream()
+    SystemClock.setCurrentTimeMillis(SystemClock.elapsedRealtime() + TimeUnit.HOURS.toMillis(1))
+    fakeRemoteDataStore.submissions = listOf(SUBMISSION)
+
+    getSubmissionsOnceAndStream()
+      .assertValues(ImmutableList.of(), ImmutableList.of(SUBMISSION))
+      .assertComplete()
+    assertThat(fakeRemoteDataStore.submissionLoads).isEqualTo(2)
+  }
+
+  @Test
+  fun testGetSubmissionsOnceAndStream_syncUnchanged_doesNotEmitAgain() {
+    localSubmissions.add(SUBMISSION)
+    fakeRemoteDataStore.submissions = listOf(SUBMISSION)
+
+    getSubmissionsOnceAndStream().assertValues(ImmutableList.of(SUBMISSION)).assertComplete()
+    assertThat(fakeRemoteDataStore.submissionLoads).isEqualTo(1)
+  }
+
+  companion object {
+    private val SUBMISSION = FakeData.SUBMISSION
+    private val LOI = SUBMISSION.locationOfInterest
+    private val SURVEY_ID = SUBMISSION.surveyId
+    private val JOB_ID = SUBMISSION.job.id
+  }
+}
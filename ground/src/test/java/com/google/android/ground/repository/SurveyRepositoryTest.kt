@@ -20,9 +20,11 @@ import com.google.android.ground.model.Survey
 import com.google.android.ground.persistence.local.LocalDataStore
 import com.google.android.ground.persistence.local.LocalDataStoreModule
 import com.google.common.collect.ImmutableMap
+import com.google.common.truth.Truth.assertThat
 import dagger.hilt.android.testing.BindValue
 import dagger.hilt.android.testing.HiltAndroidTest
 import dagger.hilt.android.testing.UninstallModules
+import io.reactivex.Completable
 import io.reactivex.Maybe
 import java8.util.Optional
 import javax.inject.Inject
@@ -49,6 +51,31 @@ class SurveyRepositoryTest : BaseHiltTest() {
     surveyRepository.activeSurvey.test().assertValue(Optional.of(survey))
   }
 
+  @Test
+  fun testGetSurvey_cachesLocalSurvey() {
+    val survey = Survey("id", "", "", ImmutableMap.of())
+    setTestSurvey(survey)
+
+    surveyRepository.getSurvey("id").test().assertValue(survey)
+    surveyRepository.getSurvey("id").test().assertValue(survey)
+
+    Mockito.verify(mockLocalDataStore, Mockito.times(1)).getSurveyById("id")
+    assertThat(surveyRepository.surveyCacheHitCount).isEqualTo(1)
+  }
+
+  @Test
+  fun testDeleteSurvey_invalidatesCache() {
+    val survey = Survey("id", "", "", ImmutableMap.of())
+    setTestSurvey(survey)
+    Mockito.`when`(mockLocalDataStore.deleteSurvey(survey)).thenReturn(Completable.complete())
+
+    surveyRepository.getSurvey("id").test().assertValue(survey)
+    surveyRepository.deleteSurvey(survey).test().assertComplete()
+    surveyRepository.getSurvey("id").test().assertValue(survey)
+
+    Mockito.verify(mockLocalDataStore, Mockito.times(2)).getSurveyById("id")
+  }
+
   private fun setTestSurvey(survey: Survey) {
     Mockito.`when`(mockLocalDataStore.getSurveyById(anyString())).thenReturn(Maybe.just(survey))
   }
@@ -96,6 +96,32 @@ class MarkerIconFactoryTest : BaseHiltTest() {
     verifyBitmapScale(bitmap, scale)
   }
 
+  @Test
+  fun markerIcon_sameAppearance_returnsCachedIcon() {
+    val zoom = MapContainerViewModel.ZOOM_LEVEL_THRESHOLD
+    val first = markerIconFactory.getCachedMarkerIcon(Color.BLUE, zoom, false)
+    val second = markerIconFactory.getCachedMarkerIcon(Color.BLUE, zoom + 1, false)
+
+    assertThat(second).isSameInstanceAs(first)
+    assertThat(markerIconFactory.cacheMissCount).isEqualTo(1)
+    assertThat(markerIconFactory.cacheHitCount).isEqualTo(1)
+  }
+
+  @Test
+  fun markerIcon_differentAppearance_rendersNewIcon() {
+    val zoom = MapContainerViewModel.ZOOM_LEVEL_THRESHOLD
+    val icon = markerIconFactory.getCachedMarkerIcon(Color.BLUE, zoom, false)
+
+    assertThat(markerIconFactory.getCachedMarkerIcon(Color.RED, zoom, false))
+      .isNotSameInstanceAs(icon)
+    assertThat(markerIconFactory.getCachedMarkerIcon(Color.BLUE, zoom - 0.1f, false))
+      .isNotSameInstanceAs(icon)
+    assertThat(markerIconFactory.getCachedMarkerIcon(Color.BLUE, zoom, true))
+      .isNotSameInstanceAs(icon)
+    assertThat(markerIconFactory.cacheMissCount).isEqualTo(4)
+    assertThat(markerIconFactory.cacheHitCount).isEqualTo(0)
+  }
+
   private fun verifyBitmapScale(bitmap: Bitmap, scale: Float) {
     val expectedWidth = (markerUnscaledWidth * scale).toInt()
     val expectedHeight = (markerUnscaledHeight * scale).toInt()
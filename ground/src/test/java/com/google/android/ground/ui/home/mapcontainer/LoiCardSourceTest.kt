@@ -18,13 +18,17 @@ package com.google.android.ground.ui.home.mapcontainer
 import com.google.android.gms.maps.model.LatLng
 import com.google.android.gms.maps.model.LatLngBounds
 import com.google.android.ground.BaseHiltTest
+import com.google.android.ground.model.AuditInfo
 import com.google.android.ground.model.geometry.Coordinate
 import com.google.android.ground.model.geometry.LineString
 import com.google.android.ground.model.geometry.Point
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
 import com.google.android.ground.repository.LocationOfInterestRepository
 import com.google.android.ground.repository.SurveyRepository
+import com.google.android.ground.ui.map.LoiMapSummary
+import com.google.android.ground.util.toImmutableSet
 import com.google.common.collect.ImmutableList
+import com.google.common.collect.ImmutableMap
 import com.google.common.collect.ImmutableSet
 import com.google.common.truth.Truth.assertThat
 import com.jraska.livedata.TestObserver
@@ -37,6 +41,8 @@ import org.junit.Test
 import org.junit.runner.RunWith
 import org.mockito.Mock
 import org.mockito.Mockito
+import org.mockito.kotlin.any
+import org.mockito.kotlin.eq
 import org.robolectric.RobolectricTestRunner
 
 // TODO: Add more test coverage
@@ -59,8 +65,27 @@ class LoiCardSourceTest : BaseHiltTest() {
     Mockito.`when`(surveyRepository.activeSurvey)
       .thenReturn(Flowable.just(Optional.of(TEST_SURVEY)))
 
-    Mockito.`when`(locationOfInterestRepository.getLocationsOfInterestOnceAndStream(TEST_SURVEY))
-      .thenReturn(Flowable.just(TEST_LOCATIONS_OF_INTEREST))
+    Mockito.`when`(
+        locationOfInterestRepository.getLocationOfInterestSummariesWithinBoundsOnceAndStream(
+          eq(TEST_SURVEY),
+          any()
+        )
+      )
+      .thenReturn(
+        Flowable.just(
+          TEST_LOCATIONS_OF_INTEREST.map {
+              LoiMapSummary(
+                it.id,
+                it.job.id,
+                it.caption,
+                bounds = null,
+                geometry = it.geometry,
+                lastModified = it.lastModified
+              )
+            }
+            .toImmutableSet()
+        )
+      )
 
     loiCardSource = LoiCardSource(surveyRepository, locationOfInterestRepository)
     loisTestObserver = TestObserver.test(loiCardSource.locationsOfInterest)
@@ -115,7 +140,10 @@ class LoiCardSourceTest : BaseHiltTest() {
     private val COORDINATE_2 = Coordinate(0.0, 0.0)
     private val COORDINATE_3 = Coordinate(20.0, 20.0)
 
-    private val TEST_SURVEY = FakeData.SURVEY
+    private val AUDIT_INFO = AuditInfo(FakeData.USER)
+
+    private val TEST_SURVEY =
+      FakeData.SURVEY.copy(jobMap = ImmutableMap.of(FakeData.JOB.id, FakeData.JOB))
 
     private val TEST_POINT_OF_INTEREST_1 = createPoint("1", COORDINATE_1)
     private val TEST_POINT_OF_INTEREST_2 = createPoint("2", COORDINATE_2)
@@ -138,14 +166,18 @@ class LoiCardSourceTest : BaseHiltTest() {
       FakeData.LOCATION_OF_INTEREST.copy(
         id = id,
         geometry = Point(coordinate),
-        surveyId = TEST_SURVEY.id
+        surveyId = TEST_SURVEY.id,
+        created = AUDIT_INFO,
+        lastModified = AUDIT_INFO
       )
 
     private fun createPolygon(id: String, coordinates: ImmutableList<Coordinate>) =
       FakeData.AREA_OF_INTEREST.copy(
         id = id,
         geometry = LineString(coordinates),
-        surveyId = TEST_SURVEY.id
+        surveyId = TEST_SURVEY.id,
+        created = AUDIT_INFO,
+        lastModified = AUDIT_INFO
       )
   }
 }
@@ -21,6 +21,7 @@ import com.google.android.ground.model.geometry.Point
 import com.google.android.ground.model.geometry.Polygon
 import com.google.android.ground.ui.home.mapcontainer.PolygonDrawingViewModel.PolygonDrawingState
 import com.google.android.ground.ui.map.MapLocationOfInterest
+import com.google.android.ground.ui.map.MapLocationOfInterestRenderer
 import com.google.common.collect.ImmutableSet
 import com.google.common.truth.Truth
 import com.jraska.livedata.TestObserver
@@ -121,6 +122,32 @@ class PolygonDrawingViewModelTest : BaseHiltTest() {
     validatePolygonCompleted(true)
   }
 
+  @Test
+  fun testUpdateLastVertex_whenDragged_redrawsVertexAndPolygon() {
+    val drawn = mutableListOf<MapLocationOfInterest>()
+    val renderer =
+      MapLocationOfInterestRenderer(
+        { if (drawn.add(it)) 1 else 0 },
+        { if (drawn.remove(it)) 1 else 0 }
+      )
+    viewModel.onCameraMoved(Point(Coordinate(0.0, 0.0)))
+    viewModel.selectCurrentVertex()
+    viewModel.onCameraMoved(Point(Coordinate(10.0, 10.0)))
+    viewModel.selectCurrentVertex()
+    viewModel.onCameraMoved(Point(Coordinate(20.0, 20.0)))
+    viewModel.selectCurrentVertex()
+    viewModel.updateLastVertex(Point(Coordinate(30.0, 30.0)), 100.0)
+    renderer.render(drawnMapLoiTestObserver.value())
+
+    // Drag the last vertex.
+    viewModel.updateLastVertex(Point(Coordinate(40.0, 40.0)), 100.0)
+    renderer.render(drawnMapLoiTestObserver.value())
+
+    // Only the dragged vertex and the polygon are removed and re-added.
+    Truth.assertThat(drawn).containsExactlyElementsIn(drawnMapLoiTestObserver.value())
+    Truth.assertThat(renderer.lastRenderOperationCount).isEqualTo(4)
+  }
+
   @Test
   fun testRemoveLastVertex() {
     viewModel.onCameraMoved(Point(Coordinate(0.0, 0.0)))
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.ui.map
+
+import com.google.android.ground.model.AuditInfo
+import com.google.android.ground.model.locationofinterest.LocationOfInterest
+import com.google.common.collect.ImmutableMap
+import com.google.common.truth.Truth.assertThat
+import com.sharedtest.FakeData
+import io.reactivex.processors.PublishProcessor
+import java.util.*
+import org.junit.Test
+
+class LoiMapSummariesTest {
+
+  private val summaries = PublishProcessor.create<List<LoiMapSummary>>()
+
+  private val locationsOfInterest = summaries.toLocationsOfInterest(SURVEY).test()
+
+  @Test
+  fun toLocationsOfInterest_keepsSummaryOrder() {
+    summaries.onNext(listOf(toSummary(LOI_1), toSummary(LOI_2)))
+
+    locationsOfInterest.assertValue(listOf(LOI_1, LOI_2))
+  }
+
+  @Test
+  fun toLocationsOfInterest_unchangedSummaries_reusesLois() {
+    summaries.onNext(listOf(toSummary(LOI_1)))
+    summaries.onNext(listOf(toSummary(LOI_1), toSummary(LOI_2)))
+
+    assertThat(locationsOfInterest.values()[1][0])
+      .isSameInstanceAs(locationsOfInterest.values()[0][0])
+  }
+
+  @Test
+  fun toLocationsOfInterest_changedSummary_rebuildsLoi() {
+    summaries.onNext(listOf(toSummary(LOI_1), toSummary(LOI_2)))
+    val modifiedAuditInfo = AuditInfo(FakeData.USER, Date(2000))
+    val modified =
+      LOI_2.copy(
+        caption = "new caption",
+        created = modifiedAuditInfo,
+        lastModified = modifiedAuditInfo
+      )
+    summaries.onNext(listOf(toSummary(LOI_1), toSummary(modified)))
+
+    locationsOfInterest.assertValueAt(1, listOf(LOI_1, modified))
+  }
+
+  @Test
+  fun toLocationsOfInterest_unknownJob_isOmitted() {
+    summaries.onNext(listOf(toSummary(LOI_1), toSummary(LOI_2).copy(jobId = "unknown job")))
+
+    locationsOfInterest.assertValue(listOf(LOI_1))
+  }
+
+  companion object {
+    private val SURVEY =
+      FakeData.SURVEY.copy(jobMap = ImmutableMap.of(FakeData.JOB.id, FakeData.JOB))
+    private val AUDIT_INFO = AuditInfo(FakeData.USER, Date(1000))
+    private val LOI_1 =
+      FakeData.LOCATION_OF_INTEREST.copy(
+        id = "loi 1",
+        surveyId = SURVEY.id,
+        created = AUDIT_INFO,
+        lastModified = AUDIT_INFO
+      )
+    private val LOI_2 = LOI_1.copy(id = "loi 2")
+
+    private fun toSummary(loi: LocationOfInterest) =
+      LoiMapSummary(
+        loi.id,
+        loi.job.id,
+        loi.caption,
+        bounds = null,
+        geometry = loi.geometry,
+        lastModified = loi.lastModified
+      )
+  }
+}
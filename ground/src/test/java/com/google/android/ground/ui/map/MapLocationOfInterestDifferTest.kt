@@ -0,0 +1,113 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.ui.map
+
+import com.google.android.ground.model.AuditInfo
+import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.model.geometry.Point
+import com.google.common.truth.Truth.assertThat
+import com.sharedtest.FakeData
+import java.util.*
+import org.junit.Test
+
+class MapLocationOfInterestDifferTest {
+
+  private val differ = MapLocationOfInterestDiffer()
+
+  @Test
+  fun update_firstRender_addsAll() {
+    val diff = differ.update(setOf(LOI_1, LOI_2))
+
+    assertThat(diff.added).containsExactly(LOI_1, LOI_2)
+    assertThat(diff.removed).isEmpty()
+  }
+
+  @Test
+  fun update_sameLois_isEmpty() {
+    differ.update(setOf(LOI_1, LOI_2))
+
+    assertThat(differ.update(setOf(LOI_1.copy(), LOI_2.copy())).isEmpty()).isTrue()
+  }
+
+  @Test
+  fun update_removedLoi_isRemoved() {
+    differ.update(setOf(LOI_1, LOI_2))
+
+    val diff = differ.update(setOf(LOI_1))
+
+    assertThat(diff.added).isEmpty()
+    assertThat(diff.removed).containsExactly(LOI_2)
+  }
+
+  @Test
+  fun update_modifiedLoi_isReplaced() {
+    differ.update(setOf(LOI_1, LOI_2))
+    val modified =
+      MapLocationOfInterest(
+        LOI_2.locationOfInterest.copy(lastModified = AuditInfo(FakeData.USER, Date(2000)))
+      )
+
+    val diff = differ.update(setOf(LOI_1, modified))
+
+    assertThat(diff.added).containsExactly(modified)
+    assertThat(diff.removed).containsExactly(LOI_2)
+  }
+
+  @Test
+  fun update_sameIdAndLastModifiedWithNewGeometry_isReplaced() {
+    differ.update(setOf(LOI_1, LOI_2))
+    val moved =
+      MapLocationOfInterest(
+        LOI_1.locationOfInterest.copy(geometry = Point(Coordinate(10.0, 10.0)))
+      )
+
+    val diff = differ.update(setOf(moved, LOI_2))
+
+    assertThat(diff.added).containsExactly(moved)
+    assertThat(diff.removed).containsExactly(LOI_1)
+  }
+
+  @Test
+  fun update_lois_withSameId_areTrackedSeparately() {
+    val vertex = MapLocationOfInterest(LOI_2.locationOfInterest.copy(geometry = Point(COORDINATE)))
+
+    val diff = differ.update(setOf(LOI_2, vertex))
+
+    assertThat(diff.added).containsExactly(LOI_2, vertex)
+    assertThat(differ.renderedLocationsOfInterest).containsExactly(LOI_2, vertex)
+  }
+
+  @Test
+  fun update_emptySet_removesAll() {
+    differ.update(setOf(LOI_1, LOI_2))
+
+    val diff = differ.update(setOf())
+
+    assertThat(diff.removed).containsExactly(LOI_1, LOI_2)
+    assertThat(differ.renderedLocationsOfInterest).isEmpty()
+  }
+
+  companion object {
+    private val AUDIT_INFO = AuditInfo(FakeData.USER, Date(1000))
+    private val COORDINATE = Coordinate(42.0, 18.0)
+    private val LOI_1 =
+      MapLocationOfInterest(
+        FakeData.LOCATION_OF_INTEREST.copy(id = "1", lastModified = AUDIT_INFO)
+      )
+    private val LOI_2 =
+      MapLocationOfInterest(FakeData.AREA_OF_INTEREST.copy(id = "2", lastModified = AUDIT_INFO))
+  }
+}
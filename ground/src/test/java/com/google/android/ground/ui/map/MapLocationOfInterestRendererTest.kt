@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.ui.map
+
+import com.google.android.ground.model.AuditInfo
+import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.model.geometry.LineString
+import com.google.android.ground.model.geometry.Point
+import com.google.common.collect.ImmutableList
+import com.google.common.truth.Truth.assertThat
+import com.sharedtest.FakeData
+import java.util.*
+import org.junit.Test
+
+class MapLocationOfInterestRendererTest {
+
+  private val drawn = mutableListOf<MapLocationOfInterest>()
+  private val renderer =
+    MapLocationOfInterestRenderer(
+      { if (drawn.add(it)) 1 else 0 },
+      { if (drawn.remove(it)) 1 else 0 }
+    )
+
+  @Test
+  fun render_firstRender_addsAll() {
+    assertThat(renderer.render(setOf(LOI_1, LOI_2))).isTrue()
+
+    assertThat(drawn).containsExactly(LOI_1, LOI_2)
+    assertThat(renderer.lastRenderOperationCount).isEqualTo(2)
+  }
+
+  @Test
+  fun render_unchangedLois_doesNothing() {
+    renderer.render(setOf(LOI_1, LOI_2))
+
+    assertThat(renderer.render(setOf(LOI_1.copy(), LOI_2.copy()))).isFalse()
+
+    assertThat(drawn).containsExactly(LOI_1, LOI_2)
+    assertThat(renderer.lastRenderOperationCount).isEqualTo(0)
+  }
+
+  @Test
+  fun render_modifiedLoi_isRedrawn() {
+    renderer.render(setOf(LOI_1, LOI_2))
+    val moved =
+      MapLocationOfInterest(
+        LOI_1.locationOfInterest.copy(geometry = Point(Coordinate(10.0, 10.0)))
+      )
+
+    assertThat(renderer.render(setOf(moved, LOI_2))).isTrue()
+
+    assertThat(drawn).containsExactly(LOI_2, moved)
+    assertThat(renderer.renderedLocationsOfInterest).containsExactly(moved, LOI_2)
+    assertThat(renderer.lastRenderOperationCount).isEqualTo(2)
+  }
+
+  @Test
+  fun render_lineString_isAddedAndRemoved() {
+    val line =
+      MapLocationOfInterest(
+        FakeData.LOCATION_OF_INTEREST.copy(
+          id = "3",
+          lastModified = AUDIT_INFO,
+          geometry = LineString(ImmutableList.of(Coordinate(0.0, 0.0), Coordinate(10.0, 10.0)))
+        )
+      )
+
+    assertThat(renderer.render(setOf(LOI_1, line))).isTrue()
+    assertThat(drawn).containsExactly(LOI_1, line)
+    assertThat(renderer.lastRenderOperationCount).isEqualTo(2)
+
+    assertThat(renderer.render(setOf(LOI_1))).isTrue()
+    assertThat(drawn).containsExactly(LOI_1)
+    assertThat(renderer.lastRenderOperationCount).isEqualTo(1)
+  }
+
+  companion object {
+    private val AUDIT_INFO = AuditInfo(FakeData.USER, Date(1000))
+    private val LOI_1 =
+      MapLocationOfInterest(
+        FakeData.LOCATION_OF_INTEREST.copy(id = "1", lastModified = AUDIT_INFO)
+      )
+    private val LOI_2 =
+      MapLocationOfInterest(FakeData.AREA_OF_INTEREST.copy(id = "2", lastModified = AUDIT_INFO))
+  }
+}
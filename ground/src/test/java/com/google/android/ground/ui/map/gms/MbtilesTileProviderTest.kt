@@ -0,0 +1,118 @@
+/*
+ * Copyright 2022 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.ground.ui.map.gms
+
+import android.database.sqlite.SQLiteDatabase
+import com.google.android.gms.maps.model.TileProvider
+import com.google.common.truth.Truth.assertThat
+import java.io.File
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class MbtilesTileProviderTest {
+  @get:Rule val tempFolder = TemporaryFolder()
+
+  private lateinit var tileProvider: MbtilesTileProvider
+
+  @Before
+  fun setUp() {
+    tileProvider = MbtilesTileProvider(createMbtilesFile())
+  }
+
+  @After
+  fun tearDown() {
+    tileProvider.close()
+  }
+
+  @Test
+  fun testReadsZoomMetadata() {
+    assertThat(tileProvider.minZoom).isEqualTo(MIN_ZOOM)
+    assertThat(tileProvider.maxZoom).isEqualTo(MAX_ZOOM)
+  }
+
+  @Test
+  fun testGetTile_convertsXyzToTmsRow() {
+    // At zoom 2, XYZ row 0 is TMS row 3.
+    val tile = tileProvider.getTile(1, 0, 2)
+
+    assertThat(tile.data).isEqualTo(tileData(2, 1, 3))
+    assertThat(tile.width).isEqualTo(256)
+    assertThat(tile.height).isEqualTo(256)
+  }
+
+  @Test
+  fun testGetTile_missingTile() {
+    assertThat(tileProvider.getTile(0, 0, 1)).isSameInstanceAs(TileProvider.NO_TILE)
+  }
+
+  @Test
+  fun testGetTile_zoomOutOfRange() {
+    assertThat(tileProvider.getTile(0, 0, MAX_ZOOM + 1)).isSameInstanceAs(TileProvider.NO_TILE)
+  }
+
+  @Test
+  fun testGetTile_servesRepeatedRequestsFromCache() {
+    tileProvider.getTile(1, 0, 2)
+    val tile = tileProvider.getTile(1, 0, 2)
+
+    assertThat(tile.data).isEqualTo(tileData(2, 1, 3))
+    assertThat(tileProvider.cacheHitCount).isEqualTo(1)
+  }
+
+  @Test
+  fun testGetTile_afterClose() {
+    tileProvider.close()
+
+    assertThat(tileProvider.getTile(1, 0, 2)).isSameInstanceAs(TileProvider.NO_TILE)
+  }
+
+  /** Creates an mbtiles file containing every tile at zoom 2, except for those in column 0. */
+  private fun createMbtilesFile(): File {
+    val file = File(tempFolder.root, "test.mbtiles")
+    SQLiteDatabase.openOrCreateDatabase(file, null).use { db ->
+      db.execSQL("CREATE TABLE metadata (name TEXT, value TEXT)")
+      db.execSQL(
+        "CREATE TABLE tiles " +
+          "(zoom_level INTEGER, tile_column INTEGER, tile_row INTEGER, tile_data BLOB)"
+      )
+      db.execSQL("INSERT INTO metadata VALUES ('minzoom', '$MIN_ZOOM')")
+      db.execSQL("INSERT INTO metadata VALUES ('maxzoom', '$MAX_ZOOM')")
+      for (column in 1..3) {
+        for (row in 0..3) {
+          db.execSQL(
+            "INSERT INTO tiles VALUES (?, ?, ?, ?)",
+            arrayOf(2, column, row, tileData(2, column, row))
+          )
+        }
+      }
+    }
+    return file
+  }
+
+  private fun tileData(zoom: Int, column: Int, row: Int) = "$zoom/$column/$row".toByteArray()
+
+  companion object {
+    private const val MIN_ZOOM = 1
+    private const val MAX_ZOOM = 2
+  }
+}
@@ -30,6 +30,8 @@ class TestScheduler @Inject internal constructor() : Schedulers {
 
   override fun io(): Scheduler = createCurrentThreadScheduler("Test I/O Scheduler")
   override fun ui(): Scheduler = createCurrentThreadScheduler("Test UI Scheduler")
+  override fun computation(): Scheduler =
+    createCurrentThreadScheduler("Test Computation Scheduler")
 
   private fun createCurrentThreadScheduler(name: String): Scheduler {
     val scheduler = RxSchedulers.trampoline()
@@ -21,9 +21,13 @@ import com.google.android.ground.model.User
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
 import com.google.android.ground.model.mutation.Mutation
 import com.google.android.ground.model.submission.Submission
+import com.google.android.ground.persistence.remote.NotFoundException
 import com.google.android.ground.persistence.remote.RemoteDataEvent
 import com.google.android.ground.persistence.remote.RemoteDataStore
+import com.google.android.ground.persistence.remote.SubmissionCursor
+import com.google.android.ground.persistence.remote.SubmissionPage
 import com.google.android.ground.rx.annotations.Cold
+import com.google.android.ground.util.toImmutableList
 import com.google.common.collect.ImmutableCollection
 import com.google.common.collect.ImmutableList
 import com.sharedtest.FakeData
@@ -31,13 +35,14 @@ import io.reactivex.Completable
 import io.reactivex.Flowable
 import io.reactivex.Maybe
 import io.reactivex.Single
+import java.util.Date
 import java8.util.Optional
 import javax.inject.Inject
 import javax.inject.Singleton
 
 @Singleton
 class FakeRemoteDataStore @Inject internal constructor() : RemoteDataStore {
-  private var loiEvent: RemoteDataEvent<LocationOfInterest>? = null
+  private var loiSnapshots: List<List<RemoteDataEvent<LocationOfInterest>>> = listOf()
 
   // TODO(#1045): Allow default survey to be initialized by tests.
   private var testSurveys = listOf(FakeData.SURVEY)
@@ -81,23 +86,132 @@ class FakeRemoteDataStore @Inject internal constructor() : RemoteDataStore {
     return if (termsOfService.isEmpty) Maybe.empty() else Maybe.just(termsOfService.get())
   }
 
+  /**
+   * Number of LOI events returned by [loadLocationsOfInterestOnceAndStreamChanges] and
+   * [loadLocationsOfInterestModifiedSince].
+   */
+  var loiEventsTransferred = 0
+    private set
+
   override fun loadLocationsOfInterestOnceAndStreamChanges(
     survey: Survey
-  ): Flowable<RemoteDataEvent<LocationOfInterest>> {
-    return if (loiEvent == null) Flowable.empty() else Flowable.just(loiEvent)
+  ): Flowable<List<RemoteDataEvent<LocationOfInterest>>> =
+    Flowable.fromIterable(loiSnapshots).doOnNext { loiEventsTransferred += it.size }
+
+  /** Returns the events in the first snapshot whose LOI was modified after [modifiedSince]. */
+  override fun loadLocationsOfInterestModifiedSince(
+    survey: Survey,
+    modifiedSince: Date
+  ): Single<List<RemoteDataEvent<LocationOfInterest>>> =
+    Single.fromCallable {
+      val events =
+        loiSnapshots.firstOrNull().orEmpty().filter { isModifiedSince(it, modifiedSince) }
+      loiEventsTransferred += events.size
+      events
+    }
+
+  /**
+   * Returns true if the LOI in the specified event was last modified on the server after the
+   * specified time. Events without a LOI, such as removals, are always returned.
+   */
+  private fun isModifiedSince(event: RemoteDataEvent<LocationOfInterest>, time: Date): Boolean {
+    val loi = event.result.getOrNull()?.second ?: return true
+    return loi.lastModified.serverTimestamp.map { it.after(time) }.orElse(false)
   }
 
+  /** Submissions returned by [loadSubmissions] and [loadSubmissionsPage]. */
+  var submissions: List<Submission> = listOf()
+
+  /** Number of times submissions were loaded by [loadSubmissions]. */
+  var submissionLoads = 0
+    private set
+
   override fun loadSubmissions(
     locationOfInterest: LocationOfInterest
-  ): Single<ImmutableList<Result<Submission>>> {
-    TODO("Missing implementation")
+  ): Single<ImmutableList<Result<Submission>>> =
+    Single.fromCallable {
+      submissionLoads++
+      submissions
+        .filter { it.locationOfInterest.id == locationOfInterest.id }
+        .map { Result.success(it) }
+        .toImmutableList()
+    }
+
+  /** Number of pages returned by [loadSubmissionsPage]. */
+  var submissionPagesLoaded = 0
+    private set
+
+  override fun loadSubmissionsPage(
+    survey: Survey,
+    modifiedSince: Date?,
+    startAfter: SubmissionCursor?,
+    pageSize: Int,
+    getLocationsOfInterest: (Collection<String>) -> Single<ImmutableList<LocationOfInterest>>
+  ): Single<SubmissionPage> {
+    val page =
+      submissions
+        .filter { it.lastModified.serverTimestamp.isPresent }
+        .filter { modifiedSince == null || isModifiedSince(it, modifiedSince) }
+        .map { toCursor(it) to it }
+        .sortedWith(compareBy({ it.first.serverTimestampMicros }, { it.first.submissionId }))
+        .dropWhile { startAfter != null && !isAfter(it.first, startAfter) }
+        .take(pageSize)
+    submissionPagesLoaded++
+    val pageLoiIds = page.map { it.second.locationOfInterest.id }.toSet()
+    return getLocationsOfInterest(pageLoiIds).map { lois ->
+      val loiIds = lois.map { it.id }.toSet()
+      SubmissionPage(
+        page
+          .map { (_, submission) ->
+            if (loiIds.contains(submission.locationOfInterest.id)) Result.success(submission)
+            else Result.failure(NotFoundException("LOI of ${submission.id} not found"))
+          }
+          .toImmutableList(),
+        page.lastOrNull()?.first,
+        page.size < pageSize,
+        page.firstOrNull { !loiIds.contains(it.second.locationOfInterest.id) }?.first
+      )
+    }
   }
 
-  override fun applyMutations(mutations: ImmutableCollection<Mutation>, user: User): Completable {
-    TODO("Missing implementation")
+  private fun isModifiedSince(submission: Submission, time: Date): Boolean =
+    submission.lastModified.serverTimestamp.get().after(time)
+
+  private fun toCursor(submission: Submission): SubmissionCursor =
+    SubmissionCursor(submission.lastModified.serverTimestamp.get().time * 1000, submission.id)
+
+  private fun isAfter(cursor: SubmissionCursor, other: SubmissionCursor): Boolean =
+    cursor.serverTimestampMicros > other.serverTimestampMicros ||
+      (cursor.serverTimestampMicros == other.serverTimestampMicros &&
+        cursor.submissionId > other.submissionId)
+
+  /** Batches of mutations successfully applied by [applyMutations], in the order applied. */
+  val appliedMutationBatches: MutableList<ImmutableCollection<Mutation>> = mutableListOf()
+
+  /**
+   * Returns the error with which [applyMutations] fails batches containing the specified mutation,
+   * or null if the mutation can be applied.
+   */
+  var mutationError: (Mutation) -> Throwable? = { null }
+
+  override fun applyMutations(mutations: ImmutableCollection<Mutation>, user: User): Completable =
+    Completable.defer {
+      val error = mutations.mapNotNull(mutationError).firstOrNull()
+      if (error == null) {
+        appliedMutationBatches.add(mutations)
+        Completable.complete()
+      } else {
+        Completable.error(error)
+      }
+    }
+
+  /** Streams the specified events as a single remote snapshot. */
+  fun streamLoiOnce(vararg loiEvents: RemoteDataEvent<LocationOfInterest>) {
+    this.loiSnapshots = listOf(loiEvents.toList())
   }
 
-  fun streamLoiOnce(loiEvent: RemoteDataEvent<LocationOfInterest>) {
-    this.loiEvent = loiEvent
+  /** Streams the specified snapshots of LOI events, the first of which lists every LOI. */
+  fun streamLoiSnapshots(vararg loiSnapshots: List<RemoteDataEvent<LocationOfInterest>>) {
+    this.loiSnapshots = loiSnapshots.toList()
   }
 }
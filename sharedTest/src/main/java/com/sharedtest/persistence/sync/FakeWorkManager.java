@@ -29,6 +29,8 @@ import androidx.work.WorkInfo;
 import androidx.work.WorkManager;
 import androidx.work.WorkQuery;
 import androidx.work.WorkRequest;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import java.util.List;
 import java.util.UUID;
@@ -157,7 +159,7 @@ public class FakeWorkManager extends WorkManager {
   @Override
   public ListenableFuture<List<WorkInfo>> getWorkInfosForUniqueWork(
       @NonNull String uniqueWorkName) {
-    return null;
+    return Futures.immediateFuture(ImmutableList.of());
   }
 
   @NonNull